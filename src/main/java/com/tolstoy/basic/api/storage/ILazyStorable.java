@@ -0,0 +1,28 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.api.storage;
+
+/**
+ * A record read from storage that decodes most of its payload only when
+ * that part is first used.
+ */
+public interface ILazyStorable extends IStorable {
+	/**
+	 * The record as it would have been decoded in full, decoding it now if
+	 * that hasn't been done yet.
+	 */
+	IStorable getDecodedStorable() throws Exception;
+
+	boolean isDecoded();
+}
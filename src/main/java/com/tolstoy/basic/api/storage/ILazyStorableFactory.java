@@ -0,0 +1,25 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.api.storage;
+
+/**
+ * Makes lazily decoded records for the payload types it knows about.
+ */
+public interface ILazyStorableFactory {
+	/**
+	 * Returns null if the payload isn't one this factory handles, in which
+	 * case it's decoded in full as usual.
+	 */
+	ILazyStorable makeLazyStorable( byte[] payload, IPayloadCodec payloadCodec ) throws Exception;
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.api.storage;
+
+import java.util.*;
+
+/**
+ * Keeps each distinct version of an object once, so that records which
+ * contain the same objects can refer to them instead of repeating them.
+ */
+public interface IObjectVersionStore {
+	void ensureTables() throws Exception;
+
+	/**
+	 * Saves the versions that aren't already stored. Versions are never
+	 * changed once saved.
+	 */
+	void saveVersions( List<ObjectVersion> versions ) throws Exception;
+
+	/**
+	 * Returns the stored versions with the same keys as those given, with
+	 * their payloads, keyed by ObjectVersion.getKey. Versions that aren't
+	 * stored are left out.
+	 */
+	Map<String,ObjectVersion> getVersions( Collection<ObjectVersion> keys ) throws Exception;
+}
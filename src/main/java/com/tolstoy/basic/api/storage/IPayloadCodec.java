@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.api.storage;
+
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Turns records into the bytes stored in the payload column, and back.
+ * A codec can read the payloads written by every other codec, so the
+ * codec can be changed without converting existing rows.
+ */
+public interface IPayloadCodec {
+	byte[] encode( Object record ) throws Exception;
+
+	/**
+	 * Writes the same bytes as encode( record ) to out, which is left open.
+	 */
+	void encode( Object record, OutputStream out ) throws Exception;
+
+	Object decode( byte[] payload ) throws Exception;
+
+	/**
+	 * Reads the record's class name and the named top-level properties, each
+	 * as the given type, and stops there without decoding the rest.
+	 * Properties that aren't in the payload are left out.
+	 * Returns null if the payload isn't a single typed object.
+	 */
+	PayloadProperties decodeProperties( byte[] payload, Map<String,Class<?>> propertyTypes ) throws Exception;
+}
@@ -27,5 +27,39 @@ public interface IStorage {
 	List<IStorable> getRecords( IStorageTable table, StorageOrdering ordering, int max ) throws Exception;
 	List<IStorable> getRecords( IStorageTable table, String searchkey, StorageOrdering ordering, int max ) throws Exception;
 
+	/**
+	 * Same as getRecords, but without a limit, and the records are read as the
+	 * cursor is advanced instead of all at once.
+	 * @param fetchSize the number of rows to fetch from the database at a time, or 0 for the default
+	 */
+	IStorableCursor getRecordCursor( IStorageTable table, StorageOrdering ordering, int fetchSize ) throws Exception;
+	IStorableCursor getRecordCursor( IStorageTable table, String searchkey, StorageOrdering ordering, int fetchSize ) throws Exception;
+
+	/**
+	 * Same as getRecordByID and getRecords, but only the record headers are read;
+	 * the payloads are neither fetched nor decoded.
+	 */
+	StorageRecordHeader getRecordHeaderByID( IStorageTable table, long id ) throws Exception;
+	List<StorageRecordHeader> getRecordHeaders( IStorageTable table, StorageOrdering ordering, int max ) throws Exception;
+	List<StorageRecordHeader> getRecordHeaders( IStorageTable table, String searchkey, StorageOrdering ordering, int max ) throws Exception;
+
 	void saveRecord( IStorageTable table, IStorable record ) throws Exception;
+
+	/**
+	 * Same as saveRecord, but the listener is told once the record is durable.
+	 * A storage that writes in the background returns before that happens.
+	 */
+	void saveRecord( IStorageTable table, IStorable record, IStorageWriteListener listener ) throws Exception;
+
+	/**
+	 * Saves the records in a single transaction. Records with an ID of 0 are
+	 * inserted and given their new IDs; the others are updated.
+	 * @return the IDs of the records, in the same order
+	 */
+	List<Long> saveRecords( IStorageTable table, List<IStorable> records ) throws Exception;
+
+	/**
+	 * Waits until every record that has been saved has been written.
+	 */
+	void flush() throws Exception;
 }
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.api.storage;
+
+/**
+ * Told when a record handed to IStorage.saveRecord has been written, or
+ * could not be. With a storage that writes in the background this is called
+ * from the writer thread, and must not call IStorage.flush.
+ */
+public interface IStorageWriteListener {
+	void recordWritten( IStorageTable table, IStorable record );
+
+	void recordFailed( IStorageTable table, IStorable record, Exception e );
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.api.storage;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * One version of an object kept by an IObjectVersionStore, identified by
+ * the object's own ID and a hash of its encoded contents. The payload is
+ * null when the version is only being used as a key.
+ */
+public class ObjectVersion {
+	private long objectID;
+	private String hash;
+	private byte[] payload;
+
+	public ObjectVersion( long objectID, String hash, byte[] payload ) {
+		this.objectID = objectID;
+		this.hash = hash;
+		this.payload = payload;
+	}
+
+	public long getObjectID() {
+		return objectID;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public byte[] getPayload() {
+		return payload;
+	}
+
+	public String getKey() {
+		return objectID + ":" + hash;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder( this )
+		.append( "objectID", objectID )
+		.append( "hash", hash )
+		.append( "payloadSize", payload != null ? payload.length : 0 )
+		.toString();
+	}
+}
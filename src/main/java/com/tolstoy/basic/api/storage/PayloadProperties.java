@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.api.storage;
+
+import java.util.Map;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Some of the top-level properties of a payload, as read by
+ * IPayloadCodec.decodeProperties.
+ */
+public class PayloadProperties {
+	private String className;
+	private Map<String,Object> values;
+
+	public PayloadProperties( String className, Map<String,Object> values ) {
+		this.className = className;
+		this.values = values;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public Object get( String name ) {
+		return values.get( name );
+	}
+
+	public boolean has( String name ) {
+		return values.containsKey( name );
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder( this )
+		.append( "className", className )
+		.append( "values", values )
+		.toString();
+	}
+}
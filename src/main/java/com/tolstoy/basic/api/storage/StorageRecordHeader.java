@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.api.storage;
+
+import java.time.Instant;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * The columns of a stored record other than its payload, plus the size of
+ * the payload. Use IStorage.getRecordByID to load the record itself.
+ */
+public class StorageRecordHeader {
+	private long id;
+	private String searchKey;
+	private Instant createTime;
+	private Instant modifyTime;
+	private long payloadSize;
+
+	public StorageRecordHeader( long id, String searchKey, Instant createTime, Instant modifyTime, long payloadSize ) {
+		this.id = id;
+		this.searchKey = searchKey;
+		this.createTime = createTime;
+		this.modifyTime = modifyTime;
+		this.payloadSize = payloadSize;
+	}
+
+	public long getID() {
+		return id;
+	}
+
+	public String getSearchKey() {
+		return searchKey;
+	}
+
+	public Instant getCreateTime() {
+		return createTime;
+	}
+
+	public Instant getModifyTime() {
+		return modifyTime;
+	}
+
+	public long getPayloadSize() {
+		return payloadSize;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder( this )
+		.append( "id", id )
+		.append( "searchKey", searchKey )
+		.append( "createTime", createTime )
+		.append( "modifyTime", modifyTime )
+		.append( "payloadSize", payloadSize )
+		.toString();
+	}
+}
@@ -71,11 +71,18 @@ public interface ITweet {
 	*/
 	void setID( long id );
 
-	/** Get a brief summary of this tweet.
+	/** Get a brief summary of this tweet. Computed once and cached
+	 * until the tweet changes.
 	 * @return a brief summary
 	*/
 	String getSummary();
 
+	/** Get the "tweettext" attribute with emojis and newlines removed,
+	 * and trimmed. Computed once and cached.
+	 * @return the text, or "" if there is none
+	*/
+	String getSanitizedText();
+
 	/** Get a brief summary of this tweet as a map.
 	 * @return a brief summary
 	*/
@@ -117,12 +124,34 @@ public interface ITweet {
 	*/
 	long getRepliedToUserID();
 
+	/** Get the "time" attribute, parsed once and cached.
+	 * @return the time in seconds since the epoch, or 0 if missing or invalid
+	*/
+	int getTime();
+
+	/** Get the "replycount" attribute, parsed once and cached.
+	 * @return the number of replies, or 0 if missing or invalid
+	*/
+	int getReplyCount();
+
+	/** Get the "retweetcount" attribute, parsed once and cached.
+	 * @return the number of retweets, or 0 if missing or invalid
+	*/
+	int getRetweetCount();
+
+	/** Get the "favoritecount" attribute, parsed once and cached.
+	 * @return the number of favorites, or 0 if missing or invalid
+	*/
+	int getFavoriteCount();
+
 	/** Get the supposed quality (as given in the HTML).
 	 * @return the supposed quality
 	*/
 	TweetSupposedQuality getSupposedQuality();
 
-	/** Get all the attributes.
+	/** Get all the attributes. If the returned map is changed
+	 * directly, call setAttributes afterwards so that the cached
+	 * values such as getTime are refreshed.
 	 * @return a map of attributes
 	*/
 	Map<String,String> getAttributes();
@@ -65,6 +65,19 @@ public interface ITweetCollection {
 	 */
 	void removeTweetByID( long id );
 
+	/**
+	 * Removes all tweets that have any of the given IDs, in a single pass
+	 * @param ids the IDs to match
+	 */
+	void removeTweetsByID( Collection<Long> ids );
+
+	/**
+	 * Get the numeric fields of the tweets as columns, built on first use
+	 * and kept until the tweets change.
+	 * @return the columns
+	 */
+	ITweetColumns getColumns();
+
 	Instant getRetrievalTime();
 	void setRetrievalTime( Instant retrievalTime );
 
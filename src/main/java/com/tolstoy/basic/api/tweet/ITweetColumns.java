@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.api.tweet;
+
+/**
+ * The numeric fields of an ITweetCollection copied into one array per field,
+ * for analysis code that scans or sorts every tweet on a page. Position i in
+ * each array is the i'th tweet in the collection, starting at 0.
+ * <p>
+ * The arrays returned are the columns themselves and must not be changed.
+ */
+public interface ITweetColumns {
+	/**
+	 * @return the number of tweets
+	 */
+	int size();
+
+	long[] getIDs();
+
+	/**
+	 * @return the "time" attributes, 0 where missing
+	 */
+	int[] getTimes();
+
+	int[] getReplyCounts();
+	int[] getRetweetCounts();
+	int[] getFavoriteCounts();
+
+	/**
+	 * @return the ordinal of each tweet's TweetSupposedQuality
+	 */
+	byte[] getQualityOrdinals();
+
+	TweetSupposedQuality getSupposedQuality( int position );
+	boolean isCensored( int position );
+
+	/**
+	 * Each tweet's user handle as an index into getHandles(), or -1 if the
+	 * tweet has no user. Two tweets are from the same user if their codes
+	 * are equal.
+	 * @return the handle codes
+	 */
+	int[] getHandleCodes();
+
+	/**
+	 * @return the distinct handles, in order of first appearance
+	 */
+	String[] getHandles();
+
+	/**
+	 * Count the tweets that are newer than a time
+	 * @param time the time in seconds since the epoch
+	 * @return the number of tweets with a later time
+	 */
+	int countNewerThan( int time );
+
+	/**
+	 * @return the positions ordered from oldest to newest, ties in page order
+	 */
+	int[] getPositionsByDate();
+
+	/**
+	 * Order by the same score as TweetInteractionComparator
+	 * @return the positions ordered from most to fewest interactions, ties in page order
+	 */
+	int[] getPositionsByInteraction( int boostReplies, int boostRTs, int boostFavorites );
+
+	/**
+	 * Find where a tweet falls in an ordering from getPositionsByDate, etc.
+	 * @return the order (starting at 1) of the first tweet with the ID, or 0 if not found
+	 */
+	int getOrder( int[] positions, long id );
+}
@@ -17,7 +17,6 @@ import java.util.Comparator;
 import java.io.Serializable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import com.tolstoy.basic.app.utils.Utils;
 
 public class TweetDateComparator implements Comparator<ITweet>, Serializable {
 	private static final Logger logger = LogManager.getLogger( TweetDateComparator.class );
@@ -30,8 +29,8 @@ public class TweetDateComparator implements Comparator<ITweet>, Serializable {
 
 	@Override
 	public int compare( ITweet a, ITweet b ) {
-		int dateA = Utils.parseIntDefault( a.getAttribute( "time" ) );
-		int dateB = Utils.parseIntDefault( b.getAttribute( "time" ) );
+		int dateA = a.getTime();
+		int dateB = b.getTime();
 
 		return direction == TweetComparatorDirection.DESC ? dateB - dateA : dateA - dateB;
 	}
@@ -17,7 +17,6 @@ import java.util.Comparator;
 import java.io.Serializable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import com.tolstoy.basic.app.utils.Utils;
 
 public class TweetInteractionComparator implements Comparator<ITweet>, Serializable {
 	private static final Logger logger = LogManager.getLogger( TweetInteractionComparator.class );
@@ -34,13 +33,9 @@ public class TweetInteractionComparator implements Comparator<ITweet>, Serializa
 
 	@Override
 	public int compare( ITweet a, ITweet b ) {
-		int scoreA = makeScore( Utils.parseIntDefault( a.getAttribute( "replycount" ) ),
-							Utils.parseIntDefault( a.getAttribute( "retweetcount" ) ),
-							Utils.parseIntDefault( a.getAttribute( "favoritecount" ) ) );
+		int scoreA = makeScore( a.getReplyCount(), a.getRetweetCount(), a.getFavoriteCount() );
 
-		int scoreB = makeScore( Utils.parseIntDefault( b.getAttribute( "replycount" ) ),
-							Utils.parseIntDefault( b.getAttribute( "retweetcount" ) ),
-							Utils.parseIntDefault( b.getAttribute( "favoritecount" ) ) );
+		int scoreB = makeScore( b.getReplyCount(), b.getRetweetCount(), b.getFavoriteCount() );
 
 		return direction == TweetComparatorDirection.DESC ? scoreB - scoreA : scoreA - scoreB;
 	}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.time.Instant;
+import com.tolstoy.basic.api.storage.StorageRecordHeader;
+
+/**
+ * Where the current version of a record is in an AppendLogTable.
+ */
+class AppendLogEntry {
+	private final long id;
+	private final String searchKey;
+	private final Instant createTime;
+	private final Instant modifyTime;
+	private final AppendLogSegment segment;
+	private final long offset;
+	private final int length;
+	private final int payloadOffset;
+	private final int payloadSize;
+
+	AppendLogEntry( long id, String searchKey, Instant createTime, Instant modifyTime,
+					AppendLogSegment segment, long offset, int length, int payloadOffset, int payloadSize ) {
+		this.id = id;
+		this.searchKey = searchKey;
+		this.createTime = createTime;
+		this.modifyTime = modifyTime;
+		this.segment = segment;
+		this.offset = offset;
+		this.length = length;
+		this.payloadOffset = payloadOffset;
+		this.payloadSize = payloadSize;
+	}
+
+	StorageRecordHeader toHeader() {
+		return new StorageRecordHeader( id, searchKey, createTime, modifyTime, payloadSize );
+	}
+
+	long getID() {
+		return id;
+	}
+
+	String getSearchKey() {
+		return searchKey;
+	}
+
+	Instant getModifyTime() {
+		return modifyTime;
+	}
+
+	AppendLogSegment getSegment() {
+		return segment;
+	}
+
+	long getOffset() {
+		return offset;
+	}
+
+	int getLength() {
+		return length;
+	}
+
+	int getPayloadOffset() {
+		return payloadOffset;
+	}
+
+	int getPayloadSize() {
+		return payloadSize;
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.CRC32;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * One segment file of an AppendLogTable.
+ *
+ * Each record is a 12 byte header (magic, body length, CRC32 of the body)
+ * followed by the body: ID, created and modified (epoch seconds plus nanos),
+ * the search key's length (-1 for null) and UTF-8 bytes, and then the payload.
+ *
+ * Writes go through the FileChannel. Reads come from a read-only mapping of
+ * the file, which is remapped when it's read past its end.
+ */
+class AppendLogSegment implements Closeable {
+	private static final Logger logger = LogManager.getLogger( AppendLogSegment.class );
+
+	static final String SUFFIX = ".seg";
+
+	private static final int MAGIC = 0x4D534C47;
+	private static final int HEADER_BYTES = 12;
+	private static final int MIN_BODY_BYTES = 8 + 12 + 12 + 4;
+
+	private final File file;
+	private final int number;
+	private final FileChannel channel;
+	private long size;
+	private long liveBytes;
+	private MappedByteBuffer mapped;
+
+	AppendLogSegment( File file, int number ) throws IOException {
+		this.file = file;
+		this.number = number;
+		this.channel = new RandomAccessFile( file, "rw" ).getChannel();
+		this.size = channel.size();
+		this.liveBytes = 0;
+		this.mapped = null;
+	}
+
+	static String makeFilename( int number ) {
+		return String.format( "%010d", number ) + SUFFIX;
+	}
+
+	static ByteBuffer encode( IStorable record, Instant created, Instant modified, byte[] payload ) {
+		byte[] searchKey = record.getSearchKey() != null ? record.getSearchKey().getBytes( StandardCharsets.UTF_8 ) : null;
+		int bodyBytes = MIN_BODY_BYTES + ( searchKey != null ? searchKey.length : 0 ) + payload.length;
+
+		ByteBuffer buf = ByteBuffer.allocate( HEADER_BYTES + bodyBytes );
+		buf.putInt( MAGIC );
+		buf.putInt( bodyBytes );
+		buf.putInt( 0 );
+
+		buf.putLong( record.getID() );
+		putInstant( buf, created );
+		putInstant( buf, modified );
+		buf.putInt( searchKey != null ? searchKey.length : -1 );
+		if ( searchKey != null ) {
+			buf.put( searchKey );
+		}
+		buf.put( payload );
+
+		CRC32 crc = new CRC32();
+		crc.update( buf.array(), HEADER_BYTES, bodyBytes );
+		buf.putInt( 8, (int) crc.getValue() );
+
+		buf.flip();
+
+		return buf;
+	}
+
+	/**
+	 * Writes the record at the end of the file and returns its entry.
+	 * Not forced to disk until force is called.
+	 */
+	AppendLogEntry append( ByteBuffer record ) throws IOException {
+		long offset = size;
+		int length = record.remaining();
+
+		ByteBuffer buf = record.duplicate();
+		while ( buf.hasRemaining() ) {
+			channel.write( buf, offset + ( length - buf.remaining() ) );
+		}
+
+		size += length;
+
+		return parse( record.duplicate(), offset );
+	}
+
+	/**
+	 * Reads every record from the start of the file. A crash can only leave
+	 * a torn record at the end of the segment being appended to, so if this
+	 * is the last segment it's truncated at the first record that is
+	 * incomplete or fails its CRC. In an earlier segment that is corruption,
+	 * and truncating would lose the records after it, so an IOException is
+	 * thrown instead.
+	 */
+	List<AppendLogEntry> recover( boolean last ) throws IOException {
+		List<AppendLogEntry> ret = new ArrayList<AppendLogEntry>();
+		ByteBuffer header = ByteBuffer.allocate( HEADER_BYTES );
+		long offset = 0;
+
+		while ( offset + HEADER_BYTES <= size ) {
+			header.clear();
+			readFully( header, offset );
+			header.flip();
+
+			int magic = header.getInt();
+			int bodyBytes = header.getInt();
+			int expectedCRC = header.getInt();
+
+			if ( magic != MAGIC || bodyBytes < MIN_BODY_BYTES || offset + HEADER_BYTES + bodyBytes > size ) {
+				break;
+			}
+
+			ByteBuffer record = ByteBuffer.allocate( HEADER_BYTES + bodyBytes );
+			readFully( record, offset );
+
+			CRC32 crc = new CRC32();
+			crc.update( record.array(), HEADER_BYTES, bodyBytes );
+			if ( (int) crc.getValue() != expectedCRC ) {
+				break;
+			}
+
+			record.flip();
+			ret.add( parse( record, offset ) );
+
+			offset += HEADER_BYTES + bodyBytes;
+		}
+
+		if ( offset < size && !last ) {
+			throw new IOException( file + " is damaged at " + offset + " of " + size + " bytes but is not the last segment" );
+		}
+
+		if ( offset < size ) {
+			logger.warn( "truncating " + file + " from " + size + " to " + offset + " bytes after a damaged record" );
+			channel.truncate( offset );
+			size = offset;
+			mapped = null;
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Copies the payload out of the mapped file.
+	 */
+	byte[] readPayload( AppendLogEntry entry ) throws IOException {
+		ByteBuffer buf = map( entry.getOffset(), entry.getLength() );
+		buf.position( entry.getPayloadOffset() );
+
+		byte[] ret = new byte[ entry.getPayloadSize() ];
+		buf.get( ret );
+
+		return ret;
+	}
+
+	/**
+	 * The whole record, header included, for copying to another segment.
+	 */
+	ByteBuffer readRecord( AppendLogEntry entry ) throws IOException {
+		return map( entry.getOffset(), entry.getLength() );
+	}
+
+	void force() throws IOException {
+		channel.force( false );
+	}
+
+	void truncate( long newSize ) throws IOException {
+		if ( newSize < size ) {
+			channel.truncate( newSize );
+			size = newSize;
+			mapped = null;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		mapped = null;
+		channel.close();
+	}
+
+	/**
+	 * A mapping can outlive its channel, and on some platforms the file can't
+	 * be deleted until the mapping is collected. A segment that is left behind
+	 * holds only superseded records, so it's compacted away again later.
+	 */
+	boolean delete() throws IOException {
+		close();
+
+		boolean deleted = file.delete();
+		if ( !deleted ) {
+			logger.warn( "could not delete " + file );
+		}
+
+		return deleted;
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	int getNumber() {
+		return number;
+	}
+
+	long getSize() {
+		return size;
+	}
+
+	long getLiveBytes() {
+		return liveBytes;
+	}
+
+	void addLiveBytes( long bytes ) {
+		liveBytes += bytes;
+	}
+
+	private ByteBuffer map( long offset, int length ) throws IOException {
+		if ( mapped == null || offset + length > mapped.capacity() ) {
+			mapped = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+		}
+
+		ByteBuffer buf = mapped.duplicate();
+		buf.position( (int) offset );
+		buf.limit( (int) ( offset + length ) );
+
+		return buf.slice();
+	}
+
+	private void readFully( ByteBuffer buf, long offset ) throws IOException {
+		long position = offset;
+
+		while ( buf.hasRemaining() ) {
+			int n = channel.read( buf, position );
+			if ( n < 0 ) {
+				throw new EOFException( "unexpected end of " + file );
+			}
+			position += n;
+		}
+	}
+
+	private AppendLogEntry parse( ByteBuffer record, long offset ) {
+		int length = record.remaining();
+		int start = record.position();
+
+		record.position( start + HEADER_BYTES );
+
+		long id = record.getLong();
+		Instant created = getInstant( record );
+		Instant modified = getInstant( record );
+
+		String searchKey = null;
+		int searchKeyBytes = record.getInt();
+		if ( searchKeyBytes >= 0 ) {
+			byte[] bytes = new byte[ searchKeyBytes ];
+			record.get( bytes );
+			searchKey = new String( bytes, StandardCharsets.UTF_8 );
+		}
+
+		int payloadOffset = record.position() - start;
+
+		return new AppendLogEntry( id, searchKey, created, modified, this, offset, length, payloadOffset, length - payloadOffset );
+	}
+
+	private static void putInstant( ByteBuffer buf, Instant instant ) {
+		buf.putLong( instant.getEpochSecond() );
+		buf.putInt( instant.getNano() );
+	}
+
+	private static Instant getInstant( ByteBuffer buf ) {
+		long seconds = buf.getLong();
+		int nanos = buf.getInt();
+
+		return Instant.ofEpochSecond( seconds, nanos );
+	}
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * The segments of one table of a StorageAppendLog, plus an index from each
+ * record's ID to its latest version. The index is rebuilt by reading the
+ * segments in order when the table is opened.
+ *
+ * Records are appended to the last segment until it reaches maxSegmentBytes.
+ * Compaction copies the live records of a mostly superseded segment to the
+ * end of the log and deletes it.
+ */
+class AppendLogTable implements Closeable {
+	private static final Logger logger = LogManager.getLogger( AppendLogTable.class );
+
+	private final File directory;
+	private final long maxSegmentBytes;
+	private final TreeMap<Integer,AppendLogSegment> segments;
+	private final Map<Long,AppendLogEntry> entries;
+	private long lastID;
+
+	private static final Comparator<AppendLogEntry> MODIFIED_ASC = new Comparator<AppendLogEntry>() {
+		@Override
+		public int compare( AppendLogEntry a, AppendLogEntry b ) {
+			int ret = a.getModifyTime().compareTo( b.getModifyTime() );
+
+			return ret != 0 ? ret : Long.compare( a.getID(), b.getID() );
+		}
+	};
+
+	AppendLogTable( File directory, long maxSegmentBytes ) {
+		this.directory = directory;
+		this.maxSegmentBytes = maxSegmentBytes;
+		this.segments = new TreeMap<Integer,AppendLogSegment>();
+		this.entries = new HashMap<Long,AppendLogEntry>();
+		this.lastID = 0;
+	}
+
+	synchronized void open() throws IOException {
+		if ( !directory.isDirectory() && !directory.mkdirs() ) {
+			throw new IOException( "cannot create " + directory );
+		}
+
+		File[] files = directory.listFiles();
+		if ( files != null ) {
+			for ( File file : files ) {
+				String name = file.getName();
+				if ( name.endsWith( AppendLogSegment.SUFFIX ) ) {
+					int number = Integer.parseInt( name.substring( 0, name.length() - AppendLogSegment.SUFFIX.length() ) );
+					segments.put( number, new AppendLogSegment( file, number ) );
+				}
+			}
+		}
+
+		int numRecords = 0;
+
+			//	later versions of a record replace earlier ones, including those copied by compaction
+		try {
+			for ( AppendLogSegment segment : segments.values() ) {
+				for ( AppendLogEntry entry : segment.recover( segment == segments.lastEntry().getValue() ) ) {
+					putEntry( entry );
+					numRecords++;
+				}
+			}
+		}
+		catch ( IOException e ) {
+			close();
+			throw e;
+		}
+
+		if ( segments.isEmpty() ) {
+			addSegment();
+		}
+
+		logger.info( "opened " + directory + ": " + segments.size() + " segments, " + numRecords + " records, " + entries.size() + " live" );
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		for ( AppendLogSegment segment : segments.values() ) {
+			segment.close();
+		}
+
+		segments.clear();
+		entries.clear();
+		lastID = 0;
+	}
+
+	synchronized void deleteAll() throws IOException {
+		for ( AppendLogSegment segment : segments.values() ) {
+			segment.delete();
+		}
+
+		segments.clear();
+		entries.clear();
+		lastID = 0;
+
+		addSegment();
+	}
+
+	synchronized AppendLogEntry getEntry( long id ) {
+		return entries.get( id );
+	}
+
+	/**
+	 * searchKey may be null to match every record. A max of 0 means no limit.
+	 */
+	synchronized List<AppendLogEntry> getEntries( String searchKey, StorageOrdering ordering, int max ) {
+		List<AppendLogEntry> ret = new ArrayList<AppendLogEntry>();
+
+		for ( AppendLogEntry entry : entries.values() ) {
+			if ( searchKey == null || searchKey.equals( entry.getSearchKey() ) ) {
+				ret.add( entry );
+			}
+		}
+
+		if ( ordering == StorageOrdering.ASC ) {
+			Collections.sort( ret, MODIFIED_ASC );
+		}
+		else if ( ordering == StorageOrdering.DESC ) {
+			Collections.sort( ret, Collections.reverseOrder( MODIFIED_ASC ) );
+		}
+
+		if ( max > 0 && ret.size() > max ) {
+			return new ArrayList<AppendLogEntry>( ret.subList( 0, max ) );
+		}
+
+		return ret;
+	}
+
+	/**
+	 * If the entry's segment has been compacted away since the entry was
+	 * looked up, the record's current location is read instead.
+	 */
+	synchronized byte[] readPayload( AppendLogEntry entry ) throws IOException {
+		if ( segments.get( entry.getSegment().getNumber() ) != entry.getSegment() ) {
+			AppendLogEntry current = entries.get( entry.getID() );
+			if ( current == null ) {
+				throw new IOException( "record " + entry.getID() + " is no longer in " + directory );
+			}
+			entry = current;
+		}
+
+		return entry.getSegment().readPayload( entry );
+	}
+
+	/**
+	 * Records without an ID are given the next one. Records with an ID that
+	 * isn't in the table yet keep it, so imported records keep their IDs.
+	 * Nothing is added to the index until every record has been written and
+	 * forced; if that fails the segments are cut back and new IDs are reset.
+	 *
+	 * Like StorageEmbeddedDerby, a record without a create or modify time is
+	 * stored with the current time. sourceHeaders, which may be null, gives the
+	 * times to use for records being imported.
+	 */
+	synchronized void append( List<IStorable> records, IPayloadCodec payloadCodec, Map<Long,StorageRecordHeader> sourceHeaders ) throws Exception {
+		List<IStorable> assigned = new ArrayList<IStorable>();
+		Map<AppendLogSegment,Long> originalSizes = new LinkedHashMap<AppendLogSegment,Long>();
+		List<AppendLogEntry> written = new ArrayList<AppendLogEntry>( records.size() );
+		boolean succeeded = false;
+
+		try {
+			for ( IStorable record : records ) {
+				if ( record.getID() == 0 ) {
+					record.setID( ++lastID );
+					assigned.add( record );
+				}
+
+				StorageRecordHeader sourceHeader = sourceHeaders != null ? sourceHeaders.get( record.getID() ) : null;
+				Instant created = sourceHeader != null ? sourceHeader.getCreateTime() : record.getCreateTime();
+				Instant modified = sourceHeader != null ? sourceHeader.getModifyTime() : record.getModifyTime();
+
+				ByteBuffer buf = AppendLogSegment.encode( record,
+															created != null ? created : Instant.now(),
+															modified != null ? modified : Instant.now(),
+															payloadCodec.encode( record ) );
+
+				AppendLogSegment segment = getSegmentFor( buf.remaining() );
+				if ( !originalSizes.containsKey( segment ) ) {
+					originalSizes.put( segment, segment.getSize() );
+				}
+
+				written.add( segment.append( buf ) );
+			}
+
+			for ( AppendLogSegment segment : originalSizes.keySet() ) {
+				segment.force();
+			}
+
+			succeeded = true;
+		}
+		finally {
+			if ( !succeeded ) {
+				for ( Map.Entry<AppendLogSegment,Long> item : originalSizes.entrySet() ) {
+					try {
+						item.getKey().truncate( item.getValue() );
+					}
+					catch ( IOException e ) {
+						logger.error( "cannot truncate " + item.getKey().getFile(), e );
+					}
+				}
+
+				for ( IStorable record : assigned ) {
+					record.setID( 0 );
+				}
+
+				lastID -= assigned.size();
+			}
+		}
+
+		for ( AppendLogEntry entry : written ) {
+			putEntry( entry );
+		}
+	}
+
+	/**
+	 * Copies the live records out of sealed segments that are less than
+	 * minLiveRatio live, then deletes those segments. Returns the number of
+	 * segments removed.
+	 */
+	synchronized int compact( double minLiveRatio ) throws IOException {
+		List<AppendLogSegment> candidates = new ArrayList<AppendLogSegment>();
+
+		for ( AppendLogSegment segment : segments.values() ) {
+			if ( segment != segments.lastEntry().getValue() && ( segment.getSize() == 0 || segment.getLiveBytes() < segment.getSize() * minLiveRatio ) ) {
+				candidates.add( segment );
+			}
+		}
+
+		int ret = 0;
+
+		for ( AppendLogSegment segment : candidates ) {
+			List<AppendLogEntry> live = new ArrayList<AppendLogEntry>();
+			for ( AppendLogEntry entry : entries.values() ) {
+				if ( entry.getSegment() == segment ) {
+					live.add( entry );
+				}
+			}
+
+				//	keep the copies in their original order
+			Collections.sort( live, new Comparator<AppendLogEntry>() {
+				@Override
+				public int compare( AppendLogEntry a, AppendLogEntry b ) {
+					return Long.compare( a.getOffset(), b.getOffset() );
+				}
+			} );
+
+			List<AppendLogEntry> copies = new ArrayList<AppendLogEntry>( live.size() );
+			Set<AppendLogSegment> targets = new HashSet<AppendLogSegment>();
+
+			for ( AppendLogEntry entry : live ) {
+				ByteBuffer buf = segment.readRecord( entry );
+
+				AppendLogSegment target = getSegmentFor( buf.remaining() );
+				targets.add( target );
+				copies.add( target.append( buf ) );
+			}
+
+			for ( AppendLogSegment target : targets ) {
+				target.force();
+			}
+
+			for ( AppendLogEntry copy : copies ) {
+				putEntry( copy );
+			}
+
+			segments.remove( segment.getNumber() );
+			segment.delete();
+			ret++;
+
+			logger.info( "compacted " + segment.getFile() + ": copied " + copies.size() + " live records" );
+		}
+
+		return ret;
+	}
+
+	synchronized void force() throws IOException {
+		segments.lastEntry().getValue().force();
+	}
+
+	synchronized int getNumSegments() {
+		return segments.size();
+	}
+
+	private void putEntry( AppendLogEntry entry ) {
+		AppendLogEntry previous = entries.put( entry.getID(), entry );
+		if ( previous != null ) {
+			previous.getSegment().addLiveBytes( -previous.getLength() );
+		}
+
+		entry.getSegment().addLiveBytes( entry.getLength() );
+
+		lastID = Math.max( lastID, entry.getID() );
+	}
+
+	private AppendLogSegment getSegmentFor( int length ) throws IOException {
+		AppendLogSegment segment = segments.lastEntry().getValue();
+
+			//	a record bigger than a segment still gets written, to a segment of its own
+		if ( segment.getSize() > 0 && segment.getSize() + length > maxSegmentBytes ) {
+			segment.force();
+			segment = addSegment();
+		}
+
+		return segment;
+	}
+
+	private AppendLogSegment addSegment() throws IOException {
+		int number = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+
+		AppendLogSegment segment = new AppendLogSegment( new File( directory, AppendLogSegment.makeFilename( number ) ), number );
+		segments.put( number, segment );
+
+		return segment;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.util.*;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.*;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+/**
+ * The same default typing as Utils.getDefaultObjectMapper, except that the
+ * common package names in the class names are replaced by short aliases.
+ * Aliases can be added, but never changed or removed, or existing rows
+ * will no longer be readable.
+ */
+class CompactTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+	private static final long serialVersionUID = 1L;
+
+	private static final String[][] PACKAGE_ALIASES = {
+		{ "com.tolstoy.censorship.twitter.checker.app.", "~a." },
+		{ "com.tolstoy.basic.app.", "~b." },
+		{ "java.util.", "~u." },
+		{ "java.time.", "~t." },
+	};
+
+	CompactTypeResolverBuilder() {
+		super( ObjectMapper.DefaultTyping.NON_FINAL );
+		init( JsonTypeInfo.Id.CLASS, null );
+		inclusion( JsonTypeInfo.As.WRAPPER_ARRAY );
+	}
+
+	@Override
+	protected TypeIdResolver idResolver( MapperConfig<?> config, JavaType baseType,
+											Collection<NamedType> subtypes, boolean forSer, boolean forDeser ) {
+		return new CompactClassNameIdResolver( baseType, config.getTypeFactory() );
+	}
+
+	static String shorten( String id ) {
+		for ( String[] alias : PACKAGE_ALIASES ) {
+			if ( id.startsWith( alias[ 0 ] ) ) {
+				return alias[ 1 ] + id.substring( alias[ 0 ].length() );
+			}
+		}
+
+		return id;
+	}
+
+	static String expand( String id ) {
+		if ( id.startsWith( "~" ) ) {
+			for ( String[] alias : PACKAGE_ALIASES ) {
+				if ( id.startsWith( alias[ 1 ] ) ) {
+					return alias[ 0 ] + id.substring( alias[ 1 ].length() );
+				}
+			}
+		}
+
+		return id;
+	}
+
+	private static class CompactClassNameIdResolver extends ClassNameIdResolver {
+		CompactClassNameIdResolver( JavaType baseType, TypeFactory typeFactory ) {
+			super( baseType, typeFactory );
+		}
+
+		@Override
+		public String idFromValue( Object value ) {
+			return shorten( super.idFromValue( value ) );
+		}
+
+		@Override
+		public String idFromValueAndType( Object value, Class<?> type ) {
+			return shorten( super.idFromValueAndType( value, type ) );
+		}
+
+		@Override
+		public JavaType typeFromId( DatabindContext context, String id ) throws java.io.IOException {
+			return super.typeFromId( context, expand( id ) );
+		}
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.util.*;
+import java.sql.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * IObjectVersionStore kept in a table of a StorageEmbeddedDerby database.
+ * Versions are looked up by object ID, which leads the primary key, in
+ * groups of QUERY_BATCH_SIZE.
+ */
+public class ObjectVersionStoreDerby implements IObjectVersionStore {
+	private static final Logger logger = LogManager.getLogger( ObjectVersionStoreDerby.class );
+
+	private static final int QUERY_BATCH_SIZE = 100;
+
+	private StorageEmbeddedDerby storage;
+	private String tablename;
+
+	public ObjectVersionStoreDerby( StorageEmbeddedDerby storage, String tablename ) {
+		this.storage = storage;
+		this.tablename = tablename;
+	}
+
+	@Override
+	public void ensureTables() throws Exception {
+		String definition = "CREATE TABLE " + tablename + "( " +
+							" objectid BIGINT NOT NULL," +
+							" hash VARCHAR(40) NOT NULL," +
+							" created TIMESTAMP," +
+							" payload BLOB(16M)," +
+							" CONSTRAINT pk" + tablename + " PRIMARY KEY (objectid, hash) )";
+
+		Connection connection = null;
+
+		try {
+			connection = storage.getConnection();
+
+			new StorageSchemaMigrator( "table." + tablename )
+				.add( 1, StorageSchemaMigrator.createTable( tablename, definition ) )
+				.migrate( connection );
+		}
+		finally {
+			if ( connection != null ) {
+				connection.close();
+			}
+		}
+	}
+
+	@Override
+	public void saveVersions( List<ObjectVersion> versions ) throws Exception {
+		Map<String,ObjectVersion> wanted = new LinkedHashMap<String,ObjectVersion>();
+		for ( ObjectVersion version : versions ) {
+			wanted.put( version.getKey(), version );
+		}
+
+		if ( wanted.isEmpty() ) {
+			return;
+		}
+
+		Connection connection = null;
+		PreparedStatement ps = null;
+		boolean committed = false;
+
+		try {
+			connection = storage.getConnection();
+			connection.setAutoCommit( false );
+
+			for ( String key : queryVersions( connection, wanted.values(), false ).keySet() ) {
+				wanted.remove( key );
+			}
+
+			if ( !wanted.isEmpty() ) {
+				ps = connection.prepareStatement( "INSERT INTO " + tablename + "( objectid, hash, created, payload ) VALUES( ?, ?, ?, ? )" );
+
+				Timestamp now = new Timestamp( System.currentTimeMillis() );
+
+				for ( ObjectVersion version : wanted.values() ) {
+					ps.setLong( 1, version.getObjectID() );
+					ps.setString( 2, version.getHash() );
+					ps.setTimestamp( 3, now );
+					ps.setBytes( 4, version.getPayload() );
+					ps.addBatch();
+				}
+
+				ps.executeBatch();
+			}
+
+			connection.commit();
+			committed = true;
+
+			logger.debug( "saved " + wanted.size() + " of " + versions.size() + " versions to " + tablename );
+		}
+		finally {
+			if ( ps != null ) {
+				ps.close();
+			}
+			if ( connection != null ) {
+				if ( !committed ) {
+					connection.rollback();
+				}
+				connection.setAutoCommit( true );
+				connection.close();
+			}
+		}
+	}
+
+	@Override
+	public Map<String,ObjectVersion> getVersions( Collection<ObjectVersion> keys ) throws Exception {
+		Connection connection = null;
+
+		try {
+			connection = storage.getConnection();
+
+			return queryVersions( connection, keys, true );
+		}
+		finally {
+			if ( connection != null ) {
+				connection.close();
+			}
+		}
+	}
+
+	/**
+	 * Gets every version of the objects in keys and keeps those with the
+	 * hashes asked for.
+	 */
+	protected Map<String,ObjectVersion> queryVersions( Connection connection, Collection<ObjectVersion> keys, boolean withPayloads ) throws Exception {
+		Map<String,ObjectVersion> ret = new HashMap<String,ObjectVersion>( keys.size() );
+
+		Set<String> wantedKeys = new HashSet<String>( keys.size() );
+		Set<Long> objectIDs = new LinkedHashSet<Long>();
+		for ( ObjectVersion key : keys ) {
+			wantedKeys.add( key.getKey() );
+			objectIDs.add( key.getObjectID() );
+		}
+
+		List<Long> batch = new ArrayList<Long>( QUERY_BATCH_SIZE );
+		Iterator<Long> iter = objectIDs.iterator();
+
+		while ( iter.hasNext() ) {
+			batch.add( iter.next() );
+
+			if ( batch.size() < QUERY_BATCH_SIZE && iter.hasNext() ) {
+				continue;
+			}
+
+			StringBuilder query = new StringBuilder( "SELECT objectid, hash" + ( withPayloads ? ", payload" : "" ) + " FROM " + tablename + " WHERE objectid IN (" );
+			for ( int i = 0; i < batch.size(); i++ ) {
+				query.append( i > 0 ? ", ?" : "?" );
+			}
+			query.append( ")" );
+
+			PreparedStatement ps = null;
+			ResultSet rs = null;
+
+			try {
+				ps = connection.prepareStatement( query.toString() );
+				for ( int i = 0; i < batch.size(); i++ ) {
+					ps.setLong( i + 1, batch.get( i ) );
+				}
+
+				rs = ps.executeQuery();
+
+				while ( rs.next() ) {
+					ObjectVersion version = new ObjectVersion( rs.getLong( "objectid" ), rs.getString( "hash" ), withPayloads ? rs.getBytes( "payload" ) : null );
+					if ( wantedKeys.contains( version.getKey() ) ) {
+						ret.put( version.getKey(), version );
+					}
+				}
+			}
+			finally {
+				if ( rs != null ) {
+					rs.close();
+				}
+				if ( ps != null ) {
+					ps.close();
+				}
+			}
+
+			batch.clear();
+		}
+
+		return ret;
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.app.utils.*;
+import com.tolstoy.basic.app.tweet.TweetJacksonModule;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * Decodes every payload format. Payloads that start with '{' or '[' are the
+ * original JSON; the others start with a format byte.
+ */
+abstract class PayloadCodecBase implements IPayloadCodec {
+	private static final Logger logger = LogManager.getLogger( PayloadCodecBase.class );
+
+	static final byte FORMAT_SMILE = 0x01;
+	static final byte FORMAT_SMILE_DEFLATE = 0x02;
+	static final byte FORMAT_SMILE_DEFLATE_REFERENCES = 0x03;
+
+	private static ObjectMapper smileMapper;
+	private static ObjectWriter smileWriter;
+
+	static {
+		SmileFactory smileFactory = new SmileFactory();
+		smileFactory.enable( SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES );
+
+		smileMapper = new ObjectMapper( smileFactory );
+		smileMapper.registerModule( new JavaTimeModule() );
+		smileMapper.setDefaultTyping( new CompactTypeResolverBuilder() );
+		smileMapper.registerModule( new TweetJacksonModule( true ) );
+
+				//	leaves the caller's stream open
+		smileWriter = smileMapper.writer().without( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+	}
+
+	static ObjectMapper getSmileMapper() {
+		return smileMapper;
+	}
+
+	static ObjectWriter getSmileWriter() {
+		return smileWriter;
+	}
+
+	/**
+	 * For codecs that need the whole payload before they can write it.
+	 */
+	@Override
+	public void encode( Object record, OutputStream out ) throws Exception {
+		out.write( encode( record ) );
+	}
+
+	@Override
+	public Object decode( byte[] payload ) throws Exception {
+		if ( payload == null || payload.length < 1 ) {
+			throw new IOException( "empty payload" );
+		}
+
+		byte format = payload[ 0 ];
+
+		if ( format == '{' || format == '[' ) {
+			return Utils.getDefaultObjectMapper().readValue( payload, Object.class );
+		}
+		else if ( format == FORMAT_SMILE ) {
+			return smileMapper.readValue( payload, 1, payload.length - 1, Object.class );
+		}
+		else if ( format == FORMAT_SMILE_DEFLATE ) {
+			InputStream in = new InflaterInputStream( new ByteArrayInputStream( payload, 1, payload.length - 1 ) );
+			try {
+				return smileMapper.readValue( in, Object.class );
+			}
+			finally {
+				in.close();
+			}
+		}
+		else if ( format == FORMAT_SMILE_DEFLATE_REFERENCES ) {
+			throw new IOException( "payload refers to stored object versions and can only be read by PayloadCodecDedup" );
+		}
+		else {
+			throw new IOException( "unknown payload format " + format );
+		}
+	}
+
+	/**
+	 * Jackson writes a superclass's properties before its subclass's, so the
+	 * properties of a base class can be read without going through those
+	 * of the subclass. Nested values that aren't wanted are skipped without
+	 * their strings being decoded.
+	 */
+	@Override
+	public PayloadProperties decodeProperties( byte[] payload, Map<String,Class<?>> propertyTypes ) throws Exception {
+		if ( payload == null || payload.length < 1 ) {
+			throw new IOException( "empty payload" );
+		}
+
+		byte format = payload[ 0 ];
+		ObjectMapper mapper;
+		JsonParser parser;
+
+		if ( format == '{' || format == '[' ) {
+			mapper = Utils.getDefaultObjectMapper();
+			parser = mapper.getFactory().createParser( payload );
+		}
+		else if ( format == FORMAT_SMILE ) {
+			mapper = smileMapper;
+			parser = mapper.getFactory().createParser( payload, 1, payload.length - 1 );
+		}
+		else if ( format == FORMAT_SMILE_DEFLATE || format == FORMAT_SMILE_DEFLATE_REFERENCES ) {
+				//	references only replace nested objects, so the top-level properties read the same
+			mapper = smileMapper;
+			parser = mapper.getFactory().createParser( new InflaterInputStream( new ByteArrayInputStream( payload, 1, payload.length - 1 ) ) );
+		}
+		else {
+			throw new IOException( "unknown payload format " + format );
+		}
+
+		try {
+				//	a typed object is written as [ "class name", { properties } ]
+			if ( parser.nextToken() != JsonToken.START_ARRAY || parser.nextToken() != JsonToken.VALUE_STRING ) {
+				return null;
+			}
+
+			String className = CompactTypeResolverBuilder.expand( parser.getText() );
+
+			if ( parser.nextToken() != JsonToken.START_OBJECT ) {
+				return null;
+			}
+
+			Map<String,Object> values = new HashMap<String,Object>( propertyTypes.size() );
+
+			while ( values.size() < propertyTypes.size() && parser.nextToken() == JsonToken.FIELD_NAME ) {
+				String name = parser.getCurrentName();
+				Class<?> type = propertyTypes.get( name );
+
+				parser.nextToken();
+
+				if ( type != null ) {
+					values.put( name, mapper.readValue( parser, type ) );
+				}
+				else {
+					parser.skipChildren();
+				}
+			}
+
+			return new PayloadProperties( className, values );
+		}
+		finally {
+				//	also closes the inflater stream
+			parser.close();
+		}
+	}
+}
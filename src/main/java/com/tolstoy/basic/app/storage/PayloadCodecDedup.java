@@ -0,0 +1,286 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+import java.security.MessageDigest;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * Deflated Smile in which every object of one of the given classes is
+ * replaced by a reference to a copy kept in an IObjectVersionStore, so an
+ * object that's the same in many records is only stored once. An object is
+ * identified by its "id" property and the first HASH_CHARS hex digits of the
+ * SHA-1 of its encoding, which only has to tell apart the versions of one
+ * object; if it changes, the new version is stored alongside the old one.
+ *
+ * The versions are saved before the payload is returned, so a stored payload
+ * never refers to a missing version. Payloads in the other formats are read
+ * as usual, but only this codec can read the payloads it writes, so only
+ * records of the given record types are written this way. Other records,
+ * such as preferences, are written as deflated Smile, which any codec reads.
+ */
+public class PayloadCodecDedup extends PayloadCodecBase {
+	private static final Logger logger = LogManager.getLogger( PayloadCodecDedup.class );
+
+	private static final String REFERENCE_PROPERTY = "~version";
+	private static final int HASH_CHARS = 16;
+
+	private IObjectVersionStore versionStore;
+	private Collection<Class<?>> recordTypes;
+	private Set<String> classNames;
+	private IPayloadCodec plainCodec;
+
+	/**
+	 * @param recordTypes the records that are written with references
+	 * @param classNames the objects within them that are stored once per version
+	 */
+	public PayloadCodecDedup( IObjectVersionStore versionStore, Collection<Class<?>> recordTypes, Collection<String> classNames ) {
+		this.versionStore = versionStore;
+		this.recordTypes = new ArrayList<Class<?>>( recordTypes );
+		this.classNames = new HashSet<String>( classNames );
+		this.plainCodec = new PayloadCodecSmile( true );
+	}
+
+	@Override
+	public byte[] encode( Object record ) throws Exception {
+		if ( !isDedupRecord( record ) ) {
+			return plainCodec.encode( record );
+		}
+
+		ObjectMapper mapper = getSmileMapper();
+
+		List<ObjectVersion> versions = new ArrayList<ObjectVersion>();
+		MessageDigest digest = DigestUtils.getSha1Digest();
+		Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+		JsonNode tree;
+
+		try {
+			tree = replaceWithReferences( mapper.valueToTree( record ), versions, digest, deflater );
+		}
+		finally {
+			deflater.end();
+		}
+
+		versionStore.saveVersions( versions );
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream( 8192 );
+		bytes.write( FORMAT_SMILE_DEFLATE_REFERENCES );
+
+		OutputStream out = new DeflaterOutputStream( bytes, new Deflater( Deflater.BEST_SPEED ) );
+		try {
+			mapper.writeValue( out, tree );
+		}
+		finally {
+			out.close();
+		}
+
+		logger.debug( "encoded " + record.getClass().getSimpleName() + " with " + versions.size() + " references" );
+
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public Object decode( byte[] payload ) throws Exception {
+		if ( payload == null || payload.length < 1 || payload[ 0 ] != FORMAT_SMILE_DEFLATE_REFERENCES ) {
+			return super.decode( payload );
+		}
+
+		ObjectMapper mapper = getSmileMapper();
+		JsonNode tree;
+
+		InputStream in = new InflaterInputStream( new ByteArrayInputStream( payload, 1, payload.length - 1 ) );
+		try {
+			tree = mapper.readTree( in );
+		}
+		finally {
+			in.close();
+		}
+
+		Map<String,ObjectVersion> references = new HashMap<String,ObjectVersion>();
+		findReferences( tree, references );
+
+		Map<String,ObjectVersion> stored = versionStore.getVersions( references.values() );
+
+			//	each version is parsed once, however many times it's referred to
+		Map<String,JsonNode> versionTrees = new HashMap<String,JsonNode>( stored.size() );
+		Inflater inflater = new Inflater();
+
+		try {
+			for ( ObjectVersion version : stored.values() ) {
+				versionTrees.put( version.getKey(), readVersion( version.getPayload(), inflater ) );
+			}
+		}
+		finally {
+			inflater.end();
+		}
+
+		return mapper.treeToValue( replaceReferences( tree, versionTrees ), Object.class );
+	}
+
+	@Override
+	public void encode( Object record, OutputStream out ) throws Exception {
+		if ( !isDedupRecord( record ) ) {
+			plainCodec.encode( record, out );
+		}
+		else {
+			super.encode( record, out );
+		}
+	}
+
+	protected boolean isDedupRecord( Object record ) {
+		for ( Class<?> recordType : recordTypes ) {
+			if ( recordType.isInstance( record ) ) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Objects are written with their class name as [ "class name", { properties } ].
+	 */
+	protected boolean isVersionedObject( JsonNode node ) {
+		return node.isArray() &&
+				node.size() == 2 &&
+				node.get( 0 ).isTextual() &&
+				node.get( 1 ).isObject() &&
+				node.get( 1 ).has( "id" ) &&
+				classNames.contains( CompactTypeResolverBuilder.expand( node.get( 0 ).asText() ) );
+	}
+
+	protected JsonNode replaceWithReferences( JsonNode node, List<ObjectVersion> versions, MessageDigest digest, Deflater deflater ) throws Exception {
+		if ( isVersionedObject( node ) ) {
+			byte[] encoded = getSmileMapper().writeValueAsBytes( node );
+			ObjectVersion version = new ObjectVersion( node.get( 1 ).get( "id" ).asLong(),
+														Hex.encodeHexString( digest.digest( encoded ) ).substring( 0, HASH_CHARS ),
+														deflate( encoded, deflater ) );
+			versions.add( version );
+
+			ObjectNode reference = getSmileMapper().createObjectNode();
+			reference.putArray( REFERENCE_PROPERTY ).add( version.getObjectID() ).add( version.getHash() );
+
+			return reference;
+		}
+
+		if ( node.isArray() ) {
+			ArrayNode array = (ArrayNode) node;
+			for ( int i = 0; i < array.size(); i++ ) {
+				array.set( i, replaceWithReferences( array.get( i ), versions, digest, deflater ) );
+			}
+		}
+		else if ( node.isObject() ) {
+			Iterator<Map.Entry<String,JsonNode>> iter = node.fields();
+			while ( iter.hasNext() ) {
+				Map.Entry<String,JsonNode> field = iter.next();
+				field.setValue( replaceWithReferences( field.getValue(), versions, digest, deflater ) );
+			}
+		}
+
+		return node;
+	}
+
+	protected void findReferences( JsonNode node, Map<String,ObjectVersion> references ) {
+		ObjectVersion reference = getReference( node );
+		if ( reference != null ) {
+			references.put( reference.getKey(), reference );
+			return;
+		}
+
+		for ( JsonNode child : node ) {
+			findReferences( child, references );
+		}
+	}
+
+	protected JsonNode replaceReferences( JsonNode node, Map<String,JsonNode> versionTrees ) throws Exception {
+		ObjectVersion reference = getReference( node );
+		if ( reference != null ) {
+			JsonNode ret = versionTrees.get( reference.getKey() );
+			if ( ret == null ) {
+				throw new IOException( "missing stored version " + reference.getKey() );
+			}
+
+			return ret;
+		}
+
+		if ( node.isArray() ) {
+			ArrayNode array = (ArrayNode) node;
+			for ( int i = 0; i < array.size(); i++ ) {
+				array.set( i, replaceReferences( array.get( i ), versionTrees ) );
+			}
+		}
+		else if ( node.isObject() ) {
+			Iterator<Map.Entry<String,JsonNode>> iter = node.fields();
+			while ( iter.hasNext() ) {
+				Map.Entry<String,JsonNode> field = iter.next();
+				field.setValue( replaceReferences( field.getValue(), versionTrees ) );
+			}
+		}
+
+		return node;
+	}
+
+	protected ObjectVersion getReference( JsonNode node ) {
+		if ( !node.isObject() || node.size() != 1 ) {
+			return null;
+		}
+
+		JsonNode value = node.get( REFERENCE_PROPERTY );
+		if ( value == null || !value.isArray() || value.size() != 2 ) {
+			return null;
+		}
+
+		return new ObjectVersion( value.get( 0 ).asLong(), value.get( 1 ).asText(), null );
+	}
+
+	protected JsonNode readVersion( byte[] payload, Inflater inflater ) throws Exception {
+		inflater.reset();
+
+			//	closing the stream doesn't end an inflater that was passed in
+		InputStream in = new InflaterInputStream( new ByteArrayInputStream( payload ), inflater );
+		try {
+			return getSmileMapper().readTree( in );
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	protected byte[] deflate( byte[] bytes, Deflater deflater ) throws IOException {
+		ByteArrayOutputStream ret = new ByteArrayOutputStream( bytes.length / 2 + 64 );
+
+		deflater.reset();
+
+		OutputStream out = new DeflaterOutputStream( ret, deflater );
+		try {
+			out.write( bytes );
+		}
+		finally {
+			out.close();
+		}
+
+		return ret.toByteArray();
+	}
+}
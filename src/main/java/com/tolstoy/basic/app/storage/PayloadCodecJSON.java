@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.io.OutputStream;
+import com.tolstoy.basic.app.utils.*;
+
+/**
+ * The original format: JSON with the full class name of every object.
+ */
+public class PayloadCodecJSON extends PayloadCodecBase {
+	public PayloadCodecJSON() {
+	}
+
+	@Override
+	public byte[] encode( Object record ) throws Exception {
+		return Utils.getDefaultObjectMapper().writeValueAsBytes( record );
+	}
+
+	@Override
+	public void encode( Object record, OutputStream out ) throws Exception {
+		Utils.writeJson( record, out );
+	}
+}
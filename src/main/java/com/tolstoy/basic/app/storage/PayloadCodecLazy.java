@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.io.OutputStream;
+import java.util.Map;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * Has lazyStorableFactory make the records it knows about, so they're decoded
+ * piecemeal as they're used, and decodes the rest with payloadCodec.
+ * Lazy records are encoded in their fully decoded form.
+ */
+public class PayloadCodecLazy implements IPayloadCodec {
+	private IPayloadCodec payloadCodec;
+	private ILazyStorableFactory lazyStorableFactory;
+
+	public PayloadCodecLazy( IPayloadCodec payloadCodec, ILazyStorableFactory lazyStorableFactory ) {
+		this.payloadCodec = payloadCodec;
+		this.lazyStorableFactory = lazyStorableFactory;
+	}
+
+	@Override
+	public byte[] encode( Object record ) throws Exception {
+		if ( record instanceof ILazyStorable ) {
+			return payloadCodec.encode( ( (ILazyStorable) record ).getDecodedStorable() );
+		}
+
+		return payloadCodec.encode( record );
+	}
+
+	@Override
+	public void encode( Object record, OutputStream out ) throws Exception {
+		if ( record instanceof ILazyStorable ) {
+			payloadCodec.encode( ( (ILazyStorable) record ).getDecodedStorable(), out );
+		}
+		else {
+			payloadCodec.encode( record, out );
+		}
+	}
+
+	@Override
+	public Object decode( byte[] payload ) throws Exception {
+		ILazyStorable ret = lazyStorableFactory.makeLazyStorable( payload, payloadCodec );
+
+		return ret != null ? ret : payloadCodec.decode( payload );
+	}
+
+	@Override
+	public PayloadProperties decodeProperties( byte[] payload, Map<String,Class<?>> propertyTypes ) throws Exception {
+		return payloadCodec.decodeProperties( payload, propertyTypes );
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * Binary JSON (Smile) with shortened class names, optionally deflated.
+ * Smile writes each repeated field name and short string once and then
+ * refers back to it, which suits the many tweets in a search run.
+ */
+public class PayloadCodecSmile extends PayloadCodecBase {
+	private boolean compress;
+
+	public PayloadCodecSmile( boolean compress ) {
+		this.compress = compress;
+	}
+
+	@Override
+	public byte[] encode( Object record ) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream( 8192 );
+		encode( record, bytes );
+
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public void encode( Object record, OutputStream out ) throws Exception {
+		out.write( compress ? FORMAT_SMILE_DEFLATE : FORMAT_SMILE );
+
+		if ( !compress ) {
+			getSmileWriter().writeValue( out, record );
+			return;
+		}
+
+		Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+		try {
+			DeflaterOutputStream deflated = new DeflaterOutputStream( out, deflater );
+			getSmileWriter().writeValue( deflated, record );
+			deflated.finish();
+		}
+		finally {
+			deflater.end();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.sql.*;
+import java.util.NoSuchElementException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * A cursor over a forward-only, read-only result set. It owns the
+ * connection, statement and result set and closes all three.
+ */
+class StorableCursorDerby implements IStorableCursor {
+	private static final Logger logger = LogManager.getLogger( StorableCursorDerby.class );
+
+	private StorageEmbeddedDerby storage;
+	private Connection connection;
+	private PreparedStatement ps;
+	private ResultSet rs;
+	private IStorable nextRecord;
+	private boolean closed;
+
+	StorableCursorDerby( StorageEmbeddedDerby storage, Connection connection, PreparedStatement ps, ResultSet rs ) {
+		this.storage = storage;
+		this.connection = connection;
+		this.ps = ps;
+		this.rs = rs;
+		this.nextRecord = null;
+		this.closed = false;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if ( nextRecord != null ) {
+			return true;
+		}
+
+		try {
+			while ( !closed && rs.next() ) {
+				nextRecord = storage.readRecord( rs );
+				if ( nextRecord != null ) {
+					return true;
+				}
+			}
+		}
+		catch ( Exception e ) {
+			close();
+			throw new RuntimeException( "cannot read next record", e );
+		}
+
+		close();
+
+		return false;
+	}
+
+	@Override
+	public IStorable next() {
+		if ( !hasNext() ) {
+			throw new NoSuchElementException();
+		}
+
+		IStorable ret = nextRecord;
+		nextRecord = null;
+
+		return ret;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() {
+		if ( closed ) {
+			return;
+		}
+
+		closed = true;
+
+		try {
+			rs.close();
+			ps.close();
+		}
+		catch ( SQLException e ) {
+			logger.error( "cannot close cursor", e );
+		}
+		finally {
+			try {
+				connection.close();
+			}
+			catch ( SQLException e ) {
+				logger.error( "cannot close connection", e );
+			}
+		}
+	}
+}
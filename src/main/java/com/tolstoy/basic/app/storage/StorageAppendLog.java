@@ -0,0 +1,366 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.io.*;
+import java.util.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * Stores each table as a log of segment files in its own subdirectory of
+ * directory, with every record's location kept in memory. Suited to storage
+ * that's mostly appended to and read back by ID or by recency.
+ *
+ * Saves are appended and forced to disk before they return. On connect the
+ * segments are read back in order, checking each record's CRC, and anything
+ * after a damaged record is cut off. Payloads are read from memory mapped
+ * segments. A background thread compacts segments that are mostly made up of
+ * superseded records.
+ *
+ * Payloads are encoded with payloadCodec, the same as StorageEmbeddedDerby.
+ * importRecords copies an existing table over, keeping the record IDs.
+ */
+public class StorageAppendLog implements IStorage {
+	private static final Logger logger = LogManager.getLogger( StorageAppendLog.class );
+
+	private static final double COMPACTION_MIN_LIVE_RATIO = 0.5;
+	private static final long COMPACTION_INTERVAL_MILLIS = 60 * 1000;
+
+	private final File directory;
+	private final List<String> tableNames;
+	private final IPayloadCodec payloadCodec;
+	private final long maxSegmentBytes;
+	private final Map<String,AppendLogTable> tables;
+	private Thread compactor;
+
+	public StorageAppendLog( File directory, List<String> tableNames, IPayloadCodec payloadCodec, long maxSegmentBytes ) {
+		this.directory = directory;
+		this.tableNames = tableNames;
+		this.payloadCodec = payloadCodec;
+			//	segments are mapped with a single buffer
+		this.maxSegmentBytes = Math.min( maxSegmentBytes, Integer.MAX_VALUE );
+		this.tables = new HashMap<String,AppendLogTable>();
+		this.compactor = null;
+	}
+
+	@Override
+	public synchronized void connect() throws Exception {
+		if ( !directory.isDirectory() && !directory.mkdirs() ) {
+			throw new IOException( "cannot create " + directory );
+		}
+
+		for ( String tableName : tableNames ) {
+			AppendLogTable table = new AppendLogTable( new File( directory, tableName ), maxSegmentBytes );
+			table.open();
+			tables.put( tableName, table );
+		}
+
+		compactor = new Thread( new Runnable() {
+			@Override
+			public void run() {
+				compactLoop();
+			}
+		}, "StorageAppendLog compactor" );
+		compactor.setDaemon( true );
+		compactor.start();
+	}
+
+	@Override
+	public void ensureTables() throws Exception {
+			//	the tables are opened, and created if need be, by connect
+	}
+
+	@Override
+	public void dropTables() throws Exception {
+		for ( String tableName : tableNames ) {
+			getTable( tableName ).deleteAll();
+			logger.info( "dropped table " + tableName );
+		}
+	}
+
+	@Override
+	public IStorable getRecordByID( IStorageTable table, long id ) throws Exception {
+		AppendLogTable logTable = getTable( table );
+		AppendLogEntry entry = logTable.getEntry( id );
+
+		return entry != null ? readRecord( logTable, entry ) : null;
+	}
+
+	@Override
+	public List<IStorable> getRecords( IStorageTable table, StorageOrdering ordering, int max ) throws Exception {
+		return readRecords( getTable( table ), getTable( table ).getEntries( null, ordering, max ) );
+	}
+
+	@Override
+	public List<IStorable> getRecords( IStorageTable table, String searchkey, StorageOrdering ordering, int max ) throws Exception {
+		return readRecords( getTable( table ), getTable( table ).getEntries( searchkey, ordering, max ) );
+	}
+
+	@Override
+	public IStorableCursor getRecordCursor( IStorageTable table, StorageOrdering ordering, int fetchSize ) throws Exception {
+		return new Cursor( getTable( table ), getTable( table ).getEntries( null, ordering, 0 ) );
+	}
+
+	@Override
+	public IStorableCursor getRecordCursor( IStorageTable table, String searchkey, StorageOrdering ordering, int fetchSize ) throws Exception {
+		return new Cursor( getTable( table ), getTable( table ).getEntries( searchkey, ordering, 0 ) );
+	}
+
+	@Override
+	public StorageRecordHeader getRecordHeaderByID( IStorageTable table, long id ) throws Exception {
+		AppendLogEntry entry = getTable( table ).getEntry( id );
+
+		return entry != null ? entry.toHeader() : null;
+	}
+
+	@Override
+	public List<StorageRecordHeader> getRecordHeaders( IStorageTable table, StorageOrdering ordering, int max ) throws Exception {
+		return toHeaders( getTable( table ).getEntries( null, ordering, max ) );
+	}
+
+	@Override
+	public List<StorageRecordHeader> getRecordHeaders( IStorageTable table, String searchkey, StorageOrdering ordering, int max ) throws Exception {
+		return toHeaders( getTable( table ).getEntries( searchkey, ordering, max ) );
+	}
+
+	@Override
+	public void saveRecord( IStorageTable table, IStorable record ) throws Exception {
+		saveRecords( table, Collections.singletonList( record ) );
+	}
+
+	@Override
+	public void saveRecord( IStorageTable table, IStorable record, IStorageWriteListener listener ) throws Exception {
+		try {
+			saveRecord( table, record );
+		}
+		catch ( Exception e ) {
+			listener.recordFailed( table, record, e );
+			throw e;
+		}
+
+		listener.recordWritten( table, record );
+	}
+
+	/**
+	 * All the records are written and forced before any of them can be read.
+	 */
+	@Override
+	public List<Long> saveRecords( IStorageTable table, List<IStorable> records ) throws Exception {
+		getTable( table ).append( records, payloadCodec, null );
+
+		if ( records.size() > 1 ) {
+			logger.info( "saved " + records.size() + " records to " + table.getTablename() );
+		}
+
+		List<Long> ret = new ArrayList<Long>( records.size() );
+		for ( IStorable record : records ) {
+			ret.add( record.getID() );
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void flush() throws Exception {
+		for ( String tableName : tableNames ) {
+			getTable( tableName ).force();
+		}
+	}
+
+	/**
+	 * Copies every record of table from source, in batches of batchSize.
+	 * Records keep the IDs and times they had in source. Returns the number
+	 * copied.
+	 */
+	public long importRecords( IStorage source, IStorageTable table, int batchSize ) throws Exception {
+		IStorableCursor cursor = null;
+		List<IStorable> batch = new ArrayList<IStorable>( batchSize );
+		long ret = 0;
+
+			//	records don't necessarily keep their own times, so take them from the headers
+		Map<Long,StorageRecordHeader> sourceHeaders = new HashMap<Long,StorageRecordHeader>();
+		for ( StorageRecordHeader header : source.getRecordHeaders( table, StorageOrdering.ASC, 0 ) ) {
+			sourceHeaders.put( header.getID(), header );
+		}
+
+		AppendLogTable logTable = getTable( table );
+
+		try {
+			cursor = source.getRecordCursor( table, StorageOrdering.ASC, batchSize );
+
+			while ( cursor.hasNext() ) {
+				batch.add( cursor.next() );
+
+				if ( batch.size() >= batchSize ) {
+					logTable.append( batch, payloadCodec, sourceHeaders );
+					ret += batch.size();
+					batch.clear();
+				}
+			}
+
+			if ( !batch.isEmpty() ) {
+				logTable.append( batch, payloadCodec, sourceHeaders );
+				ret += batch.size();
+			}
+		}
+		finally {
+			if ( cursor != null ) {
+				cursor.close();
+			}
+		}
+
+		logger.info( "imported " + ret + " records into " + table.getTablename() );
+
+		return ret;
+	}
+
+	/**
+	 * Compacts every table now rather than waiting for the background thread.
+	 * Returns the number of segments removed.
+	 */
+	public int compact() throws Exception {
+		int ret = 0;
+
+		for ( String tableName : tableNames ) {
+			ret += getTable( tableName ).compact( COMPACTION_MIN_LIVE_RATIO );
+		}
+
+		return ret;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public int getNumSegments( IStorageTable table ) {
+		return getTable( table ).getNumSegments();
+	}
+
+	protected void compactLoop() {
+		while ( true ) {
+			try {
+				Thread.sleep( COMPACTION_INTERVAL_MILLIS );
+			}
+			catch ( InterruptedException e ) {
+				return;
+			}
+
+			try {
+				compact();
+			}
+			catch ( Exception e ) {
+				logger.error( "compaction failed", e );
+			}
+		}
+	}
+
+	protected IStorable readRecord( AppendLogTable table, AppendLogEntry entry ) {
+		try {
+			IStorable record = (IStorable) payloadCodec.decode( table.readPayload( entry ) );
+
+				//	imported payloads may have been encoded before their record had an ID
+			record.setID( entry.getID() );
+
+			return record;
+		}
+		catch ( Exception e ) {
+			logger.error( "can't read record", e );
+			return null;
+		}
+	}
+
+	protected List<IStorable> readRecords( AppendLogTable table, List<AppendLogEntry> entries ) {
+		List<IStorable> ret = new ArrayList<IStorable>( entries.size() );
+
+		for ( AppendLogEntry entry : entries ) {
+			IStorable record = readRecord( table, entry );
+			if ( record != null ) {
+				ret.add( record );
+			}
+		}
+
+		return ret;
+	}
+
+	protected List<StorageRecordHeader> toHeaders( List<AppendLogEntry> entries ) {
+		List<StorageRecordHeader> ret = new ArrayList<StorageRecordHeader>( entries.size() );
+
+		for ( AppendLogEntry entry : entries ) {
+			ret.add( entry.toHeader() );
+		}
+
+		return ret;
+	}
+
+	protected AppendLogTable getTable( IStorageTable table ) {
+		return getTable( table.getTablename() );
+	}
+
+	protected synchronized AppendLogTable getTable( String tableName ) {
+		AppendLogTable ret = tables.get( tableName );
+		if ( ret == null ) {
+			throw new RuntimeException( "No such table or not connected: " + tableName );
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Reads from a copy of the index taken when it's opened, so records saved
+	 * while it's open aren't seen. Nothing needs closing.
+	 */
+	private class Cursor implements IStorableCursor {
+		private final AppendLogTable table;
+		private final Iterator<AppendLogEntry> entries;
+		private IStorable nextRecord;
+
+		Cursor( AppendLogTable table, List<AppendLogEntry> entries ) {
+			this.table = table;
+			this.entries = entries.iterator();
+			this.nextRecord = null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while ( nextRecord == null && entries.hasNext() ) {
+				nextRecord = readRecord( table, entries.next() );
+			}
+
+			return nextRecord != null;
+		}
+
+		@Override
+		public IStorable next() {
+			if ( !hasNext() ) {
+				throw new NoSuchElementException();
+			}
+
+			IStorable ret = nextRecord;
+			nextRecord = null;
+
+			return ret;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
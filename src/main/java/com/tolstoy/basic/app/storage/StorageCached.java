@@ -0,0 +1,288 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.util.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * Keeps recently read records in memory in front of another IStorage.
+ *
+ * Entries are keyed by table and ID and the cache holds at most maxEntries
+ * records. Stored payload sizes say little about the heap a decoded record
+ * takes (a compressed search run can grow tenfold), so the cap is a count.
+ * The least recently used entries are evicted first. Saving a record removes
+ * it from the cache and dropping the tables empties it. A record read from
+ * the backing storage is only cached if nothing was removed from the cache
+ * while it was being read, so a save that overlaps the read can't leave the
+ * older copy behind.
+ *
+ * A single record miss costs one read of the backing storage. List reads get
+ * the matching headers first; if every record is cached no payload is read
+ * at all. Cursors and header reads are not cached.
+ *
+ * Cached records are shared, so callers must not change a record they
+ * don't then save.
+ *
+ * The hit, miss and eviction counts are logged each time the cache is flushed.
+ */
+public class StorageCached implements IStorage {
+	private static final Logger logger = LogManager.getLogger( StorageCached.class );
+
+	private IStorage storage;
+	private int maxEntries;
+	private LinkedHashMap<String,IStorable> entries;
+	private long hits, misses, evictions;
+	private long invalidations;
+
+	public StorageCached( IStorage storage, int maxEntries ) {
+		this.storage = storage;
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String,IStorable>( 16, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<String,IStorable> eldest ) {
+				if ( size() > StorageCached.this.maxEntries ) {
+					evictions++;
+					return true;
+				}
+
+				return false;
+			}
+		};
+		this.hits = 0;
+		this.misses = 0;
+		this.evictions = 0;
+		this.invalidations = 0;
+	}
+
+	@Override
+	public void connect() throws Exception {
+		storage.connect();
+	}
+
+	@Override
+	public void ensureTables() throws Exception {
+		storage.ensureTables();
+	}
+
+	@Override
+	public void dropTables() throws Exception {
+		clear();
+		storage.dropTables();
+	}
+
+	@Override
+	public IStorable getRecordByID( IStorageTable table, long id ) throws Exception {
+		IStorable record = getCached( table, id );
+		if ( record != null ) {
+			return record;
+		}
+
+		long generation = getInvalidations();
+
+		record = storage.getRecordByID( table, id );
+		if ( record != null ) {
+			put( table, record, generation );
+		}
+
+		return record;
+	}
+
+	@Override
+	public List<IStorable> getRecords( IStorageTable table, StorageOrdering ordering, int max ) throws Exception {
+		List<StorageRecordHeader> headers = storage.getRecordHeaders( table, ordering, max );
+
+		List<IStorable> ret = getAllCached( table, headers );
+		if ( ret != null ) {
+			return ret;
+		}
+
+		long generation = getInvalidations();
+
+		return putAll( table, storage.getRecords( table, ordering, max ), generation );
+	}
+
+	@Override
+	public List<IStorable> getRecords( IStorageTable table, String searchkey, StorageOrdering ordering, int max ) throws Exception {
+		List<StorageRecordHeader> headers = storage.getRecordHeaders( table, searchkey, ordering, max );
+
+		List<IStorable> ret = getAllCached( table, headers );
+		if ( ret != null ) {
+			return ret;
+		}
+
+		long generation = getInvalidations();
+
+		return putAll( table, storage.getRecords( table, searchkey, ordering, max ), generation );
+	}
+
+	@Override
+	public IStorableCursor getRecordCursor( IStorageTable table, StorageOrdering ordering, int fetchSize ) throws Exception {
+		return storage.getRecordCursor( table, ordering, fetchSize );
+	}
+
+	@Override
+	public IStorableCursor getRecordCursor( IStorageTable table, String searchkey, StorageOrdering ordering, int fetchSize ) throws Exception {
+		return storage.getRecordCursor( table, searchkey, ordering, fetchSize );
+	}
+
+	@Override
+	public StorageRecordHeader getRecordHeaderByID( IStorageTable table, long id ) throws Exception {
+		return storage.getRecordHeaderByID( table, id );
+	}
+
+	@Override
+	public List<StorageRecordHeader> getRecordHeaders( IStorageTable table, StorageOrdering ordering, int max ) throws Exception {
+		return storage.getRecordHeaders( table, ordering, max );
+	}
+
+	@Override
+	public List<StorageRecordHeader> getRecordHeaders( IStorageTable table, String searchkey, StorageOrdering ordering, int max ) throws Exception {
+		return storage.getRecordHeaders( table, searchkey, ordering, max );
+	}
+
+	@Override
+	public void saveRecord( IStorageTable table, IStorable record ) throws Exception {
+		try {
+			storage.saveRecord( table, record );
+		}
+		finally {
+			remove( table, record.getID() );
+		}
+	}
+
+	@Override
+	public void saveRecord( IStorageTable table, IStorable record, IStorageWriteListener listener ) throws Exception {
+		try {
+			storage.saveRecord( table, record, listener );
+		}
+		finally {
+			remove( table, record.getID() );
+		}
+	}
+
+	@Override
+	public List<Long> saveRecords( IStorageTable table, List<IStorable> records ) throws Exception {
+		try {
+			return storage.saveRecords( table, records );
+		}
+		finally {
+			for ( IStorable record : records ) {
+				remove( table, record.getID() );
+			}
+		}
+	}
+
+	@Override
+	public void flush() throws Exception {
+		storage.flush();
+
+		synchronized ( this ) {
+			logger.info( "record cache: " + entries.size() + " entries, " + hits + " hits, " + misses + " misses, " + evictions + " evictions" );
+		}
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		invalidations++;
+	}
+
+	protected synchronized IStorable getCached( IStorageTable table, long id ) {
+		IStorable record = entries.get( makeKey( table, id ) );
+
+		if ( record != null ) {
+			hits++;
+			return record;
+		}
+
+		misses++;
+		logger.debug( "cache miss for " + table.getTablename() + " " + id + ": " + hits + " hits, " + misses + " misses, " + evictions + " evictions" );
+
+		return null;
+	}
+
+	/**
+	 * @return the cached records for every header, or null if any of them isn't cached
+	 */
+	protected synchronized List<IStorable> getAllCached( IStorageTable table, List<StorageRecordHeader> headers ) {
+		List<IStorable> ret = new ArrayList<IStorable>( headers.size() );
+
+		for ( StorageRecordHeader header : headers ) {
+			IStorable record = entries.get( makeKey( table, header.getID() ) );
+			if ( record == null ) {
+				misses++;
+				return null;
+			}
+
+			ret.add( record );
+		}
+
+		hits += ret.size();
+
+		return ret;
+	}
+
+	protected synchronized List<IStorable> putAll( IStorageTable table, List<IStorable> records, long generation ) {
+		for ( IStorable record : records ) {
+			if ( record != null ) {
+				put( table, record, generation );
+			}
+		}
+
+		return records;
+	}
+
+	/**
+	 * Caches a record that was read when getInvalidations returned generation,
+	 * unless something has been removed from the cache since.
+	 */
+	protected synchronized void put( IStorageTable table, IStorable record, long generation ) {
+		if ( maxEntries > 0 && generation == invalidations ) {
+			entries.put( makeKey( table, record.getID() ), record );
+		}
+	}
+
+	protected synchronized void remove( IStorageTable table, long id ) {
+		entries.remove( makeKey( table, id ) );
+		invalidations++;
+	}
+
+	protected synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	protected String makeKey( IStorageTable table, long id ) {
+		return table.getTablename() + ":" + id;
+	}
+}
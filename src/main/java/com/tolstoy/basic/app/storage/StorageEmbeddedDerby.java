@@ -13,6 +13,7 @@
  */
 package com.tolstoy.basic.app.storage;
 
+import java.io.OutputStream;
 import java.util.*;
 import java.sql.*;
 import java.time.Instant;
@@ -26,13 +27,21 @@ import com.tolstoy.basic.api.storage.*;
 public class StorageEmbeddedDerby implements IStorage {
 	private static final Logger logger = LogManager.getLogger( StorageEmbeddedDerby.class );
 
+	private static final String HEADER_COLUMNS = "id, searchkey, created, modified, LENGTH( payload ) AS payloadsize";
+
 	private BasicDataSource connectionPool;
 	private List<String> tableNames;
 	private String connectionString;
+	private IPayloadCodec payloadCodec;
 
 	public StorageEmbeddedDerby( String connectionString, List<String> tableNames ) throws Exception {
+		this( connectionString, tableNames, new PayloadCodecJSON() );
+	}
+
+	public StorageEmbeddedDerby( String connectionString, List<String> tableNames, IPayloadCodec payloadCodec ) throws Exception {
 		this.connectionString = connectionString;
 		this.tableNames = tableNames;
+		this.payloadCodec = payloadCodec;
 		this.connectionPool = null;
 	}
 
@@ -49,8 +58,19 @@ public class StorageEmbeddedDerby implements IStorage {
 
 	@Override
 	public void ensureTables() throws Exception {
-		for ( String tableName : tableNames ) {
-			createTableInternalIgnoreIfExists( tableName );
+		Connection connection = null;
+
+		try {
+			connection = getConnection();
+
+			for ( String tableName : tableNames ) {
+				makeSchemaMigrator( tableName ).migrate( connection );
+			}
+		}
+		finally {
+			if ( connection != null ) {
+				connection.close();
+			}
 		}
 	}
 
@@ -61,6 +81,25 @@ public class StorageEmbeddedDerby implements IStorage {
 		}
 	}
 
+	/**
+	 * Each table has its own schema version, so tables can be added to the
+	 * list without affecting the others.
+	 */
+	protected StorageSchemaMigrator makeSchemaMigrator( String tablename ) {
+		String definition = "CREATE TABLE " + tablename + "( " +
+							" id BIGINT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1)," +
+							" searchkey VARCHAR(255)," +
+							" created TIMESTAMP," +
+							" modified TIMESTAMP," +
+							" payload BLOB(16M)," +
+							" CONSTRAINT pk" + tablename + " PRIMARY KEY (id) )";
+
+		return new StorageSchemaMigrator( "table." + tablename )
+					.add( 1, StorageSchemaMigrator.createTable( tablename, definition ) )
+					.add( 2, StorageSchemaMigrator.createIndex( tablename, "ix" + tablename + "searchkeymodified", "searchkey, modified" ) )
+					.add( 2, StorageSchemaMigrator.createIndex( tablename, "ix" + tablename + "modified", "modified" ) );
+	}
+
 	@Override
 	public IStorable getRecordByID( IStorageTable table, long id ) throws Exception {
 		Connection connection = null;
@@ -100,7 +139,7 @@ public class StorageEmbeddedDerby implements IStorage {
 		Connection connection = null;
 		PreparedStatement ps = null;
 		ResultSet rs = null;
-		List<IStorable> ret = new ArrayList<IStorable>( max );
+		List<IStorable> ret = new ArrayList<IStorable>();
 
 		String tablename = table.getTablename();
 
@@ -138,7 +177,7 @@ public class StorageEmbeddedDerby implements IStorage {
 		Connection connection = null;
 		PreparedStatement ps = null;
 		ResultSet rs = null;
-		List<IStorable> ret = new ArrayList<IStorable>( max );
+		List<IStorable> ret = new ArrayList<IStorable>();
 
 		String tablename = table.getTablename();
 
@@ -171,51 +210,51 @@ public class StorageEmbeddedDerby implements IStorage {
 	}
 
 	@Override
-	public void saveRecord( IStorageTable table, IStorable record ) throws Exception {
-		Connection connection = null;
-		PreparedStatement ps = null;
-		ResultSet rs = null;
+	public IStorableCursor getRecordCursor( IStorageTable table, StorageOrdering ordering, int fetchSize ) throws Exception {
+		return openCursor( "SELECT * FROM " + table.getTablename() + " " + getOrdering( ordering ), null, fetchSize );
+	}
 
-		String tablename = table.getTablename();
-		String query;
+	@Override
+	public IStorableCursor getRecordCursor( IStorageTable table, String searchkey, StorageOrdering ordering, int fetchSize ) throws Exception {
+		return openCursor( "SELECT * FROM " + table.getTablename() + " WHERE searchkey= ? " + getOrdering( ordering ), searchkey, fetchSize );
+	}
 
-		try {
-			String json = Utils.getDefaultObjectMapper().writeValueAsString( record );
+	@Override
+	public StorageRecordHeader getRecordHeaderByID( IStorageTable table, long id ) throws Exception {
+		List<StorageRecordHeader> list = queryRecordHeaders( "SELECT " + HEADER_COLUMNS + " FROM " + table.getTablename() + " WHERE id=?", id, 1 );
 
-			connection = getConnection();
-			Blob blob = connection.createBlob();
-			blob.setBytes( 1, json.getBytes() );
+		return list.isEmpty() ? null : list.get( 0 );
+	}
 
-			if ( record.getID() == 0 ) {
-				query = "INSERT INTO " + tablename + "( searchkey, created, modified, payload ) VALUES( ?, ?, ?, ? )";
-				ps = connection.prepareStatement( query, Statement.RETURN_GENERATED_KEYS );
+	@Override
+	public List<StorageRecordHeader> getRecordHeaders( IStorageTable table, StorageOrdering ordering, int max ) throws Exception {
+		return queryRecordHeaders( "SELECT " + HEADER_COLUMNS + " FROM " + table.getTablename() + " " + getOrdering( ordering ), null, max );
+	}
 
-				ps.setString( 1, record.getSearchKey() );
-				ps.setObject( 2, instantToTimestamp( record.getCreateTime() ) );
-				ps.setObject( 3, instantToTimestamp( record.getModifyTime() ) );
-				ps.setBlob( 4, blob );
-				logger.info( "about to insert to " + tablename );
+	@Override
+	public List<StorageRecordHeader> getRecordHeaders( IStorageTable table, String searchkey, StorageOrdering ordering, int max ) throws Exception {
+		return queryRecordHeaders( "SELECT " + HEADER_COLUMNS + " FROM " + table.getTablename() + " WHERE searchkey= ? " + getOrdering( ordering ), searchkey, max );
+	}
 
-				ps.executeUpdate();
+	protected List<StorageRecordHeader> queryRecordHeaders( String query, Object param, int max ) throws Exception {
+		Connection connection = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		List<StorageRecordHeader> ret = new ArrayList<StorageRecordHeader>();
 
-				rs = ps.getGeneratedKeys();
+		try {
+			connection = getConnection();
+			ps = connection.prepareStatement( query );
 
-				if ( rs.next() ) {
-					record.setID( rs.getLong( 1 ) );
-				}
+			if ( param != null ) {
+				ps.setObject( 1, param );
 			}
-			else {
-				query = "UPDATE " + tablename + " SET searchkey = ?, created = ?, modified = ?, payload = ? WHERE id = ?";
-				ps = connection.prepareStatement( query );
 
-				ps.setString( 1, record.getSearchKey() );
-				ps.setObject( 2, instantToTimestamp( record.getCreateTime() ) );
-				ps.setObject( 3, instantToTimestamp( record.getModifyTime() ) );
-				ps.setBlob( 4, blob );
-				ps.setLong( 5, record.getID() );
-				logger.info( "about to update " + record.getID() + " in " + tablename );
+			ps.setMaxRows( max );
+			rs = ps.executeQuery();
 
-				ps.executeUpdate();
+			while ( rs.next() ) {
+				ret.add( readRecordHeader( rs ) );
 			}
 		}
 		finally {
@@ -229,52 +268,234 @@ public class StorageEmbeddedDerby implements IStorage {
 				connection.close();
 			}
 		}
+
+		return ret;
 	}
 
-	protected IStorable readRecord( ResultSet rs ) throws Exception {
-		byte[] bytes = rs.getBytes( "payload" );
+	protected StorageRecordHeader readRecordHeader( ResultSet rs ) throws Exception {
+		Timestamp created = rs.getTimestamp( "created" );
+		Timestamp modified = rs.getTimestamp( "modified" );
+
+		return new StorageRecordHeader( rs.getLong( "id" ),
+										rs.getString( "searchkey" ),
+										created != null ? created.toInstant() : null,
+										modified != null ? modified.toInstant() : null,
+										rs.getLong( "payloadsize" ) );
+	}
+
+	protected IStorableCursor openCursor( String query, String searchkey, int fetchSize ) throws Exception {
+		Connection connection = null;
+		PreparedStatement ps = null;
+
 		try {
-			return (IStorable) Utils.getDefaultObjectMapper().readValue( new String( bytes ), Object.class );
+			connection = getConnection();
+			ps = connection.prepareStatement( query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY );
+
+			if ( searchkey != null ) {
+				ps.setString( 1, searchkey );
+			}
+
+			if ( fetchSize > 0 ) {
+				ps.setFetchSize( fetchSize );
+			}
+
+			return new StorableCursorDerby( this, connection, ps, ps.executeQuery() );
 		}
 		catch ( Exception e ) {
-			logger.error( "can't read record", e );
-			//logger.info( "bytes=" + new String( bytes ) );
-			return null;
+			if ( ps != null ) {
+				ps.close();
+			}
+			if ( connection != null ) {
+				connection.close();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public void saveRecord( IStorageTable table, IStorable record ) throws Exception {
+		saveRecords( table, Collections.singletonList( record ) );
+	}
+
+	@Override
+	public void saveRecord( IStorageTable table, IStorable record, IStorageWriteListener listener ) throws Exception {
+		try {
+			saveRecord( table, record );
+		}
+		catch ( Exception e ) {
+			listener.recordFailed( table, record, e );
+			throw e;
 		}
+
+		listener.recordWritten( table, record );
 	}
 
-	protected void createTableInternalIgnoreIfExists( String tablename ) throws Exception {
+	@Override
+	public void flush() throws Exception {
+	}
+
+	/**
+	 * The updates are sent with one executeBatch. The inserts reuse one
+	 * prepared statement but are executed one at a time, because Derby only
+	 * returns the generated key of the last row of a batch. Each payload is
+	 * encoded straight into a Blob rather than into a byte array first.
+	 */
+	@Override
+	public List<Long> saveRecords( IStorageTable table, List<IStorable> records ) throws Exception {
 		Connection connection = null;
-		Statement stmt = null;
+		PreparedStatement insertPS = null, updatePS = null;
+		ResultSet rs = null;
+		List<IStorable> inserted = new ArrayList<IStorable>();
+		List<Blob> payloads = new ArrayList<Blob>();
+		boolean committed = false;
 
-		String definition = "CREATE TABLE " + tablename + "( " +
-							" id BIGINT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1)," +
-							" searchkey VARCHAR(255)," +
-							" created TIMESTAMP," +
-							" modified TIMESTAMP," +
-							" payload BLOB(16M)," +
-							" CONSTRAINT pk" + tablename + " PRIMARY KEY (id) )";
+		String tablename = table.getTablename();
 
 		try {
 			connection = getConnection();
-			stmt = connection.createStatement();
-			stmt.executeUpdate( definition );
-			logger.info( "created table " + tablename );
-		}
-		catch ( SQLException e ) {
-			String s = e.toString();
-			if ( s.indexOf( "exists" ) < 0 ) {
-				logger.error( "while creating table " + tablename, e );
-				throw e;
+			connection.setAutoCommit( false );
+
+			int numUpdates = 0;
+
+			for ( IStorable record : records ) {
+				Blob payload = connection.createBlob();
+				payloads.add( payload );
+
+				OutputStream out = payload.setBinaryStream( 1 );
+				try {
+					payloadCodec.encode( record, out );
+				}
+				finally {
+					out.close();
+				}
+
+				if ( record.getID() == 0 ) {
+					if ( insertPS == null ) {
+						insertPS = connection.prepareStatement( "INSERT INTO " + tablename + "( searchkey, created, modified, payload ) VALUES( ?, ?, ?, ? )",
+																Statement.RETURN_GENERATED_KEYS );
+					}
+
+					setRecordParameters( insertPS, record, payload );
+					logger.debug( "about to insert to " + tablename );
+
+					insertPS.executeUpdate();
+
+					rs = insertPS.getGeneratedKeys();
+					if ( !rs.next() ) {
+						throw new SQLException( "no generated key after inserting to " + tablename );
+					}
+					record.setID( rs.getLong( 1 ) );
+					inserted.add( record );
+					rs.close();
+					rs = null;
+				}
+				else {
+					if ( updatePS == null ) {
+						updatePS = connection.prepareStatement( "UPDATE " + tablename + " SET searchkey = ?, created = ?, modified = ?, payload = ? WHERE id = ?" );
+					}
+
+					setRecordParameters( updatePS, record, payload );
+					updatePS.setLong( 5, record.getID() );
+					logger.debug( "about to update " + record.getID() + " in " + tablename );
+
+					updatePS.addBatch();
+					numUpdates++;
+				}
+			}
+
+			if ( updatePS != null ) {
+				updatePS.executeBatch();
+			}
+
+			connection.commit();
+			committed = true;
+
+			if ( records.size() > 1 ) {
+				logger.info( "saved " + records.size() + " records to " + tablename + ": " + inserted.size() + " inserted, " + numUpdates + " updated" );
 			}
 		}
 		finally {
-			if ( stmt != null ) {
-				stmt.close();
+			if ( !committed ) {
+					//	the inserts were rolled back, so the IDs they were given are no longer valid
+				for ( IStorable record : inserted ) {
+					record.setID( 0 );
+				}
 			}
-			if ( connection != null ) {
+			try {
+				if ( rs != null ) {
+					rs.close();
+				}
+				for ( Blob payload : payloads ) {
+					payload.free();
+				}
+				if ( insertPS != null ) {
+					insertPS.close();
+				}
+				if ( updatePS != null ) {
+					updatePS.close();
+				}
+			}
+			finally {
+				if ( connection != null ) {
+					closeTransaction( connection, committed );
+				}
+			}
+		}
+
+		List<Long> ret = new ArrayList<Long>( records.size() );
+		for ( IStorable record : records ) {
+			ret.add( record.getID() );
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Rolls back if needed and closes the connection. A failed rollback is
+	 * only logged, so that it doesn't hide the exception that caused it, and
+	 * the connection is closed either way.
+	 */
+	protected void closeTransaction( Connection connection, boolean committed ) {
+		try {
+			if ( !committed ) {
+				connection.rollback();
+			}
+			connection.setAutoCommit( true );
+		}
+		catch ( Exception e ) {
+			logger.error( "cannot end transaction", e );
+		}
+		finally {
+			try {
 				connection.close();
 			}
+			catch ( Exception e ) {
+				logger.error( "cannot close connection", e );
+			}
+		}
+	}
+
+	protected void setRecordParameters( PreparedStatement ps, IStorable record, Blob payload ) throws Exception {
+		ps.setString( 1, record.getSearchKey() );
+		ps.setObject( 2, instantToTimestamp( record.getCreateTime() ) );
+		ps.setObject( 3, instantToTimestamp( record.getModifyTime() ) );
+		ps.setBlob( 4, payload );
+	}
+
+	protected IStorable readRecord( ResultSet rs ) throws Exception {
+		byte[] bytes = rs.getBytes( "payload" );
+		try {
+			IStorable record = (IStorable) payloadCodec.decode( bytes );
+
+				//	the payload of an inserted record was written before its ID was known
+			record.setID( rs.getLong( "id" ) );
+
+			return record;
+		}
+		catch ( Exception e ) {
+			logger.error( "can't read record", e );
+			//logger.info( "bytes=" + new String( bytes ) );
+			return null;
 		}
 	}
 
@@ -287,6 +508,8 @@ public class StorageEmbeddedDerby implements IStorage {
 			stmt = connection.createStatement();
 			stmt.executeUpdate( "DROP TABLE " + tablename );
 			logger.info( "dropped table " + tablename );
+
+			makeSchemaMigrator( tablename ).reset( connection );
 		}
 		catch ( SQLException e ) {
 			logger.error( "could not drop table " + tablename, e );
@@ -296,6 +519,9 @@ public class StorageEmbeddedDerby implements IStorage {
 			if ( stmt != null ) {
 				stmt.close();
 			}
+			if ( connection != null ) {
+				connection.close();
+			}
 		}
 	}
 
@@ -311,7 +537,7 @@ public class StorageEmbeddedDerby implements IStorage {
 		}
 	}
 
-	protected Connection getConnection() throws Exception {
+	public Connection getConnection() throws Exception {
 		if ( connectionPool == null ) {
 			throw new RuntimeException( "Not connected to the database" );
 		}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.util.*;
+import java.sql.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * Brings a named schema up to date by running the migrations numbered higher
+ * than the version recorded for it in the schemaversion table. Each version's
+ * migrations run in one transaction along with the update of the version.
+ *
+ * Migrations must never be changed once released; add a new version instead.
+ * The create methods check the database metadata first, so they can be used
+ * for tables and indexes that might already exist in older databases.
+ */
+public class StorageSchemaMigrator {
+	private static final Logger logger = LogManager.getLogger( StorageSchemaMigrator.class );
+
+	private static final String VERSION_TABLE = "schemaversion";
+
+	private String schemaName;
+	private SortedMap<Integer,List<IStorageSchemaMigration>> migrations;
+
+	public StorageSchemaMigrator( String schemaName ) {
+		this.schemaName = schemaName;
+		this.migrations = new TreeMap<Integer,List<IStorageSchemaMigration>>();
+	}
+
+	public StorageSchemaMigrator add( int version, IStorageSchemaMigration migration ) {
+		if ( version < 1 ) {
+			throw new IllegalArgumentException( "schema versions start at 1" );
+		}
+
+		List<IStorageSchemaMigration> list = migrations.get( version );
+		if ( list == null ) {
+			list = new ArrayList<IStorageSchemaMigration>();
+			migrations.put( version, list );
+		}
+
+		list.add( migration );
+
+		return this;
+	}
+
+	/**
+	 * @return the schema version after migrating
+	 */
+	public int migrate( Connection connection ) throws Exception {
+		ensureVersionTable( connection );
+
+		int currentVersion = getVersion( connection );
+
+		for ( Map.Entry<Integer,List<IStorageSchemaMigration>> entry : migrations.tailMap( currentVersion + 1 ).entrySet() ) {
+			int version = entry.getKey();
+			boolean committed = false;
+
+			connection.setAutoCommit( false );
+
+			try {
+				for ( IStorageSchemaMigration migration : entry.getValue() ) {
+					migration.apply( connection );
+				}
+
+				setVersion( connection, version );
+
+				connection.commit();
+				committed = true;
+			}
+			finally {
+				if ( !committed ) {
+					logger.error( "migrating " + schemaName + " to version " + version + " failed" );
+					connection.rollback();
+				}
+				connection.setAutoCommit( true );
+			}
+
+			logger.info( "migrated " + schemaName + " from version " + currentVersion + " to " + version );
+			currentVersion = version;
+		}
+
+		return currentVersion;
+	}
+
+	/**
+	 * Forgets the schema's version, for instance after its tables have been dropped.
+	 */
+	public void reset( Connection connection ) throws Exception {
+		ensureVersionTable( connection );
+
+		PreparedStatement ps = connection.prepareStatement( "DELETE FROM " + VERSION_TABLE + " WHERE schemaname = ?" );
+		try {
+			ps.setString( 1, schemaName );
+			ps.executeUpdate();
+		}
+		finally {
+			ps.close();
+		}
+	}
+
+	public int getVersion( Connection connection ) throws Exception {
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		try {
+			ps = connection.prepareStatement( "SELECT version FROM " + VERSION_TABLE + " WHERE schemaname = ?" );
+			ps.setString( 1, schemaName );
+			rs = ps.executeQuery();
+
+			return rs.next() ? rs.getInt( 1 ) : 0;
+		}
+		finally {
+			if ( rs != null ) {
+				rs.close();
+			}
+			if ( ps != null ) {
+				ps.close();
+			}
+		}
+	}
+
+	protected void setVersion( Connection connection, int version ) throws Exception {
+		Timestamp now = new Timestamp( System.currentTimeMillis() );
+
+		PreparedStatement ps = connection.prepareStatement( "UPDATE " + VERSION_TABLE + " SET version = ?, modified = ? WHERE schemaname = ?" );
+		try {
+			ps.setInt( 1, version );
+			ps.setTimestamp( 2, now );
+			ps.setString( 3, schemaName );
+			if ( ps.executeUpdate() > 0 ) {
+				return;
+			}
+		}
+		finally {
+			ps.close();
+		}
+
+		ps = connection.prepareStatement( "INSERT INTO " + VERSION_TABLE + "( schemaname, version, modified ) VALUES( ?, ?, ? )" );
+		try {
+			ps.setString( 1, schemaName );
+			ps.setInt( 2, version );
+			ps.setTimestamp( 3, now );
+			ps.executeUpdate();
+		}
+		finally {
+			ps.close();
+		}
+	}
+
+	protected void ensureVersionTable( Connection connection ) throws Exception {
+		if ( !tableExists( connection, VERSION_TABLE ) ) {
+			execute( connection, "CREATE TABLE " + VERSION_TABLE + "( schemaname VARCHAR(128) NOT NULL, version INT NOT NULL, modified TIMESTAMP," +
+									" CONSTRAINT pk" + VERSION_TABLE + " PRIMARY KEY (schemaname) )" );
+		}
+	}
+
+	/**
+	 * @param definition the full CREATE TABLE statement, which is only run if the table doesn't exist
+	 */
+	public static IStorageSchemaMigration createTable( final String tablename, final String definition ) {
+		return new IStorageSchemaMigration() {
+			@Override
+			public void apply( Connection connection ) throws Exception {
+				if ( !tableExists( connection, tablename ) ) {
+					execute( connection, definition );
+				}
+			}
+		};
+	}
+
+	/**
+	 * @param columns a comma separated list of columns
+	 */
+	public static IStorageSchemaMigration createIndex( final String tablename, final String indexname, final String columns ) {
+		return new IStorageSchemaMigration() {
+			@Override
+			public void apply( Connection connection ) throws Exception {
+				if ( !indexExists( connection, tablename, indexname ) ) {
+					execute( connection, "CREATE INDEX " + indexname + " ON " + tablename + "( " + columns + " )" );
+				}
+			}
+		};
+	}
+
+	/**
+	 * @param definition the column definition, such as "numreplies INT DEFAULT 0"
+	 */
+	public static IStorageSchemaMigration addColumn( final String tablename, final String columnname, final String definition ) {
+		return new IStorageSchemaMigration() {
+			@Override
+			public void apply( Connection connection ) throws Exception {
+				if ( !columnExists( connection, tablename, columnname ) ) {
+					execute( connection, "ALTER TABLE " + tablename + " ADD COLUMN " + definition );
+				}
+			}
+		};
+	}
+
+	public static boolean tableExists( Connection connection, String tablename ) throws Exception {
+		ResultSet rs = connection.getMetaData().getTables( null, connection.getSchema(), tablename.toUpperCase(), new String[] { "TABLE" } );
+		try {
+			return rs.next();
+		}
+		finally {
+			rs.close();
+		}
+	}
+
+	public static boolean indexExists( Connection connection, String tablename, String indexname ) throws Exception {
+		ResultSet rs = connection.getMetaData().getIndexInfo( null, connection.getSchema(), tablename.toUpperCase(), false, true );
+		try {
+			while ( rs.next() ) {
+				if ( indexname.equalsIgnoreCase( rs.getString( "INDEX_NAME" ) ) ) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+		finally {
+			rs.close();
+		}
+	}
+
+	public static boolean columnExists( Connection connection, String tablename, String columnname ) throws Exception {
+		ResultSet rs = connection.getMetaData().getColumns( null, connection.getSchema(), tablename.toUpperCase(), columnname.toUpperCase() );
+		try {
+			return rs.next();
+		}
+		finally {
+			rs.close();
+		}
+	}
+
+	protected static void execute( Connection connection, String statement ) throws Exception {
+		Statement stmt = connection.createStatement();
+		try {
+			stmt.executeUpdate( statement );
+			logger.info( "executed " + statement );
+		}
+		finally {
+			stmt.close();
+		}
+	}
+}
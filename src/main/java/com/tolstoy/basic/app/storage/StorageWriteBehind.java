@@ -0,0 +1,421 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.storage;
+
+import java.util.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * Saves records on a background thread in front of another IStorage.
+ *
+ * saveRecord only queues the record and returns; when the queue holds
+ * maxQueued records it blocks until the writer catches up. Saving a record
+ * that is still queued replaces the queued copy instead of writing twice. A
+ * record is the same if it's the same object, or has the same table and
+ * non-zero ID. The writer takes consecutive records for the same table and
+ * writes them with saveRecords.
+ *
+ * Records are serialized when they're written, not when they're queued, so
+ * callers must not change a record after saving it unless they save it again.
+ * Records that are changed in place after they're saved, such as preferences,
+ * belong in the tables passed as directTables: those are written on the
+ * calling thread, after the queue has been flushed. New records get their ID
+ * when they're written; call flush first if the ID is needed.
+ *
+ * getRecordByID returns the queued record if there is one. Every other read
+ * flushes first.
+ *
+ * Listeners are called on the writer thread. A failed write is also reported
+ * by the next flush, so callers that don't pass a listener still see it. If
+ * the writer thread stops, flush and saveRecord fail instead of waiting.
+ */
+public class StorageWriteBehind implements IStorage {
+	private static final Logger logger = LogManager.getLogger( StorageWriteBehind.class );
+
+	private static final int MAX_WRITES_PER_BATCH = 50;
+
+	private final IStorage storage;
+	private final int maxQueued;
+	private final Set<String> directTableNames;
+	private final LinkedList<PendingWrite> queued;
+	private final List<PendingWrite> writing;
+	private final Object lock;
+	private Thread writer;
+	private boolean writerStopped;
+	private Throwable unreportedFailure;
+	private int numUnreported;
+	private long numWritten, numFailed, numCoalesced;
+
+	private static class PendingWrite {
+		private IStorageTable table;
+		private IStorable record;
+		private List<IStorageWriteListener> listeners;
+
+		PendingWrite( IStorageTable table, IStorable record ) {
+			this.table = table;
+			this.record = record;
+			this.listeners = new ArrayList<IStorageWriteListener>( 1 );
+		}
+
+		boolean isSameRecord( IStorageTable otherTable, IStorable otherRecord ) {
+			if ( !table.getTablename().equals( otherTable.getTablename() ) ) {
+				return false;
+			}
+
+			return record == otherRecord || ( otherRecord.getID() != 0 && otherRecord.getID() == record.getID() );
+		}
+
+		boolean isSameRecord( IStorageTable otherTable, long otherID ) {
+			return otherID != 0 && otherID == record.getID() && table.getTablename().equals( otherTable.getTablename() );
+		}
+	}
+
+	public StorageWriteBehind( IStorage storage, int maxQueued ) {
+		this( storage, maxQueued, Collections.<IStorageTable>emptyList() );
+	}
+
+	public StorageWriteBehind( IStorage storage, int maxQueued, Collection<? extends IStorageTable> directTables ) {
+		this.storage = storage;
+		this.maxQueued = Math.max( maxQueued, 1 );
+		this.directTableNames = new HashSet<String>();
+		for ( IStorageTable table : directTables ) {
+			this.directTableNames.add( table.getTablename() );
+		}
+		this.queued = new LinkedList<PendingWrite>();
+		this.writing = new ArrayList<PendingWrite>( MAX_WRITES_PER_BATCH );
+		this.lock = new Object();
+		this.writer = null;
+		this.writerStopped = false;
+		this.unreportedFailure = null;
+		this.numUnreported = 0;
+		this.numWritten = 0;
+		this.numFailed = 0;
+		this.numCoalesced = 0;
+	}
+
+	@Override
+	public void connect() throws Exception {
+		storage.connect();
+
+		synchronized ( lock ) {
+			if ( writer == null ) {
+				writer = new Thread( new Runnable() {
+					@Override
+					public void run() {
+						try {
+							writeLoop();
+						}
+						catch ( Throwable t ) {
+							logger.error( "storage writer stopped", t );
+							synchronized ( lock ) {
+								if ( unreportedFailure == null ) {
+									unreportedFailure = t;
+								}
+							}
+						}
+						finally {
+							synchronized ( lock ) {
+								writerStopped = true;
+								lock.notifyAll();
+							}
+						}
+					}
+				}, "StorageWriteBehind" );
+				writer.setDaemon( true );
+				writer.start();
+			}
+		}
+	}
+
+	@Override
+	public void ensureTables() throws Exception {
+		storage.ensureTables();
+	}
+
+	@Override
+	public void dropTables() throws Exception {
+		flush();
+		storage.dropTables();
+	}
+
+	@Override
+	public IStorable getRecordByID( IStorageTable table, long id ) throws Exception {
+		synchronized ( lock ) {
+			for ( PendingWrite write : queued ) {
+				if ( write.isSameRecord( table, id ) ) {
+					return write.record;
+				}
+			}
+
+			for ( PendingWrite write : writing ) {
+				if ( write.isSameRecord( table, id ) ) {
+					return write.record;
+				}
+			}
+		}
+
+		return storage.getRecordByID( table, id );
+	}
+
+	@Override
+	public List<IStorable> getRecords( IStorageTable table, StorageOrdering ordering, int max ) throws Exception {
+		flush();
+		return storage.getRecords( table, ordering, max );
+	}
+
+	@Override
+	public List<IStorable> getRecords( IStorageTable table, String searchkey, StorageOrdering ordering, int max ) throws Exception {
+		flush();
+		return storage.getRecords( table, searchkey, ordering, max );
+	}
+
+	@Override
+	public IStorableCursor getRecordCursor( IStorageTable table, StorageOrdering ordering, int fetchSize ) throws Exception {
+		flush();
+		return storage.getRecordCursor( table, ordering, fetchSize );
+	}
+
+	@Override
+	public IStorableCursor getRecordCursor( IStorageTable table, String searchkey, StorageOrdering ordering, int fetchSize ) throws Exception {
+		flush();
+		return storage.getRecordCursor( table, searchkey, ordering, fetchSize );
+	}
+
+	@Override
+	public StorageRecordHeader getRecordHeaderByID( IStorageTable table, long id ) throws Exception {
+		flush();
+		return storage.getRecordHeaderByID( table, id );
+	}
+
+	@Override
+	public List<StorageRecordHeader> getRecordHeaders( IStorageTable table, StorageOrdering ordering, int max ) throws Exception {
+		flush();
+		return storage.getRecordHeaders( table, ordering, max );
+	}
+
+	@Override
+	public List<StorageRecordHeader> getRecordHeaders( IStorageTable table, String searchkey, StorageOrdering ordering, int max ) throws Exception {
+		flush();
+		return storage.getRecordHeaders( table, searchkey, ordering, max );
+	}
+
+	@Override
+	public void saveRecord( IStorageTable table, IStorable record ) throws Exception {
+		if ( directTableNames.contains( table.getTablename() ) ) {
+			flush();
+			storage.saveRecord( table, record );
+			return;
+		}
+
+		enqueue( table, record, null );
+	}
+
+	@Override
+	public void saveRecord( IStorageTable table, IStorable record, IStorageWriteListener listener ) throws Exception {
+		if ( directTableNames.contains( table.getTablename() ) ) {
+			flush();
+			storage.saveRecord( table, record, listener );
+			return;
+		}
+
+		enqueue( table, record, listener );
+	}
+
+	@Override
+	public List<Long> saveRecords( IStorageTable table, List<IStorable> records ) throws Exception {
+		flush();
+		return storage.saveRecords( table, records );
+	}
+
+	/**
+	 * Waits until every queued record has been written, then throws if any
+	 * write failed since the last flush. Throws without waiting if the writer
+	 * thread has stopped.
+	 */
+	@Override
+	public void flush() throws Exception {
+		synchronized ( lock ) {
+			if ( writer == null ) {
+				return;
+			}
+
+			if ( Thread.currentThread() == writer ) {
+				throw new IllegalStateException( "flush called from the storage writer thread" );
+			}
+
+			while ( !queued.isEmpty() || !writing.isEmpty() ) {
+				checkWriterRunning();
+				lock.wait();
+			}
+
+			if ( unreportedFailure != null ) {
+				Throwable failure = unreportedFailure;
+				int numRecords = numUnreported;
+
+				unreportedFailure = null;
+				numUnreported = 0;
+
+				throw new Exception( "failed to write " + numRecords + " records in the background", failure );
+			}
+		}
+	}
+
+	public long getNumWritten() {
+		synchronized ( lock ) {
+			return numWritten;
+		}
+	}
+
+	public long getNumFailed() {
+		synchronized ( lock ) {
+			return numFailed;
+		}
+	}
+
+	public long getNumCoalesced() {
+		synchronized ( lock ) {
+			return numCoalesced;
+		}
+	}
+
+	protected void enqueue( IStorageTable table, IStorable record, IStorageWriteListener listener ) throws Exception {
+		synchronized ( lock ) {
+			if ( writer == null ) {
+				throw new IllegalStateException( "not connected" );
+			}
+
+			while ( true ) {
+				checkWriterRunning();
+
+				for ( PendingWrite write : queued ) {
+					if ( write.isSameRecord( table, record ) ) {
+						write.record = record;
+						if ( listener != null ) {
+							write.listeners.add( listener );
+						}
+						numCoalesced++;
+						return;
+					}
+				}
+
+				if ( queued.size() < maxQueued ) {
+					break;
+				}
+
+				lock.wait();
+			}
+
+			PendingWrite write = new PendingWrite( table, record );
+			if ( listener != null ) {
+				write.listeners.add( listener );
+			}
+
+			queued.add( write );
+
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Must be called with the lock held.
+	 */
+	protected void checkWriterRunning() {
+		if ( writerStopped ) {
+			throw new IllegalStateException( "the storage writer thread has stopped", unreportedFailure );
+		}
+	}
+
+	protected void writeLoop() {
+		while ( true ) {
+			IStorageTable table;
+			List<IStorable> records;
+
+			synchronized ( lock ) {
+				while ( queued.isEmpty() ) {
+					try {
+						lock.wait();
+					}
+					catch ( InterruptedException e ) {
+						logger.info( "storage writer interrupted" );
+						return;
+					}
+				}
+
+				//	take the first record plus whatever follows it for the same table
+				table = queued.getFirst().table;
+				records = new ArrayList<IStorable>( Math.min( queued.size(), MAX_WRITES_PER_BATCH ) );
+
+				while ( !queued.isEmpty() && writing.size() < MAX_WRITES_PER_BATCH &&
+						queued.getFirst().table.getTablename().equals( table.getTablename() ) ) {
+					PendingWrite write = queued.removeFirst();
+					writing.add( write );
+					records.add( write.record );
+				}
+
+				//	there's room in the queue again
+				lock.notifyAll();
+			}
+
+			Exception failure = null;
+			try {
+				storage.saveRecords( table, records );
+			}
+			catch ( Throwable t ) {
+				logger.error( "failed to write " + records.size() + " records to " + table.getTablename(), t );
+				failure = t instanceof Exception ? (Exception) t : new Exception( t );
+			}
+
+			try {
+				List<PendingWrite> done;
+				synchronized ( lock ) {
+					done = new ArrayList<PendingWrite>( writing );
+					if ( failure == null ) {
+						numWritten += done.size();
+					}
+					else {
+						numFailed += done.size();
+						numUnreported += done.size();
+						if ( unreportedFailure == null ) {
+							unreportedFailure = failure;
+						}
+					}
+				}
+
+				for ( PendingWrite write : done ) {
+					for ( IStorageWriteListener listener : write.listeners ) {
+						try {
+							if ( failure == null ) {
+								listener.recordWritten( write.table, write.record );
+							}
+							else {
+								listener.recordFailed( write.table, write.record, failure );
+							}
+						}
+						catch ( Throwable t ) {
+							logger.error( "storage write listener failed", t );
+						}
+					}
+				}
+			}
+			finally {
+				synchronized ( lock ) {
+					writing.clear();
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+}
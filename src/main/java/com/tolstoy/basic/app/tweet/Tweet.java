@@ -51,6 +51,41 @@ class Tweet implements ITweet {
 	@JsonProperty
 	private long id;
 
+				//	numeric attributes used in sorts and rankings, parsed from the
+				//	attributes on first use and dropped whenever an attribute changes
+	@JsonIgnore
+	private static final String[] PARSED_KEYS = { "time", "replycount", "retweetcount", "favoritecount" };
+
+	@JsonIgnore
+	private static final int PARSED_TIME = 0;
+
+	@JsonIgnore
+	private static final int PARSED_REPLYCOUNT = 1;
+
+	@JsonIgnore
+	private static final int PARSED_RETWEETCOUNT = 2;
+
+	@JsonIgnore
+	private static final int PARSED_FAVORITECOUNT = 3;
+
+	@JsonIgnore
+	private transient int[] parsed;
+
+				//	derived from the attributes and user on first use; sanitizedText
+				//	and escapedText are only dropped when tweettext changes, the
+				//	others whenever anything does
+	@JsonIgnore
+	private transient String sanitizedText;
+
+	@JsonIgnore
+	private transient String escapedText;
+
+	@JsonIgnore
+	private transient String summary;
+
+	@JsonIgnore
+	private transient Map<String,String> basicMap;
+
 	Tweet() {
 		this.id = 0;
 		this.attributes = new HashMap<String,String>();
@@ -75,11 +110,51 @@ class Tweet implements ITweet {
 	@Override
 	public void setID( long id ) {
 		this.id = id;
+		summary = null;
+		basicMap = null;
+	}
+
+	@JsonIgnore
+	@Override
+	public String getSanitizedText() {
+		String ret = sanitizedText;
+
+		if ( ret == null ) {
+			ret = Utils.removeNewlines( Utils.trimDefault( Utils.removeAllEmojis( getAttribute( "tweettext" ) ) ) );
+			sanitizedText = ret;
+		}
+
+		return ret;
+	}
+
+				//	the same as escaping before trimming and removing newlines,
+				//	since escapeHtml4 doesn't change whitespace
+	private String getEscapedText() {
+		String ret = escapedText;
+
+		if ( ret == null ) {
+			ret = StringEscapeUtils.escapeHtml4( getSanitizedText() );
+			escapedText = ret;
+		}
+
+		return ret;
 	}
 
+				//	a copy, so callers can't change the cached map
 	@JsonIgnore
 	@Override
 	public Map<String,String> getAsMapBasic() {
+		Map<String,String> ret = basicMap;
+
+		if ( ret == null ) {
+			ret = makeMapBasic();
+			basicMap = ret;
+		}
+
+		return new HashMap<String,String>( ret );
+	}
+
+	private Map<String,String> makeMapBasic() {
 		Map<String,String> ret = new HashMap<String,String>();
 
 		ret.put( "time", Utils.trimDefault( getAttribute( "time" ), "0" ) );
@@ -90,7 +165,7 @@ class Tweet implements ITweet {
 		ret.put( "retweetcount", Utils.trimDefault( getAttribute( "retweetcount" ), "-1" ) );
 		ret.put( "favoritecount", Utils.trimDefault( getAttribute( "favoritecount" ), "-1" ) );
 		ret.put( "replycount", Utils.trimDefault( getAttribute( "replycount" ), "-1" ) );
-		ret.put( "text", Utils.removeNewlines( Utils.trimDefault( StringEscapeUtils.escapeHtml4( Utils.removeAllEmojis( getAttribute( "tweettext" ) ) ) ) ) );
+		ret.put( "text", getEscapedText() );
 
 		return ret;
 	}
@@ -98,6 +173,17 @@ class Tweet implements ITweet {
 	@JsonIgnore
 	@Override
 	public String getSummary() {
+		String ret = summary;
+
+		if ( ret == null ) {
+			ret = makeSummary();
+			summary = ret;
+		}
+
+		return ret;
+	}
+
+	private String makeSummary() {
 		StringBuffer sb = new StringBuffer( 500 );
 
 		String dateStr = Utils.formatTimestampString( getAttribute( "time" ), "date unknown" );
@@ -136,7 +222,7 @@ class Tweet implements ITweet {
 		sb.append( ")" );
 
 		sb.append( " " );
-		sb.append( Utils.removeNewlines( Utils.trimDefault( StringEscapeUtils.escapeHtml4( Utils.removeAllEmojis( getAttribute( "tweettext" ) ) ) ) ) );
+		sb.append( getEscapedText() );
 
 		sb.append( "]" );
 
@@ -151,6 +237,48 @@ class Tweet implements ITweet {
 	@Override
 	public void setUser( ITweetUser user ) {
 		this.user = user;
+		summary = null;
+		basicMap = null;
+	}
+
+	@JsonIgnore
+	@Override
+	public int getTime() {
+		return getParsed()[ PARSED_TIME ];
+	}
+
+	@JsonIgnore
+	@Override
+	public int getReplyCount() {
+		return getParsed()[ PARSED_REPLYCOUNT ];
+	}
+
+	@JsonIgnore
+	@Override
+	public int getRetweetCount() {
+		return getParsed()[ PARSED_RETWEETCOUNT ];
+	}
+
+	@JsonIgnore
+	@Override
+	public int getFavoriteCount() {
+		return getParsed()[ PARSED_FAVORITECOUNT ];
+	}
+
+				//	a missing or unparseable value is cached as 0, the same as
+				//	Utils.parseIntDefault, so it isn't retried on every call
+	private int[] getParsed() {
+		int[] ret = parsed;
+
+		if ( ret == null ) {
+			ret = new int[ PARSED_KEYS.length ];
+			for ( int i = 0; i < PARSED_KEYS.length; i++ ) {
+				ret[ i ] = Utils.parseIntDefault( attributes.get( PARSED_KEYS[ i ] ) );
+			}
+			parsed = ret;
+		}
+
+		return ret;
 	}
 
 	@JsonIgnore
@@ -167,6 +295,14 @@ class Tweet implements ITweet {
 	@Override
 	public void setAttribute( String key, String value ) {
 		attributes.put( key, value );
+		parsed = null;
+		summary = null;
+		basicMap = null;
+
+		if ( "tweettext".equals( key ) ) {
+			sanitizedText = null;
+			escapedText = null;
+		}
 	}
 
 	@Override
@@ -177,6 +313,11 @@ class Tweet implements ITweet {
 	@Override
 	public void setAttributes( Map<String,String> attributes ) {
 		this.attributes = attributes;
+		parsed = null;
+		sanitizedText = null;
+		escapedText = null;
+		summary = null;
+		basicMap = null;
 	}
 
 	@Override
@@ -14,10 +14,15 @@
 package com.tolstoy.basic.app.tweet;
 
 import java.util.List;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.RandomAccess;
 import java.time.Instant;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -26,6 +31,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.apache.commons.lang3.StringUtils;
 import com.tolstoy.basic.api.tweet.ITweetCollection;
+import com.tolstoy.basic.api.tweet.ITweetColumns;
 import com.tolstoy.basic.api.tweet.ITweet;
 
 @JsonIgnoreProperties(ignoreUnknown=true)
@@ -42,6 +48,36 @@ class TweetCollection implements ITweetCollection {
 	@JsonProperty
 	private Instant retrievalTime;
 
+				//	maps a tweet ID to the position of the first tweet with that ID.
+				//	Built lazily, so it also covers lists set by Jackson. It's rebuilt
+				//	when version has moved on, which every change made here or through
+				//	the list from getTweets() does. Changes made to a list after it was
+				//	given to setTweets() are only caught when the size changes or when
+				//	a lookup lands on a different tweet.
+	@JsonIgnore
+	private transient Map<Long,Integer> index;
+
+	@JsonIgnore
+	private transient int indexedSize;
+
+	@JsonIgnore
+	private transient int indexedVersion;
+
+	@JsonIgnore
+	private transient int version;
+
+				//	what getTweets() returns. Jackson uses the field, so the list
+				//	that's stored is still the plain one
+	@JsonIgnore
+	private transient TweetListView view;
+
+				//	rebuilt on the same changes as the index
+	@JsonIgnore
+	private transient ITweetColumns columns;
+
+	@JsonIgnore
+	private transient int columnsVersion;
+
 	TweetCollection() {
 		this.tweets = new ArrayList<ITweet>();
 		this.retrievalTime = Instant.now();
@@ -49,61 +85,213 @@ class TweetCollection implements ITweetCollection {
 	}
 
 	TweetCollection( List<ITweet> tweets, Instant retrievalTime, Map<String,String> attributes ) {
-		this.tweets = tweets;
+		this.tweets = unwrap( tweets );
 		this.retrievalTime = retrievalTime;
 		this.attributes = attributes;
 	}
 
 	@Override
 	public ITweet getTweetByID( long id ) {
-		for ( ITweet tweet : tweets ) {
-			if ( tweet.getID() == id ) {
-				return tweet;
-			}
-		}
+		int pos = findPosition( id );
 
-		return null;
+		return pos < 0 ? null : tweets.get( pos );
 	}
 
 	@Override
 	public int getTweetOrderByID( long id ) {
-		int order = 1;
-		for ( ITweet tweet : tweets ) {
-			if ( tweet.getID() == id ) {
-				return order;
-			}
-			order++;
-		}
-
-		return 0;
+		return findPosition( id ) + 1;
 	}
 
+	/**
+	 * Changes made through the returned list are seen by getTweetByID and
+	 * getTweetOrderByID.
+	 */
+	@JsonIgnore
 	@Override
 	public List<ITweet> getTweets() {
-		return tweets;
+		if ( view == null ) {
+			view = new TweetListView();
+		}
+
+		return view;
 	}
 
 	@Override
 	public void setTweets( List<ITweet> tweets ) {
-		this.tweets = tweets;
+		this.tweets = unwrap( tweets );
+		version++;
+		index = null;
 	}
 
 	@Override
 	public void addTweet( ITweet tweet ) {
+		boolean indexIsCurrent = isIndexCurrent();
+
 		tweets.add( tweet );
+		version++;
+
+		if ( indexIsCurrent ) {
+			Long key = Long.valueOf( tweet.getID() );
+			if ( !index.containsKey( key ) ) {
+				index.put( key, Integer.valueOf( indexedSize ) );
+			}
+			indexedSize++;
+			indexedVersion = version;
+		}
+		else {
+			index = null;
+		}
 	}
 
 	@Override
 	public void removeTweetByID( long id ) {
-		Iterator<ITweet> iter = tweets.iterator();
+		removeTweetsByID( Collections.singleton( Long.valueOf( id ) ) );
+	}
+
+	@Override
+	public void removeTweetsByID( Collection<Long> ids ) {
+		if ( ids.isEmpty() || tweets.isEmpty() ) {
+			return;
+		}
+
+		Set<Long> targets = ids instanceof Set ? (Set<Long>) ids : new HashSet<Long>( ids );
+
+				//	one pass moving the survivors down, then a single truncation,
+				//	instead of an O(n) shift for every removed tweet
+		int size = tweets.size();
+		int dest = 0;
+		for ( int src = 0; src < size; src++ ) {
+			ITweet tweet = tweets.get( src );
+			if ( !targets.contains( Long.valueOf( tweet.getID() ) ) ) {
+				if ( dest != src ) {
+					tweets.set( dest, tweet );
+				}
+				dest++;
+			}
+		}
+
+		if ( dest < size ) {
+			tweets.subList( dest, size ).clear();
+			version++;
+			index = null;
+		}
+	}
+
+	@JsonIgnore
+	@Override
+	public ITweetColumns getColumns() {
+		ITweetColumns ret = columns;
+
+		if ( ret == null || columnsVersion != version || ret.size() != tweets.size() ) {
+			ret = new TweetColumns( tweets );
+			columns = ret;
+			columnsVersion = version;
+		}
+
+		return ret;
+	}
+
+	private int findPosition( long id ) {
+		if ( !isIndexCurrent() ) {
+			buildIndex();
+		}
+
+		Integer pos = index.get( Long.valueOf( id ) );
+		if ( pos == null ) {
+			return -1;
+		}
 
-		while ( iter.hasNext() ) {
-			ITweet tweet = iter.next();
+		int p = pos.intValue();
+		if ( p < tweets.size() && tweets.get( p ).getID() == id ) {
+			return p;
+		}
+
+				//	the list was changed behind our back
+		buildIndex();
+		pos = index.get( Long.valueOf( id ) );
+
+		return pos == null ? -1 : pos.intValue();
+	}
+
+	private void buildIndex() {
+		int size = tweets.size();
+		Map<Long,Integer> newIndex = new HashMap<Long,Integer>( Math.max( 16, size * 4 / 3 + 1 ) );
 
-			if ( tweet.getID() == id ) {
-				iter.remove();
+		for ( int i = 0; i < size; i++ ) {
+			Long key = Long.valueOf( tweets.get( i ).getID() );
+			if ( !newIndex.containsKey( key ) ) {
+				newIndex.put( key, Integer.valueOf( i ) );
 			}
 		}
+
+		index = newIndex;
+		indexedSize = size;
+		indexedVersion = version;
+	}
+
+	private boolean isIndexCurrent() {
+		return index != null && indexedVersion == version && indexedSize == tweets.size();
+	}
+
+	/**
+	 * Lists from another collection's getTweets() are replaced by the list
+	 * behind them, so that the stored list is never a view.
+	 */
+	private static List<ITweet> unwrap( List<ITweet> tweets ) {
+		while ( tweets instanceof TweetListView ) {
+			tweets = ( (TweetListView) tweets ).getCollection().tweets;
+		}
+
+		return tweets;
+	}
+
+	private class TweetListView extends AbstractList<ITweet> implements RandomAccess {
+		TweetCollection getCollection() {
+			return TweetCollection.this;
+		}
+
+		@Override
+		public ITweet get( int i ) {
+			return tweets.get( i );
+		}
+
+		@Override
+		public int size() {
+			return tweets.size();
+		}
+
+		@Override
+		public ITweet set( int i, ITweet tweet ) {
+			ITweet ret = tweets.set( i, tweet );
+			changed();
+			return ret;
+		}
+
+		@Override
+		public void add( int i, ITweet tweet ) {
+			tweets.add( i, tweet );
+			modCount++;
+			changed();
+		}
+
+		@Override
+		public ITweet remove( int i ) {
+			ITweet ret = tweets.remove( i );
+			modCount++;
+			changed();
+			return ret;
+		}
+
+		@Override
+		protected void removeRange( int fromIndex, int toIndex ) {
+			tweets.subList( fromIndex, toIndex ).clear();
+			modCount++;
+			changed();
+		}
+
+		private void changed() {
+			version++;
+		}
 	}
 
 	@Override
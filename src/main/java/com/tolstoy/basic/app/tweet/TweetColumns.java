@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.tweet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.tweet.ITweet;
+import com.tolstoy.basic.api.tweet.ITweetColumns;
+import com.tolstoy.basic.api.tweet.ITweetUser;
+import com.tolstoy.basic.api.tweet.TweetSupposedQuality;
+
+class TweetColumns implements ITweetColumns {
+	private static final Logger logger = LogManager.getLogger( TweetColumns.class );
+
+	private static final TweetSupposedQuality[] QUALITIES = TweetSupposedQuality.values();
+
+	private final int size;
+	private final long[] ids;
+	private final int[] times;
+	private final int[] replyCounts;
+	private final int[] retweetCounts;
+	private final int[] favoriteCounts;
+	private final byte[] qualityOrdinals;
+	private final int[] handleCodes;
+	private final String[] handles;
+	private int[] positionsByDate;
+
+	TweetColumns( List<ITweet> tweets ) {
+		this.size = tweets.size();
+		this.ids = new long[ size ];
+		this.times = new int[ size ];
+		this.replyCounts = new int[ size ];
+		this.retweetCounts = new int[ size ];
+		this.favoriteCounts = new int[ size ];
+		this.qualityOrdinals = new byte[ size ];
+		this.handleCodes = new int[ size ];
+
+		Map<String,Integer> handleDictionary = new HashMap<String,Integer>();
+
+		for ( int i = 0; i < size; i++ ) {
+			ITweet tweet = tweets.get( i );
+
+			ids[ i ] = tweet.getID();
+			times[ i ] = tweet.getTime();
+			replyCounts[ i ] = tweet.getReplyCount();
+			retweetCounts[ i ] = tweet.getRetweetCount();
+			favoriteCounts[ i ] = tweet.getFavoriteCount();
+			qualityOrdinals[ i ] = (byte) tweet.getSupposedQuality().ordinal();
+
+			ITweetUser user = tweet.getUser();
+			if ( user == null ) {
+				handleCodes[ i ] = -1;
+				continue;
+			}
+
+			Integer code = handleDictionary.get( user.getHandle() );
+			if ( code == null ) {
+				code = Integer.valueOf( handleDictionary.size() );
+				handleDictionary.put( user.getHandle(), code );
+			}
+			handleCodes[ i ] = code.intValue();
+		}
+
+		this.handles = new String[ handleDictionary.size() ];
+		for ( Map.Entry<String,Integer> entry : handleDictionary.entrySet() ) {
+			handles[ entry.getValue().intValue() ] = entry.getKey();
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public long[] getIDs() {
+		return ids;
+	}
+
+	@Override
+	public int[] getTimes() {
+		return times;
+	}
+
+	@Override
+	public int[] getReplyCounts() {
+		return replyCounts;
+	}
+
+	@Override
+	public int[] getRetweetCounts() {
+		return retweetCounts;
+	}
+
+	@Override
+	public int[] getFavoriteCounts() {
+		return favoriteCounts;
+	}
+
+	@Override
+	public byte[] getQualityOrdinals() {
+		return qualityOrdinals;
+	}
+
+	@Override
+	public TweetSupposedQuality getSupposedQuality( int position ) {
+		return QUALITIES[ qualityOrdinals[ position ] ];
+	}
+
+	@Override
+	public boolean isCensored( int position ) {
+		return QUALITIES[ qualityOrdinals[ position ] ].getCensored();
+	}
+
+	@Override
+	public int[] getHandleCodes() {
+		return handleCodes;
+	}
+
+	@Override
+	public String[] getHandles() {
+		return handles;
+	}
+
+	@Override
+	public int countNewerThan( int time ) {
+		int count = 0;
+
+		for ( int i = 0; i < size; i++ ) {
+			if ( times[ i ] > time ) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	@Override
+	public int[] getPositionsByDate() {
+		if ( positionsByDate == null ) {
+			long[] keys = new long[ size ];
+
+			for ( int i = 0; i < size; i++ ) {
+				keys[ i ] = pack( times[ i ], i );
+			}
+
+			positionsByDate = sortPositions( keys );
+		}
+
+		return positionsByDate;
+	}
+
+	@Override
+	public int[] getPositionsByInteraction( int boostReplies, int boostRTs, int boostFavorites ) {
+		long[] keys = new long[ size ];
+
+		for ( int i = 0; i < size; i++ ) {
+			int score = ( boostReplies * ( replyCounts[ i ] + 1 ) )
+						* ( boostRTs * ( retweetCounts[ i ] + 1 ) )
+						* ( boostFavorites * ( favoriteCounts[ i ] + 1 ) );
+
+				//	~score reverses the order without overflowing
+			keys[ i ] = pack( ~score, i );
+		}
+
+		return sortPositions( keys );
+	}
+
+	@Override
+	public int getOrder( int[] positions, long id ) {
+		for ( int i = 0; i < positions.length; i++ ) {
+			if ( ids[ positions[ i ] ] == id ) {
+				return i + 1;
+			}
+		}
+
+		return 0;
+	}
+
+				//	the value in the high half and the position in the low half, so
+				//	sorting the longs sorts by value with ties kept in page order,
+				//	without boxing or a comparator
+	private static long pack( int value, int position ) {
+		return ( ( (long) value ) << 32 ) | position;
+	}
+
+	private static int[] sortPositions( long[] keys ) {
+		Arrays.sort( keys );
+
+		int[] positions = new int[ keys.length ];
+		for ( int i = 0; i < keys.length; i++ ) {
+			positions[ i ] = (int) keys[ i ];
+		}
+
+		return positions;
+	}
+}
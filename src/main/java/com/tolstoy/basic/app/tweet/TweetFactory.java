@@ -29,7 +29,10 @@ import com.tolstoy.basic.app.utils.Utils;
 public class TweetFactory implements ITweetFactory {
 	private static final Logger logger = LogManager.getLogger( TweetFactory.class );
 
+	private final TweetUserRegistry userRegistry;
+
 	public TweetFactory() {
+		this.userRegistry = TweetUserRegistry.getDefault();
 	}
 
 	@Override
@@ -63,43 +66,47 @@ public class TweetFactory implements ITweetFactory {
 
 	@Override
 	public ITweetUser makeTweetUser( String handle ) {
-		return new TweetUser( handle, 0, null, TweetUserVerifiedStatus.UNKNOWN, "" );
+		return intern( new TweetUser( handle, 0, null, TweetUserVerifiedStatus.UNKNOWN, "" ) );
 	}
 
 	@Override
 	public ITweetUser makeTweetUser( String handle, long id ) {
-		return new TweetUser( handle, id, null, TweetUserVerifiedStatus.UNKNOWN, "" );
+		return intern( new TweetUser( handle, id, null, TweetUserVerifiedStatus.UNKNOWN, "" ) );
 	}
 
 	@Override
 	public ITweetUser makeTweetUser( String handle, long id, String displayName ) {
-		return new TweetUser( handle, id, displayName, TweetUserVerifiedStatus.UNKNOWN, "" );
+		return intern( new TweetUser( handle, id, displayName, TweetUserVerifiedStatus.UNKNOWN, "" ) );
 	}
 
 	@Override
 	public ITweetUser makeTweetUser( String handle, long id, String displayName, TweetUserVerifiedStatus verifiedStatus ) {
-		return new TweetUser( handle, id, displayName, verifiedStatus, "" );
+		return intern( new TweetUser( handle, id, displayName, verifiedStatus, "" ) );
 	}
 
 	@Override
 	public ITweetUser makeTweetUser( String handle, long id, String displayName, TweetUserVerifiedStatus verifiedStatus, String avatarURL ) {
-		return new TweetUser( handle, id, displayName, verifiedStatus, avatarURL );
+		return intern( new TweetUser( handle, id, displayName, verifiedStatus, avatarURL ) );
 	}
 
 	@Override
 	public ITweetUser makeTweetUser( String handle, long id, String displayName, TweetUserVerifiedStatus verifiedStatus, String avatarURL, int numTotalTweets, int numFollowers, int numFollowing ) {
-		return new TweetUser( handle, id, displayName, verifiedStatus, avatarURL, numTotalTweets, numFollowers, numFollowing );
+		return intern( new TweetUser( handle, id, displayName, verifiedStatus, avatarURL, numTotalTweets, numFollowers, numFollowing ) );
 	}
 
 	@Override
 	public ITweetUser makeTweetUser( Map<String,String> data, String baseKey ) throws Exception {
-		return new TweetUser( data.get( baseKey + "handle" ),
+		return intern( new TweetUser( data.get( baseKey + "handle" ),
 								Long.parseLong( data.get( baseKey + "id" ) ),
 								Utils.trimDefault( data.get( baseKey + "display_name" ) ),
 								TweetUserVerifiedStatus.valueOf( data.get( baseKey + "verified_status" ) ),
 								Utils.trimDefault( data.get( baseKey + "avatar_url" ) ),
 								Integer.parseInt( data.get( baseKey + "num_total_tweets" ) ),
 								Integer.parseInt( data.get( baseKey + "num_followers" ) ),
-								Integer.parseInt( data.get( baseKey + "num_following" ) ) );
+								Integer.parseInt( data.get( baseKey + "num_following" ) ) ) );
+	}
+
+	private ITweetUser intern( TweetUser user ) {
+		return userRegistry.intern( user );
 	}
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.tweet;
+
+import java.io.IOException;
+import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.tolstoy.basic.api.tweet.ITweetUser;
+
+/**
+ * Jackson setup for tweets, to be registered with every mapper that reads
+ * or writes them.
+ * <p>
+ * Users that are read are passed through TweetUserRegistry, so each stored
+ * run doesn't bring its own copy of every user.
+ * <p>
+ * With writeUsersOnce, which is only meant for the storage mappers, each
+ * user is written in full the first time it appears in a document and by
+ * its object ID after that. Fields are declared as ITweetUser, so the
+ * interface is given the same object ID as TweetUser, or the references
+ * couldn't be read back. Other mappers write every user in full.
+ */
+public class TweetJacksonModule extends SimpleModule {
+	private static final long serialVersionUID = 1L;
+
+	public TweetJacksonModule() {
+		this( false );
+	}
+
+	public TweetJacksonModule( boolean writeUsersOnce ) {
+		super( "TweetJacksonModule" );
+
+		if ( writeUsersOnce ) {
+			setMixInAnnotation( TweetUser.class, TweetUserMixIn.class );
+			setMixInAnnotation( ITweetUser.class, TweetUserMixIn.class );
+		}
+
+		setDeserializerModifier( new TweetUserDeserializerModifier() );
+	}
+
+	@JsonIdentityInfo(generator=TweetUserIdGenerator.class, property="@ref", resolver=TweetUserIdResolver.class)
+	abstract static class TweetUserMixIn {
+	}
+
+	private static class TweetUserDeserializerModifier extends BeanDeserializerModifier implements java.io.Serializable {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public JsonDeserializer<?> modifyDeserializer( DeserializationConfig config, BeanDescription beanDesc, JsonDeserializer<?> deserializer ) {
+			if ( beanDesc.getBeanClass() == TweetUser.class ) {
+				return new InterningDeserializer( deserializer );
+			}
+
+			return deserializer;
+		}
+	}
+
+	private static class InterningDeserializer extends DelegatingDeserializer {
+		private static final long serialVersionUID = 1L;
+
+		InterningDeserializer( JsonDeserializer<?> delegatee ) {
+			super( delegatee );
+		}
+
+		@Override
+		protected JsonDeserializer<?> newDelegatingInstance( JsonDeserializer<?> newDelegatee ) {
+			return new InterningDeserializer( newDelegatee );
+		}
+
+		@Override
+		public Object deserialize( JsonParser p, DeserializationContext ctxt ) throws IOException {
+			return intern( super.deserialize( p, ctxt ), p );
+		}
+
+		@Override
+		public Object deserializeWithType( JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer ) throws IOException {
+			return intern( super.deserializeWithType( p, ctxt, typeDeserializer ), p );
+		}
+
+		private Object intern( Object value, JsonParser p ) throws IOException {
+			try {
+				return TweetJacksonModule.intern( value );
+			}
+			catch ( IllegalArgumentException e ) {
+				throw JsonMappingException.from( p, "invalid tweet user: " + e.getMessage(), e );
+			}
+		}
+	}
+
+	static Object intern( Object value ) {
+		if ( value instanceof TweetUser ) {
+			return TweetUserRegistry.getDefault().intern( (TweetUser) value );
+		}
+
+		return value;
+	}
+}
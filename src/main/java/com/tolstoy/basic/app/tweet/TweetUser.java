@@ -55,6 +55,10 @@ class TweetUser implements ITweetUser {
 	@JsonProperty
 	private int numFollowing;
 
+				//	for Jackson; users it makes are checked by TweetUserRegistry.intern
+	private TweetUser() {
+	}
+
 	TweetUser( String handle,
 						long id,
 						String displayName,
@@ -63,19 +67,19 @@ class TweetUser implements ITweetUser {
 		this( handle, id, displayName, verifiedStatus, avatarURL, 0, 0, 0 );
 	}
 
-	TweetUser( @JsonProperty("handle") String handle,
-						@JsonProperty("id") long id,
-						@JsonProperty("displayName") String displayName,
-						@JsonProperty("verifiedStatus") TweetUserVerifiedStatus verifiedStatus,
-						@JsonProperty("avatarURL") String avatarURL,
-						@JsonProperty("numTotalTweets") int numTotalTweets,
-						@JsonProperty("numFollowers") int numFollowers,
-						@JsonProperty("numFollowing") int numFollowing ) {
+	TweetUser( String handle,
+						long id,
+						String displayName,
+						TweetUserVerifiedStatus verifiedStatus,
+						String avatarURL,
+						int numTotalTweets,
+						int numFollowers,
+						int numFollowing ) {
 		if ( Utils.isEmpty( handle ) ) {
 			throw new IllegalArgumentException( "handle cannot be empty" );
 		}
 
-		this.handle = StringUtils.strip( handle, " @\t\n\r" ).toLowerCase();
+		this.handle = normalizeHandle( handle );
 		if ( Utils.isEmpty( this.handle ) ) {
 			throw new IllegalArgumentException( "handle cannot be empty" );
 		}
@@ -130,6 +134,44 @@ class TweetUser implements ITweetUser {
 		return numFollowing;
 	}
 
+	String getStateKey() {
+		return id + ":" + handle + ":" + numTotalTweets + ":" + numFollowers + ":" + numFollowing + ":" +
+				verifiedStatus + ":" + displayName + ":" + avatarURL;
+	}
+
+	/**
+	 * True if every field, counts included, is the same, so either user can
+	 * stand in for the other.
+	 */
+	/**
+	 * Users made by Jackson skip the constructor's checks.
+	 * @return this user if the constructor would have made the same one,
+	 *         otherwise a copy made by the constructor
+	 * @throws IllegalArgumentException if the handle is empty
+	 */
+	TweetUser validated() {
+		if ( !Utils.isEmpty( handle ) && handle.equals( normalizeHandle( handle ) ) && !Utils.isEmpty( displayName ) ) {
+			return this;
+		}
+
+		return new TweetUser( handle, id, displayName, verifiedStatus, avatarURL, numTotalTweets, numFollowers, numFollowing );
+	}
+
+	static String normalizeHandle( String handle ) {
+		return StringUtils.strip( handle, " @\t\n\r" ).toLowerCase();
+	}
+
+	boolean hasSameState( TweetUser other ) {
+		return id == other.id &&
+				handle.equals( other.handle ) &&
+				Objects.equals( displayName, other.displayName ) &&
+				Objects.equals( avatarURL, other.avatarURL ) &&
+				verifiedStatus == other.verifiedStatus &&
+				numTotalTweets == other.numTotalTweets &&
+				numFollowers == other.numFollowers &&
+				numFollowing == other.numFollowing;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash( handle, displayName, id, verifiedStatus, avatarURL );
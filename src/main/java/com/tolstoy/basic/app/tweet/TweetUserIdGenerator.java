@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.tweet;
+
+import java.util.HashMap;
+import java.util.Map;
+import com.fasterxml.jackson.annotation.ObjectIdGenerator;
+import com.tolstoy.basic.api.tweet.ITweetUser;
+
+/**
+ * Object IDs for users in stored documents. The first user with a given
+ * handle is identified by the handle itself, and any other user with the
+ * same handle in the same document, for instance with different counts,
+ * by the handle followed by "~" and a number, so each reference finds the
+ * user it was written for.
+ * <p>
+ * Used for both TweetUser and ITweetUser, so the keys of references read
+ * into fields declared as the interface match the keys of the users.
+ */
+class TweetUserIdGenerator extends ObjectIdGenerator<String> {
+	private static final long serialVersionUID = 1L;
+
+	private final Class<?> scope;
+	private final Map<String,Integer> handleCounts;
+
+	public TweetUserIdGenerator() {
+		this( Object.class, new HashMap<String,Integer>() );
+	}
+
+	private TweetUserIdGenerator( Class<?> scope, Map<String,Integer> handleCounts ) {
+		this.scope = scope;
+		this.handleCounts = handleCounts;
+	}
+
+	@Override
+	public Class<?> getScope() {
+		return scope;
+	}
+
+	@Override
+	public boolean canUseFor( ObjectIdGenerator<?> gen ) {
+		return gen.getClass() == getClass() && gen.getScope() == scope;
+	}
+
+	@Override
+	public ObjectIdGenerator<String> forScope( Class<?> scope ) {
+		return this.scope == scope ? this : new TweetUserIdGenerator( scope, new HashMap<String,Integer>() );
+	}
+
+	@Override
+	public ObjectIdGenerator<String> newForSerialization( Object context ) {
+		return new TweetUserIdGenerator( scope, new HashMap<String,Integer>() );
+	}
+
+	@Override
+	public IdKey key( Object key ) {
+		return key == null ? null : new IdKey( getClass(), scope, key );
+	}
+
+	@Override
+	public String generateId( Object forPojo ) {
+		String handle = ( (ITweetUser) forPojo ).getHandle();
+
+		Integer count = handleCounts.get( handle );
+		if ( count == null ) {
+			handleCounts.put( handle, 1 );
+			return handle;
+		}
+
+		handleCounts.put( handle, count + 1 );
+
+		return handle + "~" + ( count + 1 );
+	}
+}
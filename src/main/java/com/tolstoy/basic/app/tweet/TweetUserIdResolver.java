@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.tweet;
+
+import com.fasterxml.jackson.annotation.ObjectIdGenerator;
+import com.fasterxml.jackson.annotation.ObjectIdResolver;
+import com.fasterxml.jackson.annotation.SimpleObjectIdResolver;
+
+/**
+ * Resolves the IDs written by TweetUserIdGenerator to the shared users in
+ * TweetUserRegistry.
+ */
+class TweetUserIdResolver extends SimpleObjectIdResolver {
+				//	the user is bound as soon as its object ID is read, before the rest
+				//	of it is, so it's swapped for the shared user here instead
+	@Override
+	public Object resolveId( ObjectIdGenerator.IdKey id ) {
+		Object ob = super.resolveId( id );
+		Object shared = TweetJacksonModule.intern( ob );
+
+		if ( shared != ob ) {
+			_items.put( id, shared );
+		}
+
+		return shared;
+	}
+
+	@Override
+	public boolean canUseFor( ObjectIdResolver resolverType ) {
+		return resolverType.getClass() == getClass();
+	}
+
+	@Override
+	public ObjectIdResolver newForDeserialization( Object context ) {
+		return new TweetUserIdResolver();
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.tweet;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Hands out one shared TweetUser per distinct user, so that a popular
+ * account appearing in thousands of tweets, and again in every stored run,
+ * is only held once. Entries are weak, so users no longer referenced by any
+ * tweet can be collected, and the number of entries is bounded with the
+ * least recently used dropped first.
+ * <p>
+ * Only users that are the same in every field, counts included, are
+ * shared, and shared users are never changed, so each run keeps the profile
+ * and counts it was made with.
+ */
+class TweetUserRegistry {
+	private static final Logger logger = LogManager.getLogger( TweetUserRegistry.class );
+
+	private static final int DEFAULT_MAX_USERS = 100000;
+
+	private static final TweetUserRegistry defaultRegistry = new TweetUserRegistry( DEFAULT_MAX_USERS );
+
+	private final Map<String,UserReference> users;
+	private final ReferenceQueue<TweetUser> queue;
+
+	private static class UserReference extends WeakReference<TweetUser> {
+		private final String key;
+
+		UserReference( String key, TweetUser user, ReferenceQueue<TweetUser> queue ) {
+			super( user, queue );
+			this.key = key;
+		}
+	}
+
+	TweetUserRegistry( final int maxUsers ) {
+		this.queue = new ReferenceQueue<TweetUser>();
+		this.users = new LinkedHashMap<String,UserReference>( 1024, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<String,UserReference> eldest ) {
+				return size() > maxUsers;
+			}
+		};
+	}
+
+	static TweetUserRegistry getDefault() {
+		return defaultRegistry;
+	}
+
+	/**
+	 * @param candidate a newly made user, which is checked first as it may
+	 *        have been made by Jackson
+	 * @return the shared user, or the candidate if it is now the shared user
+	 * @throws IllegalArgumentException if the candidate's handle is empty
+	 */
+	synchronized TweetUser intern( TweetUser candidate ) {
+		purge();
+
+		candidate = candidate.validated();
+
+		String key = candidate.getStateKey();
+
+		UserReference ref = users.get( key );
+		TweetUser existing = ref != null ? ref.get() : null;
+
+		if ( existing != null && existing.hasSameState( candidate ) ) {
+			return existing;
+		}
+
+		users.put( key, new UserReference( key, candidate, queue ) );
+
+		return candidate;
+	}
+
+	private void purge() {
+		UserReference ref;
+
+		while ( ( ref = (UserReference) queue.poll() ) != null ) {
+			if ( users.get( ref.key ) == ref ) {
+				users.remove( ref.key );
+			}
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.utils;
+
+import java.util.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import emoji4j.Emoji;
+import emoji4j.EmojiManager;
+
+/**
+ * Removes emojis in a single pass over the code points of a string.
+ *
+ * emoji4j's EmojiUtils.removeAllEmojis() calls String.replace() once for
+ * every emoji it knows about, which is several hundred passes per string.
+ * This builds a bitset from the same emoji table once and produces the same
+ * output: multi-code-point sequences (variation selectors, keycaps, flags)
+ * are only removed when the whole sequence is in the table, stray ZWJs and
+ * selectors are left alone, and a sequence that only comes together after
+ * an emoji inside it is removed is handled the way emoji4j's table order
+ * would handle it.
+ */
+public final class EmojiStripper {
+	private static final Logger logger = LogManager.getLogger( EmojiStripper.class );
+
+				//	code points that can start an emoji
+	private static final BitSet starts = new BitSet();
+
+				//	position in emoji4j's table of each single-code-point emoji
+	private static final Map<Integer,Integer> singles = new HashMap<Integer,Integer>();
+
+				//	multi-code-point sequences keyed by their first code point, longest first
+	private static final Map<Integer,Sequence[]> sequences = new HashMap<Integer,Sequence[]>();
+
+	private static final class Sequence {
+		final String text;
+		final int order;
+
+		Sequence( String text, int order ) {
+			this.text = text;
+			this.order = order;
+		}
+	}
+
+	static {
+		Map<Integer,List<Sequence>> temp = new HashMap<Integer,List<Sequence>>();
+		int order = 0;
+
+		for ( Emoji emoji : EmojiManager.data() ) {
+			String s = emoji.getEmoji();
+			order++;
+
+			if ( s == null || s.isEmpty() ) {
+				continue;
+			}
+
+			int first = s.codePointAt( 0 );
+			starts.set( first );
+
+			if ( s.length() == Character.charCount( first ) ) {
+				if ( !singles.containsKey( first ) ) {
+					singles.put( first, order );
+				}
+				continue;
+			}
+
+			List<Sequence> list = temp.get( first );
+			if ( list == null ) {
+				list = new ArrayList<Sequence>( 2 );
+				temp.put( first, list );
+			}
+			list.add( new Sequence( s, order ) );
+		}
+
+		for ( Map.Entry<Integer,List<Sequence>> entry : temp.entrySet() ) {
+			List<Sequence> list = entry.getValue();
+			Collections.sort( list, new Comparator<Sequence>() {
+				@Override
+				public int compare( Sequence a, Sequence b ) {
+					return Integer.compare( b.text.length(), a.text.length() );
+				}
+			});
+
+			sequences.put( entry.getKey(), list.toArray( new Sequence[ list.size() ] ) );
+		}
+
+		logger.debug( "EmojiStripper: " + singles.size() + " single emojis, " + sequences.size() + " sequence prefixes" );
+	}
+
+	private EmojiStripper() {
+	}
+
+	/**
+	 * @return the string with all known emojis removed, or the same
+	 * instance if it contained none
+	 */
+	public static String strip( String s ) {
+		if ( s == null ) {
+			return null;
+		}
+
+		StringBuilder sb = null;
+		int len = s.length(), copied = 0, i = 0;
+
+				//	latest table position among the emojis removed since the last kept code point
+		int removedOrder = 0;
+
+		while ( i < len ) {
+			int cp = s.codePointAt( i );
+			int cpLen = Character.charCount( cp );
+
+			if ( !starts.get( cp ) ) {
+				i += cpLen;
+				removedOrder = 0;
+				continue;
+			}
+
+			int matchLen = 0, matchOrder = 0;
+
+			Sequence[] candidates = sequences.get( cp );
+			if ( candidates != null ) {
+				for ( Sequence candidate : candidates ) {
+					if ( s.startsWith( candidate.text, i ) ) {
+						matchLen = candidate.text.length();
+						matchOrder = candidate.order;
+						break;
+					}
+				}
+			}
+
+			if ( matchLen == 0 ) {
+				Integer single = singles.get( cp );
+				if ( single == null ) {
+					i += cpLen;
+					removedOrder = 0;
+					continue;
+				}
+
+				matchLen = cpLen;
+				matchOrder = single;
+			}
+
+			if ( sb == null ) {
+				sb = new StringBuilder( len );
+			}
+
+			sb.append( s, copied, i );
+			i += matchLen;
+			removedOrder = Math.max( removedOrder, matchOrder );
+
+				//	removing an emoji can join the code point before it with what follows
+				//	into a sequence. emoji4j removes that too, but only if the sequence
+				//	comes after everything removed in between in its table.
+			i += removeJoined( sb, s, i, removedOrder );
+			copied = i;
+		}
+
+		if ( sb == null ) {
+			return s;
+		}
+
+		sb.append( s, copied, len );
+
+		return sb.toString();
+	}
+
+	private static int removeJoined( StringBuilder sb, String s, int pos, int removedOrder ) {
+		if ( sb.length() == 0 || pos >= s.length() ) {
+			return 0;
+		}
+
+		int prev = Character.codePointBefore( sb, sb.length() );
+		Sequence[] candidates = sequences.get( prev );
+		if ( candidates == null ) {
+			return 0;
+		}
+
+		int prevLen = Character.charCount( prev );
+		for ( Sequence candidate : candidates ) {
+			if ( candidate.order > removedOrder && s.startsWith( candidate.text.substring( prevLen ), pos ) ) {
+				sb.setLength( sb.length() - prevLen );
+				return candidate.text.length() - prevLen;
+			}
+		}
+
+		return 0;
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.utils;
+
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+
+/**
+ * A log message that's an object written as JSON. The JSON is only written
+ * if the message is logged, and then straight into the layout's buffer.
+ */
+public class JsonMessage implements Message, StringBuilderFormattable {
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger logger = LogManager.getLogger( JsonMessage.class );
+
+		//	the JSON takes the place of the single parameter
+	private static final String FORMAT = "{}";
+
+	private final Object value;
+
+	public JsonMessage( Object value ) {
+		this.value = value;
+	}
+
+	@Override
+	public void formatTo( StringBuilder buffer ) {
+		try {
+			Utils.writeJson( value, new StringBuilderWriter( buffer ) );
+		}
+		catch ( Exception e ) {
+			logger.error( "can't write " + value.getClass().getName() + " as JSON", e );
+		}
+	}
+
+	@Override
+	public String getFormattedMessage() {
+		StringBuilder buffer = new StringBuilder();
+		formatTo( buffer );
+
+		return buffer.toString();
+	}
+
+	@Override
+	public String getFormat() {
+		return FORMAT;
+	}
+
+	@Override
+	public Object[] getParameters() {
+		return new Object[] { value };
+	}
+
+	@Override
+	public Throwable getThrowable() {
+		return null;
+	}
+}
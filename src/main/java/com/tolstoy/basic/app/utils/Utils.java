@@ -13,6 +13,7 @@
  */
 package com.tolstoy.basic.app.utils;
 
+import java.io.*;
 import java.util.*;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -23,8 +24,11 @@ import org.nibor.autolink.*;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tolstoy.basic.app.tweet.TweetJacksonModule;
 
 public final class Utils {
 	private static final Logger logger = LogManager.getLogger( Utils.class );
@@ -32,14 +36,20 @@ public final class Utils {
 	private static final DateFormat dateFormat = new SimpleDateFormat( "MM/dd/yy hh:mm:ss" );	//	TODO i18n
 
 	private static ObjectMapper mapper, plainMapper;
+	private static ObjectWriter streamingWriter;
 
 	static {
 		mapper = new ObjectMapper();
 		mapper.registerModule( new JavaTimeModule() );
 		mapper.enableDefaultTyping( ObjectMapper.DefaultTyping.NON_FINAL );
+		mapper.registerModule( new TweetJacksonModule() );
 
 		plainMapper = new ObjectMapper();
 		plainMapper.registerModule( new JavaTimeModule() );
+		plainMapper.registerModule( new TweetJacksonModule() );
+
+				//	the caller owns the stream, so it's flushed but not closed
+		streamingWriter = mapper.writer().without( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
 	}
 
 	public static <V> Map<String,V> copyMapWithMatchingKeys( Map<String,V> data, String baseKey ) {
@@ -67,7 +77,7 @@ public final class Utils {
 	}
 
 	public static String removeAllEmojis( String s ) {
-		return emoji4j.EmojiUtils.removeAllEmojis( s );
+		return EmojiStripper.strip( s );
 	}
 
 	public static String removeNewlines( String s ) {
@@ -121,6 +131,22 @@ public final class Utils {
 		return plainMapper;
 	}
 
+	/**
+	 * Writes value as UTF-8 JSON, in the same form as the default object
+	 * mapper, straight to out instead of building a String first.
+	 * out is left open.
+	 */
+	public static void writeJson( Object value, OutputStream out ) throws IOException {
+		streamingWriter.writeValue( out, value );
+	}
+
+	/**
+	 * Like writeJson( Object, OutputStream ), for character output.
+	 */
+	public static void writeJson( Object value, Writer out ) throws IOException {
+		streamingWriter.writeValue( out, value );
+	}
+
 	public static Map<String,String> sanitizeMap( Map<String,String> map ) {
 		Map<String,String> newMap = new HashMap<String,String>( map );
 
@@ -27,6 +27,12 @@ public interface IAnalysisReportRepliesItemBasic {
 	int getTotalRepliesActual();
 	boolean getListIsComplete();
 
+	/**
+	 * True if the reply page stopped once the reply was found, so the ranks
+	 * were worked out from the tweets down to the reply only.
+	 */
+	boolean getListStoppedAtTarget();
+
 	int getRank();
 	void setRank( int rank );
 
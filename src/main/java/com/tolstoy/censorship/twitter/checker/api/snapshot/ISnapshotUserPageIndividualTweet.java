@@ -24,6 +24,13 @@ public interface ISnapshotUserPageIndividualTweet extends ISnapshotUserPage {
 	int getNumLikes();
 	int getNumReplies();
 
+	/**
+	 * True if scrolling stopped once the target tweet and the tweets after it
+	 * had been read. The page is then not complete, and the tweets that are in
+	 * it are only the ones down to that point.
+	 */
+	boolean getStoppedAtTarget();
+
 	void setIndividualTweet( ITweet individualTweet );
 
 	void setTweetID( long tweetID );
@@ -31,4 +38,6 @@ public interface ISnapshotUserPageIndividualTweet extends ISnapshotUserPage {
 	void setNumRetweets( int numRetweets );
 	void setNumLikes( int numLikes );
 	void setNumReplies( int numReplies );
+
+	void setStoppedAtTarget( boolean stoppedAtTarget );
 }
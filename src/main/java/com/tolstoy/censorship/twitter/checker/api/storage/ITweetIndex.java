@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.api.storage;
+
+import java.util.*;
+import com.tolstoy.censorship.twitter.checker.api.analyzer.*;
+import com.tolstoy.censorship.twitter.checker.api.searchrun.ISearchRun;
+
+/**
+ * Normalized tables of the tweets, users, reply threads and report items in
+ * stored search runs. They are kept alongside the searchrun table so that
+ * searches can be made without reading the search run payloads.
+ */
+public interface ITweetIndex {
+	void ensureTables() throws Exception;
+
+	/**
+	 * Replaces whatever was indexed for the search run. The search run must already
+	 * have been saved so that it has an ID.
+	 * @param report the analysis of the search run, or null if there isn't one
+	 */
+	void indexSearchRun( ISearchRun searchRun, IAnalysisReportRepliesBasic report ) throws Exception;
+
+	/**
+	 * @return the IDs of the search runs that have the tweet on any page
+	 */
+	List<Long> getRunIDsByTweetID( long tweetID ) throws Exception;
+
+	/**
+	 * @return the IDs of the search runs with a reply thread for a reply to the tweet
+	 */
+	List<Long> getRunIDsByRepliedToTweetID( long repliedToTweetID ) throws Exception;
+
+	/**
+	 * For instance, all of the runs in which a reply was hidden.
+	 * @return the IDs of the search runs in which the user's reply was given that status
+	 */
+	List<Long> getRunIDsByReportItemStatus( long sourceTweetID, AnalysisReportItemBasicTweetStatus status ) throws Exception;
+
+	List<Long> getTweetIDsByHandle( String handle, int max ) throws Exception;
+
+	List<Long> getTweetIDsByConversationID( long conversationID, int max ) throws Exception;
+}
@@ -15,5 +15,11 @@ package com.tolstoy.censorship.twitter.checker.api.webdriver;
 
 public interface IInfiniteScrollingActivator {
 	void activate( int numberOfPages ) throws Exception;
+
+		//	same, calling the listener before the first scroll and after each scroll
+	void activate( int numberOfPages, IInfiniteScrollingListener listener ) throws Exception;
 	boolean getComplete();
+
+		//	total time spent waiting for the page to grow, in milliseconds
+	long getWaitMillis();
 }
@@ -34,6 +34,24 @@ public interface IWebDriverFactory {
 													int numberOfPagesToCheck,
 													int maxTweets ) throws Exception;
 
+	/**
+	 * Same as makeTweetCollectionFromURL, except that tweets are read after each
+	 * scroll and handed to the consumer (which can be null) as they appear.
+	 * Scrolling stops once maxTweets tweets have been read, or once the target
+	 * tweet and numberOfTweetsAfterTarget tweets after it have been read.
+	 * @param maxTweets 0 for no limit
+	 * @param targetTweetID 0 for no target
+	 */
+	ITweetCollection harvestTweetCollectionFromURL( WebDriver driver,
+													IWebDriverUtils driverutils,
+													IInfiniteScrollingActivator infiniteScroller,
+													String url,
+													int numberOfPagesToCheck,
+													int maxTweets,
+													long targetTweetID,
+													int numberOfTweetsAfterTarget,
+													ITweetHarvestConsumer consumer ) throws Exception;
+
 	ISnapshotUserPageTimeline makeSnapshotUserPageTimelineFromURL( WebDriver driver,
 																	IWebDriverUtils driverutils,
 																	IInfiniteScrollingActivator infiniteScroller,
@@ -47,4 +65,20 @@ public interface IWebDriverFactory {
 																					String url,
 																					int numberOfPagesToCheck,
 																					int maxTweets ) throws Exception;
+
+	/**
+	 * Same as makeSnapshotUserPageIndividualTweetFromURL, except that scrolling
+	 * stops once the target tweet and numberOfTweetsAfterTarget tweets after it
+	 * have been read. The page is then not marked complete; getStoppedAtTarget
+	 * is true instead.
+	 * @param targetTweetID 0 for no target
+	 */
+	ISnapshotUserPageIndividualTweet makeSnapshotUserPageIndividualTweetFromURL( WebDriver driver,
+																					IWebDriverUtils driverutils,
+																					IInfiniteScrollingActivator infiniteScroller,
+																					String url,
+																					int numberOfPagesToCheck,
+																					int maxTweets,
+																					long targetTweetID,
+																					int numberOfTweetsAfterTarget ) throws Exception;
 }
@@ -26,6 +26,7 @@ import com.tolstoy.basic.api.tweet.*;
 import com.tolstoy.basic.api.utils.*;
 import com.tolstoy.basic.api.statusmessage.*;
 import com.tolstoy.basic.app.utils.Utils;
+import com.tolstoy.basic.app.utils.JsonMessage;
 import com.tolstoy.censorship.twitter.checker.api.preferences.*;
 import com.tolstoy.censorship.twitter.checker.api.webdriver.*;
 import com.tolstoy.censorship.twitter.checker.api.snapshot.*;
@@ -138,7 +139,7 @@ public class AppGUI implements RunEventListener, PreferencesEventListener, RunIt
 
 				//logger.info( searchRunReplies );
 				logger.info( "VALUENEXT" );
-				logger.info( Utils.getDefaultObjectMapper().writeValueAsString( searchRunReplies ) );
+				logger.info( new JsonMessage( searchRunReplies ) );
 				return searchRunReplies;
 			}
 			catch ( Exception e ) {
@@ -175,7 +176,7 @@ public class AppGUI implements RunEventListener, PreferencesEventListener, RunIt
 
 				//logger.info( searchRunTimeline );
 				logger.info( "VALUENEXT" );
-				logger.info( Utils.getDefaultObjectMapper().writeValueAsString( searchRunTimeline ) );
+				logger.info( new JsonMessage( searchRunTimeline ) );
 				return searchRunTimeline;
 			}
 			catch ( Exception e ) {
@@ -218,7 +219,7 @@ public class AppGUI implements RunEventListener, PreferencesEventListener, RunIt
 
 				//logger.info( searchRunReplies );
 				logger.info( "VALUENEXT" );
-				logger.info( Utils.getDefaultObjectMapper().writeValueAsString( searchRunReplies ) );
+				logger.info( new JsonMessage( searchRunReplies ) );
 				return searchRunReplies;
 			}
 			catch ( Exception e ) {
@@ -234,9 +235,10 @@ public class AppGUI implements RunEventListener, PreferencesEventListener, RunIt
 		@Override
 		public Void doInBackground() {
 			try {
-				List<IStorable> storables = storage.getRecords( StorageTable.SEARCHRUN, StorageOrdering.DESC, 1 );
-				if ( storables.size() > 0 ) {
-					IStorable storable = storables.get( 0 );
+					//	find the latest run without sorting the payloads, then load just that one
+				List<StorageRecordHeader> headers = storage.getRecordHeaders( StorageTable.SEARCHRUN, StorageOrdering.DESC, 1 );
+				IStorable storable = headers.size() > 0 ? storage.getRecordByID( StorageTable.SEARCHRUN, headers.get( 0 ).getID() ) : null;
+				if ( storable != null ) {
 					ISearchRun searchRun = (ISearchRun) storable;
 
 					SearchRunProcessorWriteReport writeReport = new SearchRunProcessorWriteReport( bundle, prefs, appDirectories,
@@ -394,6 +396,13 @@ public class AppGUI implements RunEventListener, PreferencesEventListener, RunIt
 	public void windowClosingEventFired( WindowClosingEvent windowClosingEvent ) {
 		windowClosingEvent.getWindow().dispose();
 
+		try {
+			storage.flush();
+		}
+		catch ( Exception e ) {
+			logger.error( "cannot flush storage", e );
+		}
+
 		logger.info( "DONE" );
 		System.exit( 0 );
 	}
@@ -431,7 +440,7 @@ public class AppGUI implements RunEventListener, PreferencesEventListener, RunIt
 	}
 
 	private void buildGUIElements() throws Exception {
-		guiElements = new ArrayList<ElementDescriptor>( 15 );
+		guiElements = new ArrayList<ElementDescriptor>( 16 );
 
 		guiElements.add( new ElementDescriptor( "textfield", "prefs.handle_to_check",
 													bundle.getString( "prefs_element_handle_to_check_name" ),
@@ -451,6 +460,9 @@ public class AppGUI implements RunEventListener, PreferencesEventListener, RunIt
 		guiElements.add( new ElementDescriptor( "textfield", "prefs.num_individual_pages_to_check",
 													bundle.getString( "prefs_element_num_individual_pages_to_check_name" ),
 													bundle.getString( "prefs_element_num_individual_pages_to_check_help" ), 30 ) );
+		guiElements.add( new ElementDescriptor( "textfield", "prefs.num_browser_sessions",
+													bundle.getString( "prefs_element_num_browser_sessions_name" ),
+													bundle.getString( "prefs_element_num_browser_sessions_help" ), 30 ) );
 		guiElements.add( new ElementDescriptor( "checkbox", "prefs.upload_results",
 													bundle.getString( "prefs_element_upload_results_name" ),
 													bundle.getString( "prefs_element_upload_results_help" ), 30 ) );
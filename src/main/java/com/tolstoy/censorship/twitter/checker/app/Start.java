@@ -14,12 +14,14 @@
 package com.tolstoy.censorship.twitter.checker.app;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Properties;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import javax.swing.JFrame;
 import javax.swing.JDialog;
 import javax.swing.JOptionPane;
@@ -31,21 +33,38 @@ import org.apache.logging.log4j.Logger;
 import org.scijava.util.ClassUtils;
 import org.scijava.util.FileUtils;
 import com.tolstoy.basic.api.storage.IStorage;
+import com.tolstoy.basic.api.storage.IPayloadCodec;
+import com.tolstoy.basic.api.storage.StorageOrdering;
 import com.tolstoy.basic.api.tweet.ITweetFactory;
 import com.tolstoy.basic.api.utils.*;
 import com.tolstoy.basic.app.utils.*;
 import com.tolstoy.basic.app.tweet.TweetFactory;
 import com.tolstoy.basic.app.storage.StorageEmbeddedDerby;
+import com.tolstoy.basic.app.storage.PayloadCodecJSON;
+import com.tolstoy.basic.app.storage.PayloadCodecSmile;
+import com.tolstoy.basic.app.storage.PayloadCodecLazy;
+import com.tolstoy.basic.app.storage.PayloadCodecDedup;
+import com.tolstoy.basic.app.storage.ObjectVersionStoreDerby;
+import com.tolstoy.basic.app.storage.StorageCached;
+import com.tolstoy.basic.app.storage.StorageWriteBehind;
+import com.tolstoy.basic.app.storage.StorageAppendLog;
 import com.tolstoy.censorship.twitter.checker.api.preferences.IPreferencesFactory;
 import com.tolstoy.censorship.twitter.checker.api.preferences.IPreferences;
 import com.tolstoy.censorship.twitter.checker.api.webdriver.IWebDriverFactory;
 import com.tolstoy.censorship.twitter.checker.api.snapshot.ISnapshotFactory;
+import com.tolstoy.censorship.twitter.checker.api.searchrun.ISearchRun;
 import com.tolstoy.censorship.twitter.checker.api.searchrun.ISearchRunFactory;
 import com.tolstoy.censorship.twitter.checker.api.searchrun.ISearchRunProcessor;
+import com.tolstoy.censorship.twitter.checker.api.storage.ITweetIndex;
 import com.tolstoy.censorship.twitter.checker.api.analyzer.*;
 import com.tolstoy.censorship.twitter.checker.app.preferences.PreferencesFactory;
 import com.tolstoy.censorship.twitter.checker.app.webdriver.WebDriverFactoryJS;
+import com.tolstoy.censorship.twitter.checker.app.webdriver.WebDriverFactoryJsoup;
+import com.tolstoy.censorship.twitter.checker.app.webdriver.WebDriverFactoryRecording;
+import com.tolstoy.censorship.twitter.checker.app.webdriver.WebDriverFactoryReplay;
 import com.tolstoy.censorship.twitter.checker.app.snapshot.SnapshotFactory;
+import com.tolstoy.censorship.twitter.checker.app.storage.StorageTable;
+import com.tolstoy.censorship.twitter.checker.app.storage.TweetIndexDerby;
 import com.tolstoy.censorship.twitter.checker.app.analyzer.AnalysisReportFactory;
 import com.tolstoy.censorship.twitter.checker.app.searchrun.*;
 import com.tolstoy.censorship.twitter.checker.app.gui.*;
@@ -60,6 +79,14 @@ public final class Start {
 
 	private static final String[] TABLE_NAMES = { "searchrun", "preferences" };
 
+		//	stored once per version and referred to from each search run
+	private static final String[] DEDUP_CLASS_NAMES = { "com.tolstoy.basic.app.tweet.Tweet" };
+
+	private static final long DEFAULT_APPENDLOG_MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+	private static final int APPENDLOG_IMPORT_BATCH_SIZE = 100;
+	private static final String APPENDLOG_IMPORTED_MARKER = "imported";
+
 	private static final String[] PREFERENCES_OVERRIDEABLE_BY_SYSTEM_PROPERTIES = { "prefs.firefox_path_app", "prefs.firefox_path_profile" };
 
 	private static final boolean DEBUG_MODE = true;
@@ -70,6 +97,7 @@ public final class Start {
 		Properties props = null;
 		Map<String,String> defaultAppPrefs = null;
 		IStorage storage = null;
+		ITweetIndex tweetIndex = null;
 		IPreferencesFactory prefsFactory = null;
 		IPreferences prefs = null;
 		IWebDriverFactory webDriverFactory = null;
@@ -117,10 +145,77 @@ public final class Start {
 		}
 
 		try {
-			storage = new StorageEmbeddedDerby( databaseConnectionString, Arrays.asList( TABLE_NAMES ) );
+				//	every codec reads the rows written by the others, so this can be changed at any time,
+				//	except that only smile_deflate_dedup reads the search runs it has written. Earlier
+				//	versions of the app only read json, so it's the default and the others are only
+				//	used if chosen. Preferences are never written with smile_deflate_dedup.
+			String payloadCodecName = defaultAppPrefs.get( "storage.payload_codec" );
+			IPayloadCodec payloadCodec;
+
+			if ( "smile_deflate_dedup".equals( payloadCodecName ) ) {
+					//	the versions table gets its own connection pool, as the codec is needed before the main one exists
+				StorageEmbeddedDerby versionStorage = new StorageEmbeddedDerby( databaseConnectionString, Collections.<String>emptyList() );
+				versionStorage.connect();
+
+				ObjectVersionStoreDerby tweetVersionStore = new ObjectVersionStoreDerby( versionStorage, "tweetversion" );
+				tweetVersionStore.ensureTables();
+
+				payloadCodec = new PayloadCodecDedup( tweetVersionStore,
+														Arrays.<Class<?>>asList( ISearchRun.class ),
+														Arrays.asList( DEDUP_CLASS_NAMES ) );
+			}
+			else if ( "smile".equals( payloadCodecName ) ) {
+				payloadCodec = new PayloadCodecSmile( false );
+			}
+			else if ( "smile_deflate".equals( payloadCodecName ) ) {
+				payloadCodec = new PayloadCodecSmile( true );
+			}
+			else {
+				payloadCodec = new PayloadCodecJSON();
+			}
+
+				//	if chosen, stored search runs are only decoded in full when their snapshots are used
+			if ( Boolean.parseBoolean( defaultAppPrefs.get( "storage.lazy_decoding" ) ) ) {
+				payloadCodec = new PayloadCodecLazy( payloadCodec, new LazySearchRunFactory() );
+			}
+
+			StorageEmbeddedDerby storageEmbeddedDerby = new StorageEmbeddedDerby( databaseConnectionString, Arrays.asList( TABLE_NAMES ), payloadCodec );
+
+			IStorage backend = storageEmbeddedDerby;
+			StorageAppendLog storageAppendLog = null;
+
+				//	the tweet index is always kept in Derby, so it's connected either way
+			if ( "appendlog".equals( defaultAppPrefs.get( "storage.backend" ) ) ) {
+				storageEmbeddedDerby.connect();
+				storageEmbeddedDerby.ensureTables();
+
+				storageAppendLog = new StorageAppendLog( new File( appDirectories.getDatabaseParentDirectory(), defaultAppPrefs.get( "storage.appendlog.dir_name" ) ),
+															Arrays.asList( TABLE_NAMES ),
+															payloadCodec,
+															Utils.parseLongDefault( defaultAppPrefs.get( "storage.appendlog.max_segment_bytes" ), DEFAULT_APPENDLOG_MAX_SEGMENT_BYTES ) );
+				backend = storageAppendLog;
+			}
+
+				//	the cache is capped by record count; stored sizes don't predict decoded heap
+			int cacheMaxEntries = Utils.parseIntDefault( defaultAppPrefs.get( "storage.cache.max_entries" ) );
+			storage = cacheMaxEntries > 0 ? new StorageCached( backend, cacheMaxEntries ) : backend;
+
+				//	if chosen, saves are written on a background thread; AppGUI flushes them before exiting.
+				//	the preferences keep changing after they're saved, so they're written straight away
+			int writeBehindQueueSize = Utils.parseIntDefault( defaultAppPrefs.get( "storage.write_behind.queue_size" ) );
+			if ( writeBehindQueueSize > 0 ) {
+				storage = new StorageWriteBehind( storage, writeBehindQueueSize, Arrays.asList( StorageTable.PREFS ) );
+			}
 
 			storage.connect();
 			storage.ensureTables();
+
+			if ( storageAppendLog != null ) {
+				importIntoAppendLog( storageAppendLog, storageEmbeddedDerby );
+			}
+
+			tweetIndex = new TweetIndexDerby( storageEmbeddedDerby );
+			tweetIndex.ensureTables();
 		}
 		catch ( Exception e ) {
 			handleError( true, bundle.getString( "exc_db_init", databaseConnectionString ), e );
@@ -171,14 +266,48 @@ public final class Start {
 
 			searchRunProcessors.add( new SearchRunProcessorUploadDataJson( bundle, prefs ) );
 
-			searchRunProcessors.add( new SearchRunProcessorWriteReport( bundle, prefs, appDirectories, analysisReportFactory, DEBUG_MODE ) );
+				//	shared, so the replies report is only made once for both processors
+			RepliesReportMaker reportMaker = new RepliesReportMaker( analysisReportFactory );
+
+			searchRunProcessors.add( new SearchRunProcessorWriteReport( bundle, prefs, appDirectories, reportMaker, DEBUG_MODE ) );
+
+				//	last, since it has to wait for the search run to be written
+			searchRunProcessors.add( new SearchRunProcessorIndexToStorage( bundle, prefs, storage, tweetIndex, reportMaker ) );
 		}
 		catch ( Exception e ) {
 			handleError( false, bundle.getString( "exc_searchrunprocessors_init" ), e );
 		}
 
 		try {
-			webDriverFactory = new WebDriverFactoryJS( snapshotFactory, tweetFactory, prefs, bundle );
+				//	-Dwebdriver.snapshots.mode=record saves every page that's read, and
+				//	-Dwebdriver.snapshots.mode=replay runs against the saved pages instead of the site
+			String snapshotMode = System.getProperty( "webdriver.snapshots.mode", defaultAppPrefs.get( "webdriver.snapshots.mode" ) );
+			File snapshotDirectory = appDirectories.getSubdirectory( defaultAppPrefs.get( "webdriver.snapshots.dir_name" ) );
+
+				//	-Dwebdriver.extraction=jsoup parses the tweet HTML instead of running tweets.js; it
+				//	stays opt-in until it's been checked against saved pages
+			if ( "record".equals( snapshotMode ) ) {
+				webDriverFactory = new WebDriverFactoryRecording( snapshotDirectory, snapshotFactory, tweetFactory, prefs, bundle );
+			}
+			else if ( "replay".equals( snapshotMode ) ) {
+				final WebDriverFactoryReplay replayFactory = new WebDriverFactoryReplay( snapshotDirectory, snapshotFactory, tweetFactory, prefs, bundle );
+
+					//	the app leaves via System.exit, so stop the snapshot server on the way out
+				Runtime.getRuntime().addShutdownHook( new Thread( new Runnable() {
+					@Override
+					public void run() {
+						replayFactory.close();
+					}
+				} ) );
+
+				webDriverFactory = replayFactory;
+			}
+			else if ( "jsoup".equals( System.getProperty( "webdriver.extraction", defaultAppPrefs.get( "webdriver.extraction" ) ) ) ) {
+				webDriverFactory = new WebDriverFactoryJsoup( snapshotFactory, tweetFactory, prefs, bundle );
+			}
+			else {
+				webDriverFactory = new WebDriverFactoryJS( snapshotFactory, tweetFactory, prefs, bundle );
+			}
 		}
 		catch ( Exception e ) {
 			handleError( false, bundle.getString( "exc_webdriver_init" ), e );
@@ -208,6 +337,27 @@ public final class Start {
 		}
 	}
 
+	/**
+	 * Copies the Derby tables into a new append log. The marker file is only
+	 * written once every table has been copied, so an import that was cut
+	 * short is run again in full; records imported twice keep their IDs, so
+	 * the second copy replaces the first.
+	 */
+	private void importIntoAppendLog( StorageAppendLog storageAppendLog, StorageEmbeddedDerby storageEmbeddedDerby ) throws Exception {
+		File marker = new File( storageAppendLog.getDirectory(), APPENDLOG_IMPORTED_MARKER );
+		if ( marker.exists() ) {
+			return;
+		}
+
+		for ( StorageTable table : StorageTable.values() ) {
+			storageAppendLog.importRecords( storageEmbeddedDerby, table, APPENDLOG_IMPORT_BATCH_SIZE );
+		}
+
+		if ( !marker.createNewFile() ) {
+			throw new IOException( "cannot create " + marker );
+		}
+	}
+
 	private void handleError( boolean closeOnExit, String msg, Exception e ) {
 		logger.error( msg, e );
 		showErrorMessage( closeOnExit, msg );
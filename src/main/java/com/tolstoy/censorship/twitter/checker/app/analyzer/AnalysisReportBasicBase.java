@@ -78,16 +78,14 @@ class AnalysisReportBasicBase {
 		return nameDateFormatter;
 	}
 
-	protected int getTweetOrder( List<ITweet> tweets, long tweetID ) {
-		int order = 1;
-		for ( ITweet tweet : tweets ) {
-			if ( tweet.getID() == tweetID ) {
-				return order;
-			}
-			order++;
+	protected String summarizeTweetList( List<ITweet> tweets, int[] positions ) {
+		List<String> temp = new ArrayList<String>( positions.length );
+
+		for ( int position : positions ) {
+			temp.add( tweets.get( position ).getSummary() );
 		}
 
-		return 0;
+		return "\n" + StringUtils.join( temp, "\n" );
 	}
 
 	protected String summarizeTweetList( List<ITweet> tweets ) {
@@ -100,17 +98,7 @@ class AnalysisReportBasicBase {
 		return "\n" + StringUtils.join( temp, "\n" );
 	}
 
-	protected int countNewerTweets( ITweet testTweet, List<ITweet> tweets ) {
-		int time = Utils.parseIntDefault( testTweet.getAttribute( "time" ) );
-		int count = 0;
-
-		for ( ITweet tweet : tweets ) {
-			int tempTime = Utils.parseIntDefault( tweet.getAttribute( "time" ) );
-			if ( tempTime > time ) {
-				count++;
-			}
-		}
-
-		return count;
+	protected int countNewerTweets( ITweet testTweet, ITweetColumns columns ) {
+		return columns.countNewerThan( testTweet.getTime() );
 	}
 }
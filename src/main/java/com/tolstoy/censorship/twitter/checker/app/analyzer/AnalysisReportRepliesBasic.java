@@ -18,7 +18,6 @@ import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Set;
-import java.util.Collections;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.time.ZoneId;
@@ -101,15 +100,17 @@ class AnalysisReportRepliesBasic extends AnalysisReportBasicBase implements IAna
 		ret.setAttribute( "totalRepliesActual", "" + ret.getTotalRepliesActual() );
 
 		List<ITweet> tweets = replyPage.getTweetCollection().getTweets();
+		ITweetColumns columns = replyPage.getTweetCollection().getColumns();
 		ret.setAttribute( "_sourcetweets", summarizeTweetList( tweets ) );
 
-		int numNewerTweets = countNewerTweets( sourceTweet, tweets );
+		int numNewerTweets = countNewerTweets( sourceTweet, columns );
 		int percentNewerTweets = Utils.makePercentInt( numNewerTweets, replyPage.getNumReplies() );
 		int percentComplete = Utils.makePercentInt( tweets.size(), replyPage.getNumReplies() );
 
 		ret.setAttribute( "numNewerTweets", "" + numNewerTweets );
 		ret.setAttribute( "percentNewerTweets", "" + percentNewerTweets );
 		ret.setAttribute( "percentComplete", "" + percentComplete );
+		ret.setAttribute( "stoppedAtTarget", "" + replyPage.getStoppedAtTarget() );
 
 		ITweet foundSourceTweet = replyPage.getTweetCollection().getTweetByID( sourceTweet.getID() );
 
@@ -124,8 +125,8 @@ class AnalysisReportRepliesBasic extends AnalysisReportBasicBase implements IAna
 		}
 
 		int pageOrder = replyPage.getTweetCollection().getTweetOrderByID( sourceTweet.getID() );
-		int interactionOrder = getTweetInteractionOrder( ret, tweets, sourceTweet.getID() );
-		int dateOrder = getTweetDateOrder( ret, tweets, sourceTweet.getID() );
+		int interactionOrder = getTweetInteractionOrder( ret, tweets, columns, sourceTweet.getID() );
+		int dateOrder = getTweetDateOrder( ret, tweets, columns, sourceTweet.getID() );
 
 		int percentComparedToInteractionOrder = Utils.makePercentInt( interactionOrder - pageOrder, replyPage.getNumReplies() );
 		int percentComparedToDateOrder = Utils.makePercentInt( dateOrder - pageOrder, replyPage.getNumReplies() );
@@ -176,6 +177,7 @@ class AnalysisReportRepliesBasic extends AnalysisReportBasicBase implements IAna
 
 	protected AnalysisReportItemBasicTweetStatus getTweetNotFoundStatus( ITweet sourceTweet, int percentNewerTweets, int percentComplete,
 																			ISnapshotUserPageIndividualTweet replyPage ) {
+			//	a page that stopped at its target always has the tweet, so it never gets here
 		if ( replyPage.getComplete() ) {
 				//	tweet isn't there and replyPage is complete
 			return AnalysisReportItemBasicTweetStatus.CENSORED_NOTFOUND;
@@ -191,24 +193,22 @@ class AnalysisReportRepliesBasic extends AnalysisReportBasicBase implements IAna
 		}
 	}
 
-	protected int getTweetDateOrder( AnalysisReportRepliesItemBasic ret, List<ITweet> tweets, long tweetID ) {
-		List<ITweet> tempList = new ArrayList<ITweet>( tweets );
+			//	same order as sorting with TweetDateComparator ASC
+	protected int getTweetDateOrder( AnalysisReportRepliesItemBasic ret, List<ITweet> tweets, ITweetColumns columns, long tweetID ) {
+		int[] positions = columns.getPositionsByDate();
 
-		Collections.sort( tempList, new TweetDateComparator( TweetComparatorDirection.ASC ) );
+		ret.setAttribute( "tweetsInDateOrder", summarizeTweetList( tweets, positions ) );
 
-		ret.setAttribute( "tweetsInDateOrder", summarizeTweetList( tempList ) );
-
-		return getTweetOrder( tempList, tweetID );
+		return columns.getOrder( positions, tweetID );
 	}
 
-	protected int getTweetInteractionOrder( AnalysisReportRepliesItemBasic ret, List<ITweet> tweets, long tweetID ) {
-		List<ITweet> tempList = new ArrayList<ITweet>( tweets );
-
-		Collections.sort( tempList, new TweetInteractionComparator( BOOST_REPLIES, BOOST_RETWEETS, BOOST_FAVORITES, TweetComparatorDirection.DESC ) );
+			//	same order as sorting with TweetInteractionComparator DESC
+	protected int getTweetInteractionOrder( AnalysisReportRepliesItemBasic ret, List<ITweet> tweets, ITweetColumns columns, long tweetID ) {
+		int[] positions = columns.getPositionsByInteraction( BOOST_REPLIES, BOOST_RETWEETS, BOOST_FAVORITES );
 
-		ret.setAttribute( "tweetsInInteractionOrder", summarizeTweetList( tempList ) );
+		ret.setAttribute( "tweetsInInteractionOrder", summarizeTweetList( tweets, positions ) );
 
-		return getTweetOrder( tempList, tweetID );
+		return columns.getOrder( positions, tweetID );
 	}
 
 	@Override
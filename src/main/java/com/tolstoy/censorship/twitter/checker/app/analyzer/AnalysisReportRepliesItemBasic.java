@@ -36,7 +36,7 @@ class AnalysisReportRepliesItemBasic implements IAnalysisReportRepliesItemBasic
 	private AnalysisReportItemBasicTweetStatus status;
 	private Map<String,String> attributes;
 	private int totalReplies, totalRepliesActual, rank, expectedRankByInteraction, expectedRankByDate, expectedRankByOverallRanking;
-	private boolean isComplete;
+	private boolean isComplete, stoppedAtTarget;
 
 	AnalysisReportRepliesItemBasic( ITweetFactory tweetFactory, ITweet sourceTweet, IReplyThread replyThread ) {
 		this.tweetFactory = tweetFactory;
@@ -46,6 +46,7 @@ class AnalysisReportRepliesItemBasic implements IAnalysisReportRepliesItemBasic
 		this.totalReplies = replyThread.getReplyPage().getNumReplies();
 		this.totalRepliesActual = replyThread.getReplyPage().getTweetCollection().getTweets().size();
 		this.isComplete = replyThread.getReplyPage().getComplete();
+		this.stoppedAtTarget = replyThread.getReplyPage().getStoppedAtTarget();
 
 		this.status = AnalysisReportItemBasicTweetStatus.UNKNOWN;
 		this.rank = 0;
@@ -88,6 +89,11 @@ class AnalysisReportRepliesItemBasic implements IAnalysisReportRepliesItemBasic
 		return isComplete;
 	}
 
+	@Override
+	public boolean getListStoppedAtTarget() {
+		return stoppedAtTarget;
+	}
+
 	@Override
 	public int getRank() {
 		return rank;
@@ -197,6 +203,7 @@ class AnalysisReportRepliesItemBasic implements IAnalysisReportRepliesItemBasic
 		.append( "totalReplies", totalReplies )
 		.append( "totalRepliesActual", totalRepliesActual )
 		.append( "isComplete", isComplete )
+		.append( "stoppedAtTarget", stoppedAtTarget )
 		.append( "rank", rank )
 		.append( "expectedRankByInteraction", expectedRankByInteraction )
 		.append( "expectedRankByDate", expectedRankByDate )
@@ -56,8 +56,8 @@ class AnalysisReportTimelineBasic extends AnalysisReportBasicBase implements IAn
 	private static class ReportItemComparator implements Comparator<IAnalysisReportTimelineItemBasic>, Serializable {
 		@Override
 		public int compare( IAnalysisReportTimelineItemBasic a, IAnalysisReportTimelineItemBasic b ) {
-			int dateA = Utils.parseIntDefault( a.getSourceTweet().getAttribute( "time" ) );
-			int dateB = Utils.parseIntDefault( b.getSourceTweet().getAttribute( "time" ) );
+			int dateA = a.getSourceTweet().getTime();
+			int dateB = b.getSourceTweet().getTime();
 
 			return dateB - dateA;
 		}
@@ -105,6 +105,7 @@ class AnalysisReportTimelineBasic extends AnalysisReportBasicBase implements IAn
 		AnalysisReportTimelineItemBasic ret = new AnalysisReportTimelineItemBasic( getTweetFactory(), sourceTweet, individualPage );
 
 		List<ITweet> replyTweets = individualPage.getTweetCollection().getTweets();
+		ITweetColumns columns = individualPage.getTweetCollection().getColumns();
 		ret.setAttribute( "_sourcetweets", summarizeTweetList( replyTweets ) );
 
 		IAnalyzedTweet analyzedSourceTweet = getAnalysisReportFactory().makeAnalyzedTweet( sourceTweet, 0, null );
@@ -116,7 +117,7 @@ class AnalysisReportTimelineBasic extends AnalysisReportBasicBase implements IAn
 			order++;
 		}
 
-		setDateOrders( analyzedReplies );
+		setDateOrders( analyzedReplies, columns );
 
 		tweetRanker.rankTweets( analyzedReplies, analyzedSourceTweet );
 
@@ -126,6 +127,7 @@ class AnalysisReportTimelineBasic extends AnalysisReportBasicBase implements IAn
 
 			//	Now, each IAnalyzedTweet in analyzedReplies has the original order as it appeared in the page,
 			//	plus a date order and a ranking order. They're ordered by ranking in analyzedReplies.
+			//	The original order is also the tweet's position in columns, plus one.
 
 		List<IAnalyzedTweet> anomalousElevatedTweets = new ArrayList<IAnalyzedTweet>();
 		List<IAnalyzedTweet> anomalousSuppressedOrHiddenTweets = new ArrayList<IAnalyzedTweet>();
@@ -134,7 +136,7 @@ class AnalysisReportTimelineBasic extends AnalysisReportBasicBase implements IAn
 			//	 "suppressed" = not hidden, but lower than expected in the list based on date and ranking
 		int numSuppressed = 0;
 		for ( IAnalyzedTweet analyzedReply : analyzedReplies ) {
-			if ( !analyzedReply.getTweet().getSupposedQuality().getCensored() &&
+			if ( !columns.isCensored( analyzedReply.getOriginalOrder() - 1 ) &&
 					analyzedReply.getOriginalOrder() > analyzedReply.getRankingOrder() &&
 					analyzedReply.getOriginalOrder() > analyzedReply.getDateOrder() ) {
 				numSuppressed++;
@@ -146,7 +148,7 @@ class AnalysisReportTimelineBasic extends AnalysisReportBasicBase implements IAn
 			//	be removed from this list
 		int numHidden = 0;
 		for ( IAnalyzedTweet analyzedReply : analyzedReplies ) {
-			if ( analyzedReply.getTweet().getSupposedQuality().getCensored() ) {
+			if ( columns.isCensored( analyzedReply.getOriginalOrder() - 1 ) ) {
 				hiddenTweets.add( analyzedReply );
 				numHidden++;
 			}
@@ -165,7 +167,7 @@ class AnalysisReportTimelineBasic extends AnalysisReportBasicBase implements IAn
 				//	anomalousSuppressedOrHiddenTweets from the hiddenTweets list.
 			for ( int which = 0; which < upperSectionCutoff; which++ ) {
 				IAnalyzedTweet analyzedReply = analyzedReplies.get( which );
-				boolean bIsLowQuality = analyzedReply.getTweet().getSupposedQuality().getCensored();
+				boolean bIsLowQuality = columns.isCensored( analyzedReply.getOriginalOrder() - 1 );
 				if ( bIsLowQuality || analyzedReply.getOriginalOrder() >= lowerSectionCutoff ) {
 					anomalousSuppressedOrHiddenTweets.add( analyzedReply );
 
@@ -179,7 +181,7 @@ class AnalysisReportTimelineBasic extends AnalysisReportBasicBase implements IAn
 				//	Add tweets if they were in the top third of the original list & they aren't hidden.
 			for ( int which = numReplies - 1; which > lowerSectionCutoff; which-- ) {
 				IAnalyzedTweet analyzedReply = analyzedReplies.get( which );
-				if ( !analyzedReply.getTweet().getSupposedQuality().getCensored() && analyzedReply.getOriginalOrder() <= upperSectionCutoff ) {
+				if ( !columns.isCensored( analyzedReply.getOriginalOrder() - 1 ) && analyzedReply.getOriginalOrder() <= upperSectionCutoff ) {
 					anomalousElevatedTweets.add( analyzedReply );
 				}
 			}
@@ -244,16 +246,13 @@ class AnalysisReportTimelineBasic extends AnalysisReportBasicBase implements IAn
 		return reportItems;
 	}
 
-	protected List<IAnalyzedTweet> setDateOrders( List<IAnalyzedTweet> analyzedTweets ) {
-		List<IAnalyzedTweet> temp = new ArrayList<IAnalyzedTweet>( analyzedTweets );
-		Collections.sort( temp, new AnalyzedTweetDateComparator( AnalyzedTweetComparatorDirection.ASC ) );
-		int dateOrder = 1;
-		for ( IAnalyzedTweet analyzedTweet : temp ) {
-			analyzedTweet.setDateOrder( dateOrder );
-			dateOrder++;
-		}
+			//	analyzedTweets must be in page order, one for each tweet in columns
+	protected void setDateOrders( List<IAnalyzedTweet> analyzedTweets, ITweetColumns columns ) {
+		int[] positions = columns.getPositionsByDate();
 
-		return temp;
+		for ( int i = 0; i < positions.length; i++ ) {
+			analyzedTweets.get( positions[ i ] ).setDateOrder( i + 1 );
+		}
 	}
 
 	protected List<IAnalyzedTweet> setRankingOrders( List<IAnalyzedTweet> analyzedTweets ) {
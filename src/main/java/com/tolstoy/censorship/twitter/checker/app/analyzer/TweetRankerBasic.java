@@ -19,7 +19,6 @@ import java.text.DecimalFormat;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import com.tolstoy.basic.api.tweet.ITweet;
-import com.tolstoy.basic.app.utils.Utils;
 import com.tolstoy.censorship.twitter.checker.api.analyzer.ITweetRanker;
 import com.tolstoy.censorship.twitter.checker.api.analyzer.IAnalyzedTweet;
 
@@ -163,9 +162,9 @@ class TweetRankerBasic implements ITweetRanker {
 		analyzedTweet.setAttribute( "rank_numword", decimalFormat.format( temp ) );
 		ranking += temp;
 
-		double numReplies = (double) Utils.parseIntDefault( analyzedTweet.getTweet().getAttribute( "replycount" ) );
-		double numRetweets = (double) Utils.parseIntDefault( analyzedTweet.getTweet().getAttribute( "retweetcount" ) );
-		double numFavorites = (double) Utils.parseIntDefault( analyzedTweet.getTweet().getAttribute( "favoritecount" ) );
+		double numReplies = (double) analyzedTweet.getTweet().getReplyCount();
+		double numRetweets = (double) analyzedTweet.getTweet().getRetweetCount();
+		double numFavorites = (double) analyzedTweet.getTweet().getFavoriteCount();
 
 		temp = ( BOOST_REPLIES * numReplies ) + ( BOOST_RETWEETS * numRetweets ) + ( BOOST_FAVORITES * numFavorites );
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.helpers;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import com.tolstoy.basic.api.statusmessage.*;
+
+/**
+ * Holds the messages sent from worker threads until the thread that owns
+ * the real receiver passes them on with drainTo.
+ */
+class QueuedStatusMessageReceiver implements IStatusMessageReceiver {
+		//	stands for a call to clearMessages, as the queue can't hold null
+	private static final StatusMessage CLEAR = new StatusMessage( "", StatusMessageSeverity.INFO );
+
+	private final ConcurrentLinkedQueue<StatusMessage> messages;
+
+	QueuedStatusMessageReceiver() {
+		this.messages = new ConcurrentLinkedQueue<StatusMessage>();
+	}
+
+	@Override
+	public void addMessage( StatusMessage message ) {
+		messages.add( message );
+	}
+
+	@Override
+	public void clearMessages() {
+		messages.add( CLEAR );
+	}
+
+	/**
+	 * Passes on the messages queued so far, in order.
+	 */
+	void drainTo( IStatusMessageReceiver receiver ) {
+		StatusMessage message;
+
+		while ( ( message = messages.poll() ) != null ) {
+			if ( message == CLEAR ) {
+				receiver.clearMessages();
+			}
+			else {
+				receiver.addMessage( message );
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.helpers;
+
+import com.tolstoy.censorship.twitter.checker.api.analyzer.*;
+import com.tolstoy.censorship.twitter.checker.api.searchrun.*;
+
+/**
+ * Makes the reports for a search run. The replies report for the most
+ * recent search run is kept, so the processors that share a maker can ask
+ * for it in any order and the analysis is only run once.
+ */
+public class RepliesReportMaker {
+	private IAnalysisReportFactory analysisReportFactory;
+	private ISearchRunReplies lastSearchRun;
+	private IAnalysisReportRepliesBasic lastRepliesReport;
+
+	public RepliesReportMaker( IAnalysisReportFactory analysisReportFactory ) {
+		this.analysisReportFactory = analysisReportFactory;
+		this.lastSearchRun = null;
+		this.lastRepliesReport = null;
+	}
+
+	public ITweetRanker makeTweetRanker() {
+		ITweetRanker tweetRanker = analysisReportFactory.makeTweetRankerJavascript();
+		if ( tweetRanker == null ) {
+			tweetRanker = analysisReportFactory.makeTweetRankerBasic();
+		}
+
+		return tweetRanker;
+	}
+
+	/**
+	 * Returns the replies report for the search run, running the
+	 * analysis if it hasn't been run for this search run yet.
+	 */
+	public synchronized IAnalysisReportRepliesBasic getRepliesReport( ISearchRunReplies searchRun ) throws Exception {
+		if ( searchRun == lastSearchRun && lastRepliesReport != null ) {
+			return lastRepliesReport;
+		}
+
+		IAnalysisReportRepliesBasic report = analysisReportFactory.makeAnalysisReportRepliesBasic( searchRun, makeTweetRanker() );
+
+		report.run();
+
+		lastSearchRun = searchRun;
+		lastRepliesReport = report;
+
+		return report;
+	}
+
+	public IAnalysisReportTimelineBasic makeTimelineReport( ISearchRunTimeline searchRun ) throws Exception {
+		IAnalysisReportTimelineBasic report = analysisReportFactory.makeAnalysisReportTimelineBasic( searchRun, makeTweetRanker() );
+
+		report.run();
+
+		return report;
+	}
+}
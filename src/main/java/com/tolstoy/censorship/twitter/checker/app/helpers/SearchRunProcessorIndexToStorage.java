@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.helpers;
+
+import java.util.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.statusmessage.*;
+import com.tolstoy.basic.api.storage.IStorage;
+import com.tolstoy.basic.api.utils.IResourceBundleWithFormatting;
+import com.tolstoy.censorship.twitter.checker.api.analyzer.*;
+import com.tolstoy.censorship.twitter.checker.api.preferences.IPreferences;
+import com.tolstoy.censorship.twitter.checker.api.searchrun.*;
+import com.tolstoy.censorship.twitter.checker.api.storage.ITweetIndex;
+
+/**
+ * Adds the search run to the normalized tweet index. Must come after
+ * SearchRunProcessorInsertNewToStorage, since the index refers to the
+ * search run's ID. If the storage hasn't written the search run yet this
+ * waits for it, so it's best placed after the other processors.
+ *
+ * The report items come from the replies report for the search run, which
+ * is made by the RepliesReportMaker if no other processor sharing it has
+ * made it yet. Timeline runs have no report items.
+ */
+public class SearchRunProcessorIndexToStorage implements ISearchRunProcessor {
+	private static final Logger logger = LogManager.getLogger( SearchRunProcessorIndexToStorage.class );
+
+	private IResourceBundleWithFormatting bundle;
+	private IPreferences prefs;
+	private IStorage storage;
+	private ITweetIndex tweetIndex;
+	private RepliesReportMaker reportMaker;
+
+	public SearchRunProcessorIndexToStorage( IResourceBundleWithFormatting bundle, IPreferences prefs, IStorage storage, ITweetIndex tweetIndex,
+												RepliesReportMaker reportMaker ) {
+		this.bundle = bundle;
+		this.prefs = prefs;
+		this.storage = storage;
+		this.tweetIndex = tweetIndex;
+		this.reportMaker = reportMaker;
+	}
+
+	@Override
+	public ISearchRun process( ISearchRun searchRun, IStatusMessageReceiver statusMessageReceiver ) throws Exception {
+		IAnalysisReportRepliesBasic report = null;
+
+		if ( searchRun instanceof ISearchRunReplies ) {
+			report = reportMaker.getRepliesReport( (ISearchRunReplies) searchRun );
+		}
+
+		if ( searchRun.getID() == 0 ) {
+			storage.flush();
+		}
+
+		if ( searchRun.getID() == 0 ) {
+			throw new IllegalStateException( "search run was not written to storage" );
+		}
+
+		tweetIndex.indexSearchRun( searchRun, report );
+
+		statusMessageReceiver.addMessage( new StatusMessage( "Indexed search run", StatusMessageSeverity.INFO ) );
+
+		return searchRun;
+	}
+
+	@Override
+	public String getDescription() {
+		return bundle.getString( "srp_index_to_storage" );
+	}
+}
@@ -40,9 +40,20 @@ public class SearchRunProcessorInsertNewToStorage implements ISearchRunProcessor
 
 	@Override
 	public ISearchRun process( ISearchRun searchRun, IStatusMessageReceiver statusMessageReceiver ) throws Exception {
-		storage.saveRecord( StorageTable.SEARCHRUN, (IStorable) searchRun );
+			//	the storage may write in the background, so this only queues the search run
+		storage.saveRecord( StorageTable.SEARCHRUN, (IStorable) searchRun, new IStorageWriteListener() {
+			@Override
+			public void recordWritten( IStorageTable table, IStorable record ) {
+				logger.info( "wrote search run " + record.getID() + " to storage" );
+			}
 
-		statusMessageReceiver.addMessage( new StatusMessage( "Wrote search run to storage", StatusMessageSeverity.INFO ) );
+			@Override
+			public void recordFailed( IStorageTable table, IStorable record, Exception e ) {
+				logger.error( "failed to write search run to storage", e );
+			}
+		} );
+
+		statusMessageReceiver.addMessage( new StatusMessage( "Saved search run to storage", StatusMessageSeverity.INFO ) );
 
 		return searchRun;
 	}
@@ -14,6 +14,10 @@
 package com.tolstoy.censorship.twitter.checker.app.helpers;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
 import java.util.List;
 import java.time.Instant;
@@ -21,9 +25,11 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
@@ -52,21 +58,29 @@ public class SearchRunProcessorUploadDataJson implements ISearchRunProcessor {
 		}
 
 		CloseableHttpClient client = null;
+		File form = null;
 
 		try {
 			client = HttpClients.createDefault();
 			HttpPost httpPost = new HttpPost( prefs.getValue( "search_run_upload_data.upload_url" ) );
 
-			String json = Utils.getDefaultObjectMapper().writeValueAsString( searchRun );
-
 			List <NameValuePair> nameValuePairs = new ArrayList <NameValuePair>();
 
-			nameValuePairs.add( new BasicNameValuePair( "json", json ) );
 			nameValuePairs.add( new BasicNameValuePair( "upload_results", prefs.getValue( "prefs.upload_results" ) ) );
 			nameValuePairs.add( new BasicNameValuePair( "make_results_public", prefs.getValue( "prefs.make_results_public" ) ) );
 			nameValuePairs.add( new BasicNameValuePair( "user_email", prefs.getValue( "prefs.user_email" ) ) );
 
-			httpPost.setEntity( new UrlEncodedFormEntity( nameValuePairs ) );
+			form = createPrivateTempFile();
+
+			OutputStream out = new FileOutputStream( form );
+			try {
+				writeForm( searchRun, nameValuePairs, out );
+			}
+			finally {
+				out.close();
+			}
+
+			httpPost.setEntity( new FileEntity( form, ContentType.APPLICATION_FORM_URLENCODED.withCharset( StandardCharsets.UTF_8 ) ) );
 
 			CloseableHttpResponse response = client.execute( httpPost );
 
@@ -82,6 +96,9 @@ public class SearchRunProcessorUploadDataJson implements ISearchRunProcessor {
 			if ( client != null ) {
 				client.close();
 			}
+			if ( form != null && !form.delete() ) {
+				logger.warn( "could not delete " + form );
+			}
 		}
 
 		return searchRun;
@@ -91,4 +108,78 @@ public class SearchRunProcessorUploadDataJson implements ISearchRunProcessor {
 	public String getDescription() {
 		return bundle.getString( "srp_upload_data" );
 	}
+
+	/**
+	 * The form holds the user's email address, so the file is only readable
+	 * by its owner where the file system supports that.
+	 */
+	private static File createPrivateTempFile() throws IOException {
+		if ( FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" ) ) {
+			return Files.createTempFile( "upload", ".form",
+											PosixFilePermissions.asFileAttribute( PosixFilePermissions.fromString( "rw-------" ) ) ).toFile();
+		}
+
+		File ret = Files.createTempFile( "upload", ".form" ).toFile();
+		ret.setReadable( false, false );
+		ret.setReadable( true, true );
+		ret.setWritable( false, false );
+		ret.setWritable( true, true );
+
+		return ret;
+	}
+
+	/**
+	 * Writes the form with the search run as its "json" field. The JSON is
+	 * url-encoded as it's written, so the whole search run is never held as
+	 * a String. The form goes to a temporary file rather than straight into
+	 * the request, so that the request has a Content-Length: some servers
+	 * refuse chunked request bodies.
+	 */
+	private static void writeForm( ISearchRun searchRun, List<NameValuePair> nameValuePairs, OutputStream target ) throws IOException {
+		OutputStream out = new BufferedOutputStream( target );
+
+		out.write( "json=".getBytes( StandardCharsets.US_ASCII ) );
+
+		Utils.writeJson( searchRun, new FormEncodingOutputStream( out ) );
+
+		out.write( '&' );
+		out.write( URLEncodedUtils.format( nameValuePairs, StandardCharsets.UTF_8 ).getBytes( StandardCharsets.US_ASCII ) );
+		out.flush();
+	}
+
+	/**
+	 * Encodes bytes the way application/x-www-form-urlencoded does.
+	 */
+	private static class FormEncodingOutputStream extends FilterOutputStream {
+		private static final byte[] HEX = "0123456789ABCDEF".getBytes( StandardCharsets.US_ASCII );
+
+		FormEncodingOutputStream( OutputStream out ) {
+			super( out );
+		}
+
+		@Override
+		public void write( int b ) throws IOException {
+			b &= 0xFF;
+
+			if ( ( b >= 'a' && b <= 'z' ) || ( b >= 'A' && b <= 'Z' ) || ( b >= '0' && b <= '9' ) ||
+					b == '-' || b == '_' || b == '.' || b == '*' ) {
+				out.write( b );
+			}
+			else if ( b == ' ' ) {
+				out.write( '+' );
+			}
+			else {
+				out.write( '%' );
+				out.write( HEX[ b >> 4 ] );
+				out.write( HEX[ b & 0x0F ] );
+			}
+		}
+
+		@Override
+		public void write( byte[] b, int off, int len ) throws IOException {
+			for ( int i = off; i < off + len; i++ ) {
+				write( b[ i ] );
+			}
+		}
+	}
 }
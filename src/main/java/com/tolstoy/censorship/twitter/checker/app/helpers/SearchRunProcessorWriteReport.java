@@ -30,33 +30,27 @@ public class SearchRunProcessorWriteReport implements ISearchRunProcessor {
 	private IResourceBundleWithFormatting bundle;
 	private IPreferences prefs;
 	private IAppDirectories appDirectories;
-	private IAnalysisReportFactory analysisReportFactory;
+	private RepliesReportMaker reportMaker;
 	private boolean debugFlag;
 
 	public SearchRunProcessorWriteReport( IResourceBundleWithFormatting bundle, IPreferences prefs, IAppDirectories appDirectories,
 													IAnalysisReportFactory analysisReportFactory, boolean debugFlag ) {
+		this( bundle, prefs, appDirectories, new RepliesReportMaker( analysisReportFactory ), debugFlag );
+	}
+
+	public SearchRunProcessorWriteReport( IResourceBundleWithFormatting bundle, IPreferences prefs, IAppDirectories appDirectories,
+													RepliesReportMaker reportMaker, boolean debugFlag ) {
 		this.bundle = bundle;
 		this.prefs = prefs;
 		this.appDirectories = appDirectories;
-		this.analysisReportFactory = analysisReportFactory;
+		this.reportMaker = reportMaker;
 		this.debugFlag = debugFlag;
 	}
 
 	@Override
 	public ISearchRun process( ISearchRun searchRun, IStatusMessageReceiver statusMessageReceiver ) throws Exception {
-		ITweetRanker tweetRanker;
-
-		tweetRanker = analysisReportFactory.makeTweetRankerJavascript();
-		if ( tweetRanker == null ) {
-			tweetRanker = analysisReportFactory.makeTweetRankerBasic();
-		}
-
 		if ( searchRun instanceof ISearchRunReplies ) {
-			IAnalysisReportRepliesBasic basicRepliesReport;
-
-			basicRepliesReport = analysisReportFactory.makeAnalysisReportRepliesBasic( (ISearchRunReplies) searchRun, tweetRanker );
-
-			basicRepliesReport.run();
+			IAnalysisReportRepliesBasic basicRepliesReport = reportMaker.getRepliesReport( (ISearchRunReplies) searchRun );
 
 			ReportWriterRepliesBasic reportWriterReplies = new ReportWriterRepliesBasic( prefs, bundle, appDirectories, true );
 
@@ -65,11 +59,7 @@ public class SearchRunProcessorWriteReport implements ISearchRunProcessor {
 			statusMessageReceiver.addMessage( new StatusMessage( "Wrote report to " + reportWriterReplies.getFilename(), StatusMessageSeverity.INFO ) );
 		}
 		else if ( searchRun instanceof ISearchRunTimeline ) {
-			IAnalysisReportTimelineBasic basicTimelineReport;
-
-			basicTimelineReport = analysisReportFactory.makeAnalysisReportTimelineBasic( (ISearchRunTimeline) searchRun, tweetRanker );
-
-			basicTimelineReport.run();
+			IAnalysisReportTimelineBasic basicTimelineReport = reportMaker.makeTimelineReport( (ISearchRunTimeline) searchRun );
 
 			ReportWriterTimelineBasic reportWriterTimeline = new ReportWriterTimelineBasic( prefs, bundle, appDirectories, true );
 
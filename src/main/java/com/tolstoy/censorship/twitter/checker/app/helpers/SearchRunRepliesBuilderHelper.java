@@ -14,6 +14,7 @@
 package com.tolstoy.censorship.twitter.checker.app.helpers;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.sql.*;
 import java.time.Instant;
 import org.openqa.selenium.WebDriver;
@@ -38,6 +39,9 @@ import com.tolstoy.basic.api.statusmessage.*;
 public class SearchRunRepliesBuilderHelper {
 	private static final Logger logger = LogManager.getLogger( SearchRunRepliesBuilderHelper.class );
 
+	private static final int MESSAGE_POLL_MILLIS = 500;
+	private static final int WORKER_SHUTDOWN_SECONDS = 120;
+
 	private IResourceBundleWithFormatting bundle;
 	private IStorage storage;
 	private IPreferencesFactory prefsFactory;
@@ -73,28 +77,173 @@ public class SearchRunRepliesBuilderHelper {
 																		List<ITweet> tweets, ITweetUser user,
 																		int numberOfReplyPagesToCheck, int maxReplies )
 																		throws Exception {
-		Map<Long,IReplyThread> replies = new HashMap<Long,IReplyThread>();
+		List<ITweet> replyTweets = new ArrayList<ITweet>();
 
 		String handle = user.getHandle();
 
 		for ( ITweet tweet : tweets ) {
 				//	if it's a reply and not a self-reply
 			if ( tweet.getRepliedToTweetID() != 0 && !handle.equals( Utils.trimDefault( tweet.getRepliedToHandle() ).toLowerCase() ) ) {
-				IReplyThread thread = getReplyThread( webDriver, webDriverUtils, tweet, user, numberOfReplyPagesToCheck );
+				replyTweets.add( tweet );
+			}
+		}
+
+		int numSessions = Math.min( Utils.parseIntDefault( prefs.getValue( "prefs.num_browser_sessions" ), 1 ),
+									Math.min( replyTweets.size(), maxReplies ) );
+
+		if ( numSessions > 1 ) {
+			return getReplyPagesParallel( webDriver, webDriverUtils, replyTweets, user,
+											numberOfReplyPagesToCheck, maxReplies, numSessions );
+		}
+
+		Map<Long,IReplyThread> replies = new HashMap<Long,IReplyThread>();
+
+		for ( ITweet tweet : replyTweets ) {
+			IReplyThread thread = getReplyThread( webDriver, webDriverUtils, tweet, user, numberOfReplyPagesToCheck );
+
+			if ( thread != null ) {
+				replies.put( tweet.getID(), thread );
+			}
 
-				if ( thread != null ) {
-					replies.put( tweet.getID(), thread );
+			if ( replies.size() >= maxReplies ) {
+				break;
+			}
+		}
+
+		return replies;
+	}
+
+	/**
+	 * Same as the sequential loop in getReplyPages, but the reply pages are loaded
+	 * by a WebDriverPool. The given WebDriver is one of the sessions.
+	 *
+	 * The reply tweets are handed out in batches no larger than the number of
+	 * replies still needed, and the results of each batch are merged in timeline
+	 * order, so the same replies are chosen as in the sequential version.
+	 *
+	 * As in the sequential version, a page that fails to load is logged and
+	 * skipped by getReplyThread. Anything else that fails in a worker, such as
+	 * the pool itself, is thrown from here, once the other workers have
+	 * stopped using their sessions.
+	 *
+	 * While the workers run, status messages are queued and passed on from
+	 * the calling thread, as the receiver may be a Swing component.
+	 */
+	Map<Long,IReplyThread> getReplyPagesParallel( WebDriver webDriver, IWebDriverUtils webDriverUtils,
+																		List<ITweet> replyTweets, final ITweetUser user,
+																		final int numberOfReplyPagesToCheck, int maxReplies,
+																		int numSessions )
+																		throws Exception {
+		Map<Long,IReplyThread> replies = new HashMap<Long,IReplyThread>();
+
+		IStatusMessageReceiver callerStatusMessageReceiver = statusMessageReceiver;
+		QueuedStatusMessageReceiver queuedStatusMessageReceiver = new QueuedStatusMessageReceiver();
+		statusMessageReceiver = queuedStatusMessageReceiver;
+
+		final WebDriverPool pool = new WebDriverPool( webDriverFactory, prefs, bundle, queuedStatusMessageReceiver );
+		pool.addSession( webDriver, webDriverUtils );
+
+		ExecutorService executor = null;
+
+		try {
+			logInfo( bundle.getString( "srb_opening_sessions", numSessions - 1 ) );
+			pool.open( numSessions - 1 );
+			queuedStatusMessageReceiver.drainTo( callerStatusMessageReceiver );
+
+			executor = Executors.newFixedThreadPool( pool.getSize() );
+
+			int next = 0;
+
+			while ( next < replyTweets.size() && replies.size() < maxReplies && pool.getSize() > 0 ) {
+				int batchSize = Math.min( maxReplies - replies.size(), replyTweets.size() - next );
+
+				List<ITweet> batch = replyTweets.subList( next, next + batchSize );
+				List<Future<IReplyThread>> futures = new ArrayList<Future<IReplyThread>>( batchSize );
+
+				for ( final ITweet tweet : batch ) {
+					futures.add( executor.submit( new Callable<IReplyThread>() {
+						@Override
+						public IReplyThread call() throws Exception {
+							return getReplyThread( pool, tweet, user, numberOfReplyPagesToCheck );
+						}
+					} ) );
 				}
 
-				if ( replies.size() >= maxReplies ) {
-					break;
+				for ( int i = 0; i < batchSize; i++ ) {
+					IReplyThread thread = getAndDrainMessages( futures.get( i ), queuedStatusMessageReceiver, callerStatusMessageReceiver );
+
+					if ( thread != null && replies.size() < maxReplies ) {
+						replies.put( batch.get( i ).getID(), thread );
+					}
+				}
+
+				next += batchSize;
+			}
+		}
+		finally {
+			try {
+				if ( executor != null ) {
+					executor.shutdownNow();
+						//	closing the pool quits the sessions, so the workers must be done with them first
+					if ( !executor.awaitTermination( WORKER_SHUTDOWN_SECONDS, TimeUnit.SECONDS ) ) {
+						logger.error( "reply page workers still running after " + WORKER_SHUTDOWN_SECONDS + "s, closing the sessions anyway" );
+					}
 				}
 			}
+			finally {
+				pool.close();
+				statusMessageReceiver = callerStatusMessageReceiver;
+				queuedStatusMessageReceiver.drainTo( callerStatusMessageReceiver );
+			}
 		}
 
 		return replies;
 	}
 
+	/**
+	 * Waits for the future, passing on the queued status messages while it does.
+	 */
+	private <T> T getAndDrainMessages( Future<T> future, QueuedStatusMessageReceiver queued, IStatusMessageReceiver receiver )
+											throws InterruptedException, ExecutionException {
+		while ( true ) {
+			queued.drainTo( receiver );
+
+			try {
+				return future.get( MESSAGE_POLL_MILLIS, TimeUnit.MILLISECONDS );
+			}
+			catch ( TimeoutException e ) {
+			}
+		}
+	}
+
+	/**
+	 * Leases a session from the pool and calls getReplyThread with it. If the call
+	 * fails and the session's browser no longer answers, the session is discarded.
+	 */
+	IReplyThread getReplyThread( WebDriverPool pool, ITweet sourceTweet, ITweetUser user, int numberOfReplyPagesToCheck )
+											throws Exception {
+		WebDriverPool.Session session = pool.lease();
+		if ( session == null ) {
+			return null;
+		}
+
+		IReplyThread thread = null;
+
+		try {
+			thread = getReplyThread( session.getWebDriver(), session.getWebDriverUtils(), sourceTweet, user, numberOfReplyPagesToCheck );
+		}
+		finally {
+			if ( thread == null && !pool.isAlive( session ) ) {
+				pool.discard( session );
+			}
+			else {
+				pool.release( session );
+			}
+		}
+
+		return thread;
+	}
+
 	IReplyThread getReplyThread( WebDriver webDriver, IWebDriverUtils webDriverUtils, ITweet sourceTweet,
 											ITweetUser user, int numberOfReplyPagesToCheck )
 											throws Exception {
@@ -104,7 +253,8 @@ public class SearchRunRepliesBuilderHelper {
 
 		try {
 			ISnapshotUserPageIndividualTweet replyPage = getReplyPage( webDriver, webDriverUtils, sourceTweet.getRepliedToTweetID(),
-																		sourceTweet.getRepliedToHandle(), user, numberOfReplyPagesToCheck );
+																		sourceTweet.getRepliedToHandle(), user, numberOfReplyPagesToCheck,
+																		sourceTweet.getID() );
 
 			IReplyThread defaultReplyThread = snapshotFactory.makeReplyThread( ReplyThreadType.DIRECT,
 																				sourceTweet,
@@ -113,7 +263,7 @@ public class SearchRunRepliesBuilderHelper {
 																				null );
 
 				//	don't bother loading another page to look for the user's reply if:
-				//		we found the user's reply, or
+				//		we found the user's reply (in which case scrolling may have stopped early), or
 				//		we didn't get all the tweets.
 				//	in the second case it might be further down or it might not be; the user
 				//	will have to increase numberOfReplyPagesToCheck to find out.
@@ -144,8 +294,14 @@ public class SearchRunRepliesBuilderHelper {
 		}
 	}
 
+	/**
+	 * Loads the individual page for tweetID. If targetTweetID isn't 0 and
+	 * webdriver.reply_target_tail_tweets is set, scrolling stops once the target
+	 * tweet and that many tweets after it have been read.
+	 */
 	ISnapshotUserPageIndividualTweet getReplyPage( WebDriver webDriver, IWebDriverUtils webDriverUtils,
-																long tweetID, String userInURL, ITweetUser user, int numberOfReplyPagesToCheck )
+																long tweetID, String userInURL, ITweetUser user, int numberOfReplyPagesToCheck,
+																long targetTweetID )
 																throws Exception {
 		ISnapshotUserPageIndividualTweet replyPage;
 		IInfiniteScrollingActivator scroller;
@@ -166,13 +322,20 @@ public class SearchRunRepliesBuilderHelper {
 																	webDriverUtils,
 																	InfiniteScrollingActivatorType.INDIVIDUAL );
 
+		int numberOfTweetsAfterTarget = Utils.parseIntDefault( prefs.getValue( "webdriver.reply_target_tail_tweets" ), -1 );
+		if ( numberOfTweetsAfterTarget < 0 ) {
+			targetTweetID = 0;
+		}
+
 		try {
 			replyPage = webDriverFactory.makeSnapshotUserPageIndividualTweetFromURL( webDriver,
 																						webDriverUtils,
 																						scroller,
 																						url,
 																						numberOfReplyPagesToCheck,
-																						0 );
+																						0,
+																						targetTweetID,
+																						Math.max( numberOfTweetsAfterTarget, 0 ) );
 			logInfo( bundle.getString( "srb_loaded_replypage", replyPage.getTweetCollection().getTweets().size(), url ) );
 		}
 		catch ( Exception e ) {
@@ -235,7 +398,8 @@ public class SearchRunRepliesBuilderHelper {
 			logger.info( bundle.getString( "srb_userreply_switched", sourceTweet.getSummary(), actualTweet.getSummary() ) );
 
 			ISnapshotUserPageIndividualTweet replyPage = getReplyPage( webDriver, webDriverUtils, actualTweet.getID(),
-																		actualTweet.getUser().getHandle(), user, numberOfReplyPagesToCheck );
+																		actualTweet.getUser().getHandle(), user, numberOfReplyPagesToCheck,
+																		sourceTweet.getID() );
 
 			return snapshotFactory.makeReplyThread( ReplyThreadType.INDIRECT,
 													sourceTweet,
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.helpers;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.Point;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.utils.*;
+import com.tolstoy.basic.app.utils.Utils;
+import com.tolstoy.censorship.twitter.checker.api.preferences.*;
+import com.tolstoy.censorship.twitter.checker.api.webdriver.*;
+import com.tolstoy.basic.api.statusmessage.*;
+
+/**
+ * A fixed set of WebDriver sessions that can be leased by worker threads.
+ *
+ * Each session is created with IWebDriverFactory.makeWebDriver and, if a
+ * testing account is set in the preferences, logged in with LoginToSite.
+ * A session that was handed to the pool with addSession (for instance, the
+ * builder's own WebDriver) is used like the others but is not closed by
+ * the pool.
+ *
+ * A session that stops responding can be discarded; the pool then tries to
+ * open a replacement. If that fails the pool just gets smaller.
+ */
+public class WebDriverPool {
+	private static final Logger logger = LogManager.getLogger( WebDriverPool.class );
+
+	private static final int LEASE_POLL_SECONDS = 5;
+
+	private IWebDriverFactory webDriverFactory;
+	private IPreferences prefs;
+	private IResourceBundleWithFormatting bundle;
+	private IStatusMessageReceiver statusMessageReceiver;
+	private BlockingQueue<Session> idleSessions;
+	private List<Session> sessions;
+
+	public static class Session {
+		private WebDriver webDriver;
+		private IWebDriverUtils webDriverUtils;
+		private boolean owned;
+
+		Session( WebDriver webDriver, IWebDriverUtils webDriverUtils, boolean owned ) {
+			this.webDriver = webDriver;
+			this.webDriverUtils = webDriverUtils;
+			this.owned = owned;
+		}
+
+		public WebDriver getWebDriver() {
+			return webDriver;
+		}
+
+		public IWebDriverUtils getWebDriverUtils() {
+			return webDriverUtils;
+		}
+
+		boolean isOwned() {
+			return owned;
+		}
+	}
+
+	public WebDriverPool( IWebDriverFactory webDriverFactory,
+							IPreferences prefs,
+							IResourceBundleWithFormatting bundle,
+							IStatusMessageReceiver statusMessageReceiver ) {
+		this.webDriverFactory = webDriverFactory;
+		this.prefs = prefs;
+		this.bundle = bundle;
+		this.statusMessageReceiver = statusMessageReceiver;
+		this.idleSessions = new LinkedBlockingQueue<Session>();
+		this.sessions = new ArrayList<Session>();
+	}
+
+	/**
+	 * Adds an existing, already logged in WebDriver. The pool will not close it.
+	 */
+	public void addSession( WebDriver webDriver, IWebDriverUtils webDriverUtils ) {
+		addSessionInternal( new Session( webDriver, webDriverUtils, false ) );
+	}
+
+	/**
+	 * Opens up to the given number of new sessions. Sessions that can't be
+	 * opened are logged and skipped.
+	 * @return the number of sessions that were opened
+	 */
+	public int open( int numSessions ) {
+		int numOpened = 0;
+
+		for ( int i = 0; i < numSessions; i++ ) {
+			Session session = openSession();
+			if ( session != null ) {
+				addSessionInternal( session );
+				numOpened++;
+			}
+		}
+
+		return numOpened;
+	}
+
+	public int getSize() {
+		synchronized ( sessions ) {
+			return sessions.size();
+		}
+	}
+
+	/**
+	 * Waits for an idle session.
+	 * @return the session, or null if the pool has no sessions left
+	 */
+	public Session lease() throws InterruptedException {
+		while ( getSize() > 0 ) {
+			Session session = idleSessions.poll( LEASE_POLL_SECONDS, TimeUnit.SECONDS );
+			if ( session != null ) {
+				return session;
+			}
+		}
+
+		return null;
+	}
+
+	public void release( Session session ) {
+		if ( session != null ) {
+			idleSessions.offer( session );
+		}
+	}
+
+	/**
+	 * Returns true if the session's browser still answers.
+	 */
+	public boolean isAlive( Session session ) {
+		try {
+			session.getWebDriver().getWindowHandle();
+			return true;
+		}
+		catch ( Exception e ) {
+			return false;
+		}
+	}
+
+	/**
+	 * Removes a broken session from the pool, closing it if the pool owns it,
+	 * and tries to open a replacement.
+	 */
+	public void discard( Session session ) {
+		synchronized ( sessions ) {
+			sessions.remove( session );
+		}
+
+		logWarn( bundle.getString( "wdp_session_discarded" ) );
+
+		closeSession( session );
+
+		Session replacement = openSession();
+		if ( replacement != null ) {
+			addSessionInternal( replacement );
+		}
+	}
+
+	/**
+	 * Closes every session the pool owns.
+	 */
+	public void close() {
+		List<Session> temp;
+
+		synchronized ( sessions ) {
+			temp = new ArrayList<Session>( sessions );
+			sessions.clear();
+		}
+
+		idleSessions.clear();
+
+		for ( Session session : temp ) {
+			closeSession( session );
+		}
+	}
+
+	private void addSessionInternal( Session session ) {
+		synchronized ( sessions ) {
+			sessions.add( session );
+		}
+
+		idleSessions.offer( session );
+	}
+
+	private Session openSession() {
+		WebDriver webDriver = null;
+
+		try {
+			webDriver = webDriverFactory.makeWebDriver();
+			int positionX = Utils.parseIntDefault( prefs.getValue( "prefs.firefox_screen_position_x" ) );
+			int positionY = Utils.parseIntDefault( prefs.getValue( "prefs.firefox_screen_position_y" ) );
+			webDriver.manage().window().setPosition( new Point( positionX, positionY ) );
+
+			IWebDriverUtils webDriverUtils = webDriverFactory.makeWebDriverUtils( webDriver );
+
+			String loginName = prefs.getValue( "prefs.testing_account_name_private" );
+			String loginPassword = prefs.getValue( "prefs.testing_account_password_private" );
+
+			if ( !Utils.isEmpty( loginName ) && !Utils.isEmpty( loginPassword ) ) {
+				LoginToSite loginToSite = new LoginToSite( loginName, loginPassword, prefs );
+				loginToSite.perform( webDriver, webDriverUtils );
+			}
+
+			return new Session( webDriver, webDriverUtils, true );
+		}
+		catch ( Exception e ) {
+			logWarn( bundle.getString( "wdp_cannot_open_session", e.getMessage() ), e );
+
+			if ( webDriver != null ) {
+				try {
+					webDriver.quit();
+				}
+				catch ( Exception e2 ) {
+					logger.error( "cannot close webDriver", e2 );
+				}
+			}
+
+			return null;
+		}
+	}
+
+	private void closeSession( Session session ) {
+		if ( session == null || !session.isOwned() ) {
+			return;
+		}
+
+		try {
+			session.getWebDriver().quit();
+		}
+		catch ( Exception e ) {
+			logger.error( "cannot close webDriver", e );
+		}
+	}
+
+	private void logWarn( String s ) {
+		logger.info( s );
+		statusMessageReceiver.addMessage( new StatusMessage( s, StatusMessageSeverity.WARN ) );
+	}
+
+	private void logWarn( String s, Exception e ) {
+		logger.error( s, e );
+		statusMessageReceiver.addMessage( new StatusMessage( s, StatusMessageSeverity.WARN ) );
+	}
+}
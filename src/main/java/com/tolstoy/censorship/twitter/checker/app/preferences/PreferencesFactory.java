@@ -48,9 +48,9 @@ public class PreferencesFactory implements IPreferencesFactory {
 		}
 
 		if ( storage != null ) {
-			List<IStorable> list = storage.getRecords( StorageTable.PREFS, StorageOrdering.DESC, 1 );
-			if ( list != null && list.size() > 0 ) {
-				IStorable record = list.get( 0 );
+			List<StorageRecordHeader> headers = storage.getRecordHeaders( StorageTable.PREFS, StorageOrdering.DESC, 1 );
+			if ( headers != null && headers.size() > 0 ) {
+				IStorable record = storage.getRecordByID( StorageTable.PREFS, headers.get( 0 ).getID() );
 				if ( record != null ) {
 					appPrefs = new Preferences( storage, record.getID(), record.getCreateTime(), record.getModifyTime(),
 												( (IPreferences) record ).getValues(), defaultAppPrefs );
@@ -123,19 +123,21 @@ public class ReportWriterRepliesBasic {
 			.with( "replytweet", makeTweetReplyElement( item.getRepliedToTweet() ) )
 			.with( "sourcetweet", makeTweetSourceElement( item.getSourceTweet() ) )
 			.with( "status", makeStatusElement( item.getTweetStatus() ) )
-			.with( "rank", makeRankElement( item.getRank(), item.getTotalReplies(), item.getTotalRepliesActual(), item.getListIsComplete() ) )
+			.with( "rank", makeRankElement( item.getRank(), item.getTotalReplies(), item.getTotalRepliesActual(),
+												item.getListIsComplete(), item.getListStoppedAtTarget() ) )
 			.with( "rank_by_interaction", item.getExpectedRankByInteraction() )
 			.with( "rank_by_date", item.getExpectedRankByDate() );
 
 		return tableTemplate.render( model );
 	}
 
-	protected String makeRankElement( int rank, int totalReplies, int totalRepliesActual, boolean isComplete ) {
+	protected String makeRankElement( int rank, int totalReplies, int totalRepliesActual, boolean isComplete, boolean stoppedAtTarget ) {
 		JtwigModel model = JtwigModel.newModel()
 			.with( "rank", rank )
 			.with( "totalReplies", totalReplies )
 			.with( "totalRepliesActual", totalRepliesActual )
-			.with( "isComplete", isComplete );
+			.with( "isComplete", isComplete )
+			.with( "stoppedAtTarget", stoppedAtTarget );
 
 		return rankTemplate.render( model );
 	}
@@ -173,6 +175,6 @@ public class ReportWriterRepliesBasic {
 			.with( "handle", tweet.getUser().getHandle() )
 			.with( "link", String.format( prefs.getValue( "targetsite.pattern.individual" ), tweet.getUser().getHandle(), tweet.getID() ) )
 			.with( "dateStr", Utils.formatTimestampString( tweet.getAttribute( "time" ), "date unknown" ) )
-			.with( "text", Utils.removeNewlines( Utils.trimDefault( Utils.removeAllEmojis( tweet.getAttribute( "tweettext" ) ) ) ) );
+			.with( "text", tweet.getSanitizedText() );
 	}
 }
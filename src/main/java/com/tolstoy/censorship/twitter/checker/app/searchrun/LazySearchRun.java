@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.searchrun;
+
+import java.util.*;
+import java.time.Instant;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.censorship.twitter.checker.api.searchrun.*;
+import com.tolstoy.basic.api.storage.*;
+import com.tolstoy.basic.api.tweet.*;
+
+/**
+ * A stored search run whose SearchRun properties have been read, and whose
+ * snapshots are decoded from the payload the first time they're used.
+ *
+ * The snapshots aren't decoded one at a time: the first call to any snapshot
+ * accessor, getSourceTweetIDs included, decodes the whole run. This only
+ * saves time for callers that use no more than the SearchRun properties,
+ * such as run listings.
+ *
+ * getAttributes always returns a read-only map, decoded or not; use
+ * setAttribute to change it. Until the run is decoded the user is a copy
+ * that is replaced once it is. Any change decodes the run first.
+ */
+abstract class LazySearchRun<T extends SearchRun> implements ISearchRun, ILazyStorable {
+	private static final Logger logger = LogManager.getLogger( LazySearchRun.class );
+
+	static final Map<String,Class<?>> PROPERTY_TYPES;
+
+	static {
+		Map<String,Class<?>> map = new HashMap<String,Class<?>>();
+		map.put( "user", ITweetUser.class );
+		map.put( "attributes", Map.class );
+		map.put( "startTime", Instant.class );
+		map.put( "endTime", Instant.class );
+		map.put( "createTime", Instant.class );
+		map.put( "modifyTime", Instant.class );
+
+		PROPERTY_TYPES = Collections.unmodifiableMap( map );
+	}
+
+	private byte[] payload;
+	private final IPayloadCodec payloadCodec;
+	private final Class<T> decodedClass;
+	private final PayloadProperties properties;
+	private long id;
+	private T decoded;
+
+	LazySearchRun( byte[] payload, IPayloadCodec payloadCodec, Class<T> decodedClass, PayloadProperties properties ) {
+		this.payload = payload;
+		this.payloadCodec = payloadCodec;
+		this.decodedClass = decodedClass;
+		this.properties = properties;
+		this.id = 0;
+		this.decoded = null;
+	}
+
+	/**
+	 * Decodes the whole run the first time it's called. The payload is
+	 * dropped afterwards.
+	 */
+	protected synchronized T getDecoded() {
+		if ( decoded == null ) {
+			try {
+				decoded = decodedClass.cast( payloadCodec.decode( payload ) );
+			}
+			catch ( Exception e ) {
+				throw new RuntimeException( "cannot decode search run " + id, e );
+			}
+
+			decoded.setID( id );
+			payload = null;
+
+			logger.debug( "decoded search run " + id );
+		}
+
+		return decoded;
+	}
+
+	@Override
+	public IStorable getDecodedStorable() throws Exception {
+		return getDecoded();
+	}
+
+	@Override
+	public synchronized boolean isDecoded() {
+		return decoded != null;
+	}
+
+	@Override
+	public synchronized long getID() {
+		return id;
+	}
+
+	@Override
+	public synchronized void setID( long id ) {
+		this.id = id;
+		if ( decoded != null ) {
+			decoded.setID( id );
+		}
+	}
+
+	@Override
+	public synchronized ITweetUser getInitiatingUser() {
+		return decoded != null ? decoded.getInitiatingUser() : (ITweetUser) properties.get( "user" );
+	}
+
+	@Override
+	public void setInitiatingUser( ITweetUser user ) {
+		getDecoded().setInitiatingUser( user );
+	}
+
+	@Override
+	public synchronized Instant getStartTime() {
+		return decoded != null ? decoded.getStartTime() : (Instant) properties.get( "startTime" );
+	}
+
+	@Override
+	public void setStartTime( Instant startTime ) {
+		getDecoded().setStartTime( startTime );
+	}
+
+	@Override
+	public synchronized Instant getEndTime() {
+		return decoded != null ? decoded.getEndTime() : (Instant) properties.get( "endTime" );
+	}
+
+	@Override
+	public void setEndTime( Instant endTime ) {
+		getDecoded().setEndTime( endTime );
+	}
+
+	@Override
+	public synchronized Instant getCreateTime() {
+		return decoded != null ? decoded.getCreateTime() : (Instant) properties.get( "createTime" );
+	}
+
+	@Override
+	public synchronized Instant getModifyTime() {
+		return decoded != null ? decoded.getModifyTime() : (Instant) properties.get( "modifyTime" );
+	}
+
+	@Override
+	public String getSearchKey() {
+		ITweetUser user = getInitiatingUser();
+
+		return user != null ? user.getHandle() : "unknown";
+	}
+
+	@SuppressWarnings( "unchecked" )
+	@Override
+	public synchronized Map<String,String> getAttributes() {
+		Map<String,String> attributes = decoded != null ? decoded.getAttributes() : (Map<String,String>) properties.get( "attributes" );
+
+		return attributes != null ? Collections.unmodifiableMap( attributes ) : null;
+	}
+
+	@Override
+	public void setAttributes( Map<String,String> attributes ) {
+		getDecoded().setAttributes( attributes );
+	}
+
+	@Override
+	public String getAttribute( String key ) {
+		Map<String,String> attributes = getAttributes();
+
+		return attributes != null ? attributes.get( key ) : null;
+	}
+
+	@Override
+	public void setAttribute( String key, String value ) {
+		getDecoded().setAttribute( key, value );
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder( this )
+		.append( "id", getID() )
+		.append( "decoded", isDecoded() )
+		.append( "startTime", getStartTime() )
+		.append( "endTime", getEndTime() )
+		.append( "user", getInitiatingUser() )
+		.append( "attributes", getAttributes() )
+		.toString();
+	}
+}
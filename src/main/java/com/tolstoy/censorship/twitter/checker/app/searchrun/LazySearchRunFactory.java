@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.searchrun;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.storage.*;
+
+/**
+ * Reads stored search runs lazily: only the SearchRun properties are read
+ * up front, and the timeline and reply pages are decoded when first used.
+ * Other payloads are left to be decoded as usual.
+ */
+public class LazySearchRunFactory implements ILazyStorableFactory {
+	private static final Logger logger = LogManager.getLogger( LazySearchRunFactory.class );
+
+	public LazySearchRunFactory() {
+	}
+
+	@Override
+	public ILazyStorable makeLazyStorable( byte[] payload, IPayloadCodec payloadCodec ) throws Exception {
+		PayloadProperties properties = payloadCodec.decodeProperties( payload, LazySearchRun.PROPERTY_TYPES );
+		if ( properties == null ) {
+			return null;
+		}
+
+		if ( SearchRunReplies.class.getName().equals( properties.getClassName() ) ) {
+			return new LazySearchRunReplies( payload, payloadCodec, properties );
+		}
+		else if ( SearchRunTimeline.class.getName().equals( properties.getClassName() ) ) {
+			return new LazySearchRunTimeline( payload, payloadCodec, properties );
+		}
+		else {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.searchrun;
+
+import java.util.*;
+import com.tolstoy.censorship.twitter.checker.api.searchrun.*;
+import com.tolstoy.censorship.twitter.checker.api.snapshot.*;
+import com.tolstoy.basic.api.storage.*;
+
+class LazySearchRunReplies extends LazySearchRun<SearchRunReplies> implements ISearchRunReplies {
+	LazySearchRunReplies( byte[] payload, IPayloadCodec payloadCodec, PayloadProperties properties ) {
+		super( payload, payloadCodec, SearchRunReplies.class, properties );
+	}
+
+	@Override
+	public ISnapshotUserPageTimeline getTimeline() {
+		return getDecoded().getTimeline();
+	}
+
+	@Override
+	public void setSnapshotUserPageTimeline( ISnapshotUserPageTimeline timeline ) {
+		getDecoded().setSnapshotUserPageTimeline( timeline );
+	}
+
+	@Override
+	public Map<Long,IReplyThread> getReplies() {
+		return getDecoded().getReplies();
+	}
+
+	@Override
+	public void setReplies( Map<Long,IReplyThread> replies ) {
+		getDecoded().setReplies( replies );
+	}
+
+	@Override
+	public void setReply( long sourceTweetID, IReplyThread replyThread ) {
+		getDecoded().setReply( sourceTweetID, replyThread );
+	}
+
+	@Override
+	public Set<Long> getSourceTweetIDs() {
+		return getDecoded().getSourceTweetIDs();
+	}
+
+	@Override
+	public IReplyThread getReplyThreadBySourceTweetID( long sourceTweetID ) {
+		return getDecoded().getReplyThreadBySourceTweetID( sourceTweetID );
+	}
+}
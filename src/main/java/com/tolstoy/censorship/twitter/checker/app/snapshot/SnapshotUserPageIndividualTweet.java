@@ -43,6 +43,9 @@ class SnapshotUserPageIndividualTweet extends SnapshotUserPage implements ISnaps
 	@JsonProperty
 	private int numReplies;
 
+	@JsonProperty
+	private boolean stoppedAtTarget;
+
 	SnapshotUserPageIndividualTweet() {
 		super( "", Instant.now() );
 	}
@@ -76,6 +79,11 @@ class SnapshotUserPageIndividualTweet extends SnapshotUserPage implements ISnaps
 		return numReplies;
 	}
 
+	@Override
+	public boolean getStoppedAtTarget() {
+		return stoppedAtTarget;
+	}
+
 	@Override
 	public void setIndividualTweet( ITweet individualTweet ) {
 		this.individualTweet = individualTweet;
@@ -100,4 +108,9 @@ class SnapshotUserPageIndividualTweet extends SnapshotUserPage implements ISnaps
 	public void setNumReplies( int numReplies ) {
 		this.numReplies = numReplies;
 	}
+
+	@Override
+	public void setStoppedAtTarget( boolean stoppedAtTarget ) {
+		this.stoppedAtTarget = stoppedAtTarget;
+	}
 }
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.storage;
+
+import java.util.*;
+import java.sql.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.tweet.*;
+import com.tolstoy.basic.app.utils.Utils;
+import com.tolstoy.basic.app.storage.StorageEmbeddedDerby;
+import com.tolstoy.basic.app.storage.StorageSchemaMigrator;
+import com.tolstoy.censorship.twitter.checker.api.analyzer.*;
+import com.tolstoy.censorship.twitter.checker.api.searchrun.*;
+import com.tolstoy.censorship.twitter.checker.api.snapshot.*;
+import com.tolstoy.censorship.twitter.checker.api.storage.ITweetIndex;
+
+/**
+ * ITweetIndex kept in the same Derby database as StorageEmbeddedDerby.
+ *
+ * tweets and tweetusers hold the latest copy of each tweet and user.
+ * runtweets records each page of each run that a tweet was on, with its
+ * position and counts at the time; pagetweetid is 0 for the timeline and
+ * otherwise the ID of the individual page's tweet. In replythreads, complete
+ * means the reply page was scrolled to the end, and stoppedattarget that it
+ * stopped once the reply was found.
+ */
+public class TweetIndexDerby implements ITweetIndex {
+	private static final Logger logger = LogManager.getLogger( TweetIndexDerby.class );
+
+	private static final String[][] TABLE_DEFINITIONS = {
+		{ "tweetusers", "CREATE TABLE tweetusers( userid BIGINT NOT NULL, handle VARCHAR(255), displayname VARCHAR(255), verifiedstatus VARCHAR(32), modified TIMESTAMP," +
+			" CONSTRAINT pktweetusers PRIMARY KEY (userid) )" },
+		{ "tweets", "CREATE TABLE tweets( tweetid BIGINT NOT NULL, userid BIGINT, handle VARCHAR(255), conversationid BIGINT, repliedtotweetid BIGINT," +
+			" repliedtohandle VARCHAR(255), tweettime BIGINT, modified TIMESTAMP, CONSTRAINT pktweets PRIMARY KEY (tweetid) )" },
+		{ "runtweets", "CREATE TABLE runtweets( runid BIGINT NOT NULL, tweetid BIGINT NOT NULL, pagetweetid BIGINT NOT NULL, position INT, quality VARCHAR(32)," +
+			" replycount INT, retweetcount INT, favoritecount INT )" },
+		{ "replythreads", "CREATE TABLE replythreads( runid BIGINT NOT NULL, sourcetweetid BIGINT NOT NULL, repliedtotweetid BIGINT, threadtype VARCHAR(32)," +
+			" complete SMALLINT, numreplies INT, numrepliesactual INT )" },
+		{ "reportitems", "CREATE TABLE reportitems( runid BIGINT NOT NULL, sourcetweetid BIGINT NOT NULL, repliedtotweetid BIGINT, tweetstatus VARCHAR(32)," +
+			" tweetrank INT, expectedrankbydate INT, expectedrankbyinteraction INT, expectedrankbyoverall INT )" },
+	};
+
+	private static final String[][] INDEX_DEFINITIONS = {
+		{ "tweetusers", "ixtweetusershandle", "handle" },
+		{ "tweets", "ixtweetshandle", "handle" },
+		{ "tweets", "ixtweetsconversationid", "conversationid" },
+		{ "tweets", "ixtweetsrepliedtotweetid", "repliedtotweetid" },
+		{ "runtweets", "ixruntweetsrunid", "runid" },
+		{ "runtweets", "ixruntweetstweetid", "tweetid" },
+		{ "replythreads", "ixreplythreadsrunid", "runid" },
+		{ "replythreads", "ixreplythreadssourcetweetid", "sourcetweetid" },
+		{ "replythreads", "ixreplythreadsrepliedtotweetid", "repliedtotweetid" },
+		{ "reportitems", "ixreportitemsrunid", "runid" },
+		{ "reportitems", "ixreportitemssourcetweetid", "sourcetweetid, tweetstatus" },
+	};
+
+	private static final String[] RUN_TABLES = { "runtweets", "replythreads", "reportitems" };
+
+	private StorageEmbeddedDerby storage;
+
+	public TweetIndexDerby( StorageEmbeddedDerby storage ) {
+		this.storage = storage;
+	}
+
+	@Override
+	public void ensureTables() throws Exception {
+		StorageSchemaMigrator migrator = new StorageSchemaMigrator( "tweetindex" );
+
+		for ( String[] definition : TABLE_DEFINITIONS ) {
+			migrator.add( 1, StorageSchemaMigrator.createTable( definition[ 0 ], definition[ 1 ] ) );
+		}
+
+		for ( String[] definition : INDEX_DEFINITIONS ) {
+			migrator.add( 1, StorageSchemaMigrator.createIndex( definition[ 0 ], definition[ 1 ], definition[ 2 ] ) );
+		}
+
+		migrator.add( 2, StorageSchemaMigrator.addColumn( "replythreads", "stoppedattarget", "stoppedattarget SMALLINT DEFAULT 0" ) );
+
+		Connection connection = null;
+
+		try {
+			connection = storage.getConnection();
+			migrator.migrate( connection );
+		}
+		finally {
+			if ( connection != null ) {
+				connection.close();
+			}
+		}
+	}
+
+	@Override
+	public void indexSearchRun( ISearchRun searchRun, IAnalysisReportRepliesBasic report ) throws Exception {
+		long runID = searchRun.getID();
+		if ( runID == 0 ) {
+			throw new RuntimeException( "search run has not been saved" );
+		}
+
+		Map<Long,ITweet> tweets = new LinkedHashMap<Long,ITweet>();
+		List<Object[]> runTweetRows = new ArrayList<Object[]>();
+		List<Object[]> replyThreadRows = new ArrayList<Object[]>();
+		List<Object[]> reportItemRows = new ArrayList<Object[]>();
+
+		if ( searchRun instanceof ISearchRunReplies ) {
+			ISearchRunReplies searchRunReplies = (ISearchRunReplies) searchRun;
+
+			addPage( searchRunReplies.getTimeline(), 0, tweets, runTweetRows );
+
+			for ( IReplyThread replyThread : searchRunReplies.getReplies().values() ) {
+				ISnapshotUserPageIndividualTweet replyPage = replyThread.getReplyPage();
+				long sourceTweetID = getID( replyThread.getSourceTweet() );
+
+				if ( replyPage != null ) {
+					addIndividualPage( replyPage, tweets, runTweetRows );
+				}
+
+				if ( replyThread.getConversationTweetCollection() != null ) {
+					addTweets( replyThread.getConversationTweetCollection(), sourceTweetID, tweets, runTweetRows );
+				}
+
+				replyThreadRows.add( new Object[] { sourceTweetID,
+													getID( replyThread.getRepliedToTweet() ),
+													"" + replyThread.getReplyThreadType(),
+													replyPage != null && replyPage.getComplete() ? 1 : 0,
+													replyPage != null && replyPage.getStoppedAtTarget() ? 1 : 0,
+													replyPage != null ? replyPage.getNumReplies() : 0,
+													replyPage != null && replyPage.getTweetCollection() != null ? replyPage.getTweetCollection().getTweets().size() : 0 } );
+			}
+		}
+		else if ( searchRun instanceof ISearchRunTimeline ) {
+			ISearchRunTimeline searchRunTimeline = (ISearchRunTimeline) searchRun;
+
+			addPage( searchRunTimeline.getTimeline(), 0, tweets, runTweetRows );
+
+			for ( ISnapshotUserPageIndividualTweet individualPage : searchRunTimeline.getIndividualPages().values() ) {
+				addIndividualPage( individualPage, tweets, runTweetRows );
+			}
+		}
+
+		if ( report != null ) {
+			for ( IAnalysisReportRepliesItemBasic item : report.getItems() ) {
+				reportItemRows.add( new Object[] { getID( item.getSourceTweet() ),
+													getID( item.getRepliedToTweet() ),
+													"" + item.getTweetStatus(),
+													item.getRank(),
+													item.getExpectedRankByDate(),
+													item.getExpectedRankByInteraction(),
+													item.getExpectedRankByOverallRanking() } );
+			}
+		}
+
+		Connection connection = null;
+		boolean committed = false;
+
+		try {
+			connection = storage.getConnection();
+			connection.setAutoCommit( false );
+
+			for ( String tablename : RUN_TABLES ) {
+				PreparedStatement ps = connection.prepareStatement( "DELETE FROM " + tablename + " WHERE runid = ?" );
+				try {
+					ps.setLong( 1, runID );
+					ps.executeUpdate();
+				}
+				finally {
+					ps.close();
+				}
+			}
+
+			saveUsers( connection, tweets.values() );
+			saveTweets( connection, tweets.values() );
+
+			insertRows( connection, "INSERT INTO runtweets( runid, tweetid, pagetweetid, position, quality, replycount, retweetcount, favoritecount )" +
+									" VALUES( ?, ?, ?, ?, ?, ?, ?, ? )", runID, runTweetRows );
+			insertRows( connection, "INSERT INTO replythreads( runid, sourcetweetid, repliedtotweetid, threadtype, complete, stoppedattarget, numreplies, numrepliesactual )" +
+									" VALUES( ?, ?, ?, ?, ?, ?, ?, ? )", runID, replyThreadRows );
+			insertRows( connection, "INSERT INTO reportitems( runid, sourcetweetid, repliedtotweetid, tweetstatus, tweetrank, expectedrankbydate," +
+									" expectedrankbyinteraction, expectedrankbyoverall ) VALUES( ?, ?, ?, ?, ?, ?, ?, ? )", runID, reportItemRows );
+
+			connection.commit();
+			committed = true;
+
+			logger.info( "indexed run " + runID + ": " + tweets.size() + " tweets, " + runTweetRows.size() + " page entries, " +
+							replyThreadRows.size() + " reply threads, " + reportItemRows.size() + " report items" );
+		}
+		finally {
+			if ( connection != null ) {
+				if ( !committed ) {
+					connection.rollback();
+				}
+				connection.setAutoCommit( true );
+				connection.close();
+			}
+		}
+	}
+
+	@Override
+	public List<Long> getRunIDsByTweetID( long tweetID ) throws Exception {
+		return queryIDs( "SELECT DISTINCT runid FROM runtweets WHERE tweetid = ?", 0, tweetID );
+	}
+
+	@Override
+	public List<Long> getRunIDsByRepliedToTweetID( long repliedToTweetID ) throws Exception {
+		return queryIDs( "SELECT DISTINCT runid FROM replythreads WHERE repliedtotweetid = ?", 0, repliedToTweetID );
+	}
+
+	@Override
+	public List<Long> getRunIDsByReportItemStatus( long sourceTweetID, AnalysisReportItemBasicTweetStatus status ) throws Exception {
+		return queryIDs( "SELECT DISTINCT runid FROM reportitems WHERE sourcetweetid = ? AND tweetstatus = ?", 0, sourceTweetID, "" + status );
+	}
+
+	@Override
+	public List<Long> getTweetIDsByHandle( String handle, int max ) throws Exception {
+		return queryIDs( "SELECT tweetid FROM tweets WHERE handle = ? ORDER BY tweetid DESC", max, Utils.trimDefault( handle ).toLowerCase() );
+	}
+
+	@Override
+	public List<Long> getTweetIDsByConversationID( long conversationID, int max ) throws Exception {
+		return queryIDs( "SELECT tweetid FROM tweets WHERE conversationid = ? ORDER BY tweetid", max, conversationID );
+	}
+
+	protected void addIndividualPage( ISnapshotUserPageIndividualTweet page, Map<Long,ITweet> tweets, List<Object[]> runTweetRows ) {
+		ITweet individualTweet = page.getIndividualTweet();
+		long pageTweetID = page.getTweetID();
+
+		if ( individualTweet != null && individualTweet.getID() != 0 ) {
+			tweets.put( individualTweet.getID(), individualTweet );
+			runTweetRows.add( makeRunTweetRow( individualTweet, pageTweetID, 0 ) );
+		}
+
+		addTweets( page.getTweetCollection(), pageTweetID, tweets, runTweetRows );
+	}
+
+	protected void addPage( ISnapshotUserPage page, long pageTweetID, Map<Long,ITweet> tweets, List<Object[]> runTweetRows ) {
+		if ( page != null ) {
+			addTweets( page.getTweetCollection(), pageTweetID, tweets, runTweetRows );
+		}
+	}
+
+	protected void addTweets( ITweetCollection collection, long pageTweetID, Map<Long,ITweet> tweets, List<Object[]> runTweetRows ) {
+		if ( collection == null || collection.getTweets() == null ) {
+			return;
+		}
+
+		int position = 1;
+
+		for ( ITweet tweet : collection.getTweets() ) {
+			if ( tweet.getID() == 0 ) {
+				continue;
+			}
+
+			tweets.put( tweet.getID(), tweet );
+			runTweetRows.add( makeRunTweetRow( tweet, pageTweetID, position++ ) );
+		}
+	}
+
+	protected Object[] makeRunTweetRow( ITweet tweet, long pageTweetID, int position ) {
+		return new Object[] { tweet.getID(),
+								pageTweetID,
+								position,
+								"" + tweet.getSupposedQuality(),
+								tweet.getReplyCount(),
+								tweet.getRetweetCount(),
+								tweet.getFavoriteCount() };
+	}
+
+	protected void saveUsers( Connection connection, Collection<ITweet> tweets ) throws Exception {
+		Map<Long,ITweetUser> users = new LinkedHashMap<Long,ITweetUser>();
+		for ( ITweet tweet : tweets ) {
+			ITweetUser user = tweet.getUser();
+			if ( user != null && user.getID() != 0 ) {
+				users.put( user.getID(), user );
+			}
+		}
+
+		List<Object[]> rows = new ArrayList<Object[]>( users.size() );
+		for ( ITweetUser user : users.values() ) {
+			rows.add( new Object[] { Utils.trimDefault( user.getHandle() ).toLowerCase(),
+										user.getDisplayName(),
+										"" + user.getVerifiedStatus(),
+										new Timestamp( System.currentTimeMillis() ),
+										user.getID() } );
+		}
+
+		upsertRows( connection,
+					"UPDATE tweetusers SET handle = ?, displayname = ?, verifiedstatus = ?, modified = ? WHERE userid = ?",
+					"INSERT INTO tweetusers( handle, displayname, verifiedstatus, modified, userid ) VALUES( ?, ?, ?, ?, ? )",
+					rows );
+	}
+
+	protected void saveTweets( Connection connection, Collection<ITweet> tweets ) throws Exception {
+		List<Object[]> rows = new ArrayList<Object[]>( tweets.size() );
+
+		for ( ITweet tweet : tweets ) {
+			ITweetUser user = tweet.getUser();
+
+			rows.add( new Object[] { user != null ? user.getID() : 0L,
+										user != null ? Utils.trimDefault( user.getHandle() ).toLowerCase() : "",
+										Utils.parseLongDefault( tweet.getAttribute( "conversationid" ) ),
+										tweet.getRepliedToTweetID(),
+										Utils.trimDefault( tweet.getRepliedToHandle() ).toLowerCase(),
+										(long) tweet.getTime(),
+										new Timestamp( System.currentTimeMillis() ),
+										tweet.getID() } );
+		}
+
+		upsertRows( connection,
+					"UPDATE tweets SET userid = ?, handle = ?, conversationid = ?, repliedtotweetid = ?, repliedtohandle = ?, tweettime = ?, modified = ? WHERE tweetid = ?",
+					"INSERT INTO tweets( userid, handle, conversationid, repliedtotweetid, repliedtohandle, tweettime, modified, tweetid ) VALUES( ?, ?, ?, ?, ?, ?, ?, ? )",
+					rows );
+	}
+
+	/**
+	 * Each row is tried as an update first; the rows that didn't match are then
+	 * inserted in one batch. The key must be the last value of each row.
+	 */
+	protected void upsertRows( Connection connection, String updateQuery, String insertQuery, List<Object[]> rows ) throws Exception {
+		PreparedStatement updatePS = null, insertPS = null;
+
+		try {
+			updatePS = connection.prepareStatement( updateQuery );
+			insertPS = connection.prepareStatement( insertQuery );
+
+			int numInserts = 0;
+
+			for ( Object[] row : rows ) {
+				setParameters( updatePS, 1, row );
+				if ( updatePS.executeUpdate() == 0 ) {
+					setParameters( insertPS, 1, row );
+					insertPS.addBatch();
+					numInserts++;
+				}
+			}
+
+			if ( numInserts > 0 ) {
+				insertPS.executeBatch();
+			}
+		}
+		finally {
+			if ( updatePS != null ) {
+				updatePS.close();
+			}
+			if ( insertPS != null ) {
+				insertPS.close();
+			}
+		}
+	}
+
+	protected void insertRows( Connection connection, String query, long runID, List<Object[]> rows ) throws Exception {
+		if ( rows.isEmpty() ) {
+			return;
+		}
+
+		PreparedStatement ps = connection.prepareStatement( query );
+
+		try {
+			for ( Object[] row : rows ) {
+				ps.setLong( 1, runID );
+				setParameters( ps, 2, row );
+				ps.addBatch();
+			}
+
+			ps.executeBatch();
+		}
+		finally {
+			ps.close();
+		}
+	}
+
+	protected List<Long> queryIDs( String query, int max, Object... params ) throws Exception {
+		Connection connection = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		List<Long> ret = new ArrayList<Long>();
+
+		try {
+			connection = storage.getConnection();
+			ps = connection.prepareStatement( query );
+			setParameters( ps, 1, params );
+
+			if ( max > 0 ) {
+				ps.setMaxRows( max );
+			}
+
+			rs = ps.executeQuery();
+
+			while ( rs.next() ) {
+				ret.add( rs.getLong( 1 ) );
+			}
+		}
+		finally {
+			if ( rs != null ) {
+				rs.close();
+			}
+			if ( ps != null ) {
+				ps.close();
+			}
+			if ( connection != null ) {
+				connection.close();
+			}
+		}
+
+		return ret;
+	}
+
+	protected void setParameters( PreparedStatement ps, int firstIndex, Object[] values ) throws Exception {
+		for ( int i = 0; i < values.length; i++ ) {
+			ps.setObject( firstIndex + i, values[ i ] );
+		}
+	}
+
+	protected long getID( ITweet tweet ) {
+		return tweet != null ? tweet.getID() : 0L;
+	}
+}
@@ -31,11 +31,13 @@ abstract class InfiniteScrollingActivatorBase implements IInfiniteScrollingActiv
 	private WebDriver driver;
 	private IWebDriverUtils driverutils;
 	private boolean complete;
+	private PageReadinessWaiter waiter;
 
 	InfiniteScrollingActivatorBase( WebDriver driver, IWebDriverUtils driverutils ) {
 		this.driver = driver;
 		this.driverutils = driverutils;
 		this.complete = false;
+		this.waiter = new PageReadinessWaiter( driver );
 	}
 
 	protected WebDriver getDriver() {
@@ -55,8 +57,24 @@ abstract class InfiniteScrollingActivatorBase implements IInfiniteScrollingActiv
 	}
 
 	@Override
-	public void activate( int max ) {
+	public long getWaitMillis() {
+		return waiter.getTotalWaitMillis();
+	}
+
+	@Override
+	public void activate( int max ) throws Exception {
+		activate( max, null );
+	}
+
+	@Override
+	public void activate( int max, IInfiniteScrollingListener listener ) throws Exception {
 		Actions actions;
+		int pageNumber = 0;
+
+		if ( listener != null && !listener.pageScrolled( pageNumber ) ) {
+			logger.info( "listener stopped scrolling before the first page" );
+			return;
+		}
 
 		JavascriptExecutor javascriptExecutor = (JavascriptExecutor) driver;
 
@@ -84,16 +102,24 @@ abstract class InfiniteScrollingActivatorBase implements IInfiniteScrollingActiv
 				logger.info( "can't send page down" );
 			}
 
-			Utils.delay( DELAY_PER_SCREEN_MILLIS );
-
-			tempHeight = getOverlayHeight( driver, getHeightScript() );
+				//	returns as soon as the new tweets are in, or after DELAY_PER_SCREEN_MILLIS
+			tempHeight = waiter.waitForHeightChange( getHeightScript(), curHeight, DELAY_PER_SCREEN_MILLIS );
 			logger.info( "curHeight=" + curHeight + ", tempHeight=" + tempHeight );
+
+			pageNumber++;
+			boolean bKeepScrolling = listener == null || listener.pageScrolled( pageNumber );
+
 			if ( Math.abs( tempHeight - curHeight ) < 10 ) {
 				logger.info( "heights similar, setting complete true and breaking" );
 				complete = true;
 				break;
 			}
 
+			if ( !bKeepScrolling ) {
+				logger.info( "listener stopped scrolling after page " + pageNumber );
+				break;
+			}
+
 			curHeight = tempHeight;
 			max--;
 		}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.webdriver;
+
+import com.tolstoy.censorship.twitter.checker.api.webdriver.*;
+
+/**
+ * Used with snapshots, which already contain everything that was scrolled
+ * into view when they were recorded. Doesn't scroll; reports whether the
+ * recorded page was complete.
+ */
+class InfiniteScrollingActivatorReplay implements IInfiniteScrollingActivator {
+	private boolean complete;
+
+	InfiniteScrollingActivatorReplay( boolean complete ) {
+		this.complete = complete;
+	}
+
+	@Override
+	public void activate( int numberOfPages ) {
+	}
+
+	@Override
+	public void activate( int numberOfPages, IInfiniteScrollingListener listener ) throws Exception {
+		if ( listener != null ) {
+			listener.pageScrolled( 0 );
+		}
+	}
+
+	@Override
+	public boolean getComplete() {
+		return complete;
+	}
+
+	@Override
+	public long getWaitMillis() {
+		return 0;
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.webdriver;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.*;
+import org.openqa.selenium.support.ui.*;
+import com.tolstoy.basic.app.utils.*;
+
+/**
+ * Waits for the page to be ready using JS probes polled by a FluentWait,
+ * instead of sleeping for a fixed time. Each wait is given an upper bound,
+ * which is the delay that used to be slept unconditionally.
+ *
+ * The time spent waiting is added up so that callers can report it.
+ */
+class PageReadinessWaiter {
+	private static final Logger logger = LogManager.getLogger( PageReadinessWaiter.class );
+
+	private static final int POLL_MILLIS = 250;
+	private static final int STABLE_MILLIS = 750;
+
+	private static final String SCRIPT_TWEET_COUNT = "return document.querySelectorAll( '.tweet[data-tweet-id]' ).length;";
+	private static final String SCRIPT_ERRORPAGE = "return document.getElementsByClassName( 'errorpage-body-content' ).length > 0;";
+	private static final String SCRIPT_SPINNER = "var x = document.querySelectorAll( '.stream-loading, .timeline-end.has-more-items .spinner, .ThreadedConversation-loading' ); " +
+													"for ( var i = 0; i < x.length; i++ ) { if ( x[ i ].offsetParent !== null ) { return true; } } return false;";
+
+	private WebDriver driver;
+	private long totalWaitMillis;
+
+	PageReadinessWaiter( WebDriver driver ) {
+		this.driver = driver;
+		this.totalWaitMillis = 0;
+	}
+
+	long getTotalWaitMillis() {
+		return totalWaitMillis;
+	}
+
+	/**
+	 * Waits until the page shows an error, or it has tweets, the number of
+	 * tweets hasn't changed for a short time and nothing is loading.
+	 * @return true if the page is an error page
+	 */
+	boolean waitForTweets( int maxMillis ) {
+		final TweetCountStable tweetCountStable = new TweetCountStable();
+
+		waitUntil( new ExpectedCondition<Boolean>() {
+			@Override
+			public Boolean apply( WebDriver d ) {
+				if ( isErrorPage() ) {
+					return true;
+				}
+
+				return tweetCountStable.apply( d );
+			}
+		}, maxMillis, "tweets" );
+
+		return isErrorPage();
+	}
+
+	/**
+	 * Waits until the number of tweets hasn't changed for a short time and nothing
+	 * is loading. Used after clicking a button that loads more tweets.
+	 */
+	void waitForTweetsSettled( int maxMillis ) {
+		waitUntil( new TweetCountStable(), maxMillis, "settled" );
+	}
+
+	/**
+	 * Waits until the value returned by the height script differs from the given
+	 * height and nothing is loading.
+	 * @return the new height, which is the same as the given height if the wait timed out
+	 */
+	int waitForHeightChange( final String heightScript, final int previousHeight, int maxMillis ) {
+		waitUntil( new ExpectedCondition<Boolean>() {
+			@Override
+			public Boolean apply( WebDriver d ) {
+				return Math.abs( getHeight( heightScript ) - previousHeight ) >= 10 && !isSpinnerVisible();
+			}
+		}, maxMillis, "height" );
+
+		return getHeight( heightScript );
+	}
+
+	private void waitUntil( ExpectedCondition<Boolean> condition, int maxMillis, String name ) {
+		long startTime = System.currentTimeMillis();
+
+		FluentWait<WebDriver> wait = new FluentWait<WebDriver>( driver )
+											.withTimeout( maxMillis, TimeUnit.MILLISECONDS )
+											.pollingEvery( POLL_MILLIS, TimeUnit.MILLISECONDS )
+											.ignoring( WebDriverException.class );
+
+		try {
+			wait.until( condition );
+		}
+		catch ( TimeoutException e ) {
+			logger.info( "wait for " + name + " timed out after " + maxMillis + "ms" );
+		}
+
+		long elapsed = System.currentTimeMillis() - startTime;
+		totalWaitMillis += elapsed;
+
+		logger.info( "waited " + elapsed + "ms for " + name );
+	}
+
+	private boolean isErrorPage() {
+		return Boolean.TRUE.equals( ( (JavascriptExecutor) driver ).executeScript( SCRIPT_ERRORPAGE ) );
+	}
+
+	private boolean isSpinnerVisible() {
+		return Boolean.TRUE.equals( ( (JavascriptExecutor) driver ).executeScript( SCRIPT_SPINNER ) );
+	}
+
+	private int getTweetCount() {
+		return Utils.numberObjectToInteger( ( (JavascriptExecutor) driver ).executeScript( SCRIPT_TWEET_COUNT ) );
+	}
+
+	private int getHeight( String heightScript ) {
+		return Utils.numberObjectToInteger( ( (JavascriptExecutor) driver ).executeScript( heightScript ) );
+	}
+
+	/**
+	 * True once there is at least one tweet, the count has stayed the same
+	 * for STABLE_MILLIS and no spinner is showing.
+	 */
+	private class TweetCountStable implements ExpectedCondition<Boolean> {
+		private int lastCount = -1;
+		private long lastChangeTime = 0;
+
+		@Override
+		public Boolean apply( WebDriver d ) {
+			int count = getTweetCount();
+			long now = System.currentTimeMillis();
+
+			if ( count != lastCount ) {
+				lastCount = count;
+				lastChangeTime = now;
+				return false;
+			}
+
+			return count > 0 && now - lastChangeTime >= STABLE_MILLIS && !isSpinnerVisible();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.webdriver;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A directory of page snapshots keyed by URL. Each snapshot is the page's DOM
+ * gzip'd into KEY.html.gz, with KEY.properties holding the URL, whether the
+ * page was scrolled to the end, and when it was recorded. KEY is the SHA-1 of
+ * the URL.
+ */
+class PageSnapshotArchive {
+	private static final Logger logger = LogManager.getLogger( PageSnapshotArchive.class );
+
+	private static final String HTML_SUFFIX = ".html.gz";
+	private static final String PROPERTIES_SUFFIX = ".properties";
+
+	private File directory;
+
+	PageSnapshotArchive( File directory ) throws IOException {
+		this.directory = directory;
+
+		if ( !directory.isDirectory() && !directory.mkdirs() ) {
+			throw new IOException( "cannot create snapshot directory " + directory );
+		}
+	}
+
+	static String makeKey( String url ) {
+		return DigestUtils.sha1Hex( url );
+	}
+
+	File getDirectory() {
+		return directory;
+	}
+
+	boolean contains( String url ) {
+		return new File( directory, makeKey( url ) + HTML_SUFFIX ).isFile();
+	}
+
+	void save( String url, String html, boolean complete ) throws IOException {
+		String key = makeKey( url );
+
+		OutputStream out = null;
+		try {
+			out = new GZIPOutputStream( new FileOutputStream( new File( directory, key + HTML_SUFFIX ) ) );
+			out.write( html.getBytes( StandardCharsets.UTF_8 ) );
+		}
+		finally {
+			IOUtils.closeQuietly( out );
+		}
+
+		Properties props = new Properties();
+		props.setProperty( "url", url );
+		props.setProperty( "complete", "" + complete );
+		props.setProperty( "recorded", Instant.now().toString() );
+
+		try {
+			out = new FileOutputStream( new File( directory, key + PROPERTIES_SUFFIX ) );
+			props.store( out, null );
+		}
+		finally {
+			IOUtils.closeQuietly( out );
+		}
+
+		logger.info( "saved snapshot of " + url + " as " + key );
+	}
+
+	/**
+	 * @return the uncompressed HTML for the key, or null if there is no such snapshot
+	 */
+	byte[] loadHTML( String key ) throws IOException {
+		File file = new File( directory, key + HTML_SUFFIX );
+		if ( !file.isFile() ) {
+			return null;
+		}
+
+		InputStream in = null;
+		try {
+			in = new GZIPInputStream( new FileInputStream( file ) );
+			return IOUtils.toByteArray( in );
+		}
+		finally {
+			IOUtils.closeQuietly( in );
+		}
+	}
+
+	/**
+	 * @return whether the page was scrolled to the end when it was recorded
+	 */
+	boolean getComplete( String key ) {
+		File file = new File( directory, key + PROPERTIES_SUFFIX );
+		if ( !file.isFile() ) {
+			return false;
+		}
+
+		InputStream in = null;
+		try {
+			in = new FileInputStream( file );
+			Properties props = new Properties();
+			props.load( in );
+			return "true".equals( props.getProperty( "complete" ) );
+		}
+		catch ( IOException e ) {
+			logger.error( "cannot read " + file, e );
+			return false;
+		}
+		finally {
+			IOUtils.closeQuietly( in );
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.webdriver;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.sun.net.httpserver.*;
+
+/**
+ * Serves the snapshots in a PageSnapshotArchive from an HTTP server on the
+ * loopback interface.
+ *
+ * The site's own scripts are blocked with a Content-Security-Policy header so
+ * that the recorded DOM stays as it was; scripts run through WebDriver still work.
+ * The login URL gets a stub sign-in form so that LoginToSite succeeds.
+ */
+class PageSnapshotServer {
+	private static final Logger logger = LogManager.getLogger( PageSnapshotServer.class );
+
+	private static final String PATH_SNAPSHOT = "/snapshot/";
+	private static final String PATH_LOGIN = "/login";
+	private static final String CONTENT_SECURITY_POLICY = "script-src 'none'";
+	private static final String LOGIN_PAGE = "<!DOCTYPE html><html><body><form class=\"signin\">" +
+												"<input class=\"js-username-field\"><input class=\"js-password-field\" type=\"password\">" +
+												"<button class=\"submit\" type=\"button\">Log in</button></form></body></html>";
+	private static final String MISSING_PAGE = "<!DOCTYPE html><html><body><div class=\"errorpage-body-content\">not recorded</div></body></html>";
+
+	private PageSnapshotArchive archive;
+	private String loginURL;
+	private HttpServer server;
+
+	PageSnapshotServer( PageSnapshotArchive archive, String loginURL ) {
+		this.archive = archive;
+		this.loginURL = loginURL;
+	}
+
+	synchronized void start() throws IOException {
+		server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 0 );
+		server.createContext( "/", new SnapshotHandler() );
+		server.start();
+
+		logger.info( "serving snapshots from " + archive.getDirectory() + " at " + getBaseURL() );
+	}
+
+	synchronized void stop() {
+		if ( server != null ) {
+			server.stop( 0 );
+			server = null;
+		}
+	}
+
+	/**
+	 * @return the local URL that serves the snapshot recorded for the given site URL
+	 */
+	String getLocalURL( String url ) {
+		if ( url != null && url.equals( loginURL ) ) {
+			return getBaseURL() + PATH_LOGIN;
+		}
+
+		return getBaseURL() + PATH_SNAPSHOT + PageSnapshotArchive.makeKey( url );
+	}
+
+	/**
+	 * @return the snapshot key in a URL returned by getLocalURL, or null
+	 */
+	String getKeyFromLocalURL( String localURL ) {
+		int index = localURL != null ? localURL.indexOf( PATH_SNAPSHOT ) : -1;
+
+		return index < 0 ? null : localURL.substring( index + PATH_SNAPSHOT.length() );
+	}
+
+	private String getBaseURL() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	private class SnapshotHandler implements HttpHandler {
+		@Override
+		public void handle( HttpExchange exchange ) throws IOException {
+			String path = exchange.getRequestURI().getPath();
+			byte[] body = null;
+			int status = 200;
+
+			if ( path.startsWith( PATH_SNAPSHOT ) ) {
+				body = archive.loadHTML( path.substring( PATH_SNAPSHOT.length() ) );
+			}
+			else if ( path.equals( PATH_LOGIN ) ) {
+				body = LOGIN_PAGE.getBytes( StandardCharsets.UTF_8 );
+			}
+
+			if ( body == null ) {
+				logger.info( "no snapshot for " + path );
+				body = MISSING_PAGE.getBytes( StandardCharsets.UTF_8 );
+				status = 404;
+			}
+
+			Headers headers = exchange.getResponseHeaders();
+			headers.set( "Content-Type", "text/html; charset=utf-8" );
+			headers.set( "Content-Security-Policy", CONTENT_SECURITY_POLICY );
+
+			exchange.sendResponseHeaders( status, body.length );
+
+			OutputStream out = exchange.getResponseBody();
+			try {
+				out.write( body );
+			}
+			finally {
+				out.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.webdriver;
+
+import java.util.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import com.tolstoy.basic.api.tweet.*;
+import com.tolstoy.censorship.twitter.checker.api.webdriver.*;
+
+/**
+ * Reads the tweets that have appeared since the last call each time the page
+ * is scrolled, adds them to a tweet collection and hands them to a consumer.
+ *
+ * Tweets are de-duplicated by ID. Scrolling is stopped once maxTweets tweets
+ * have been read, or once the target tweet has been read followed by
+ * numberOfTweetsAfterTarget more. Neither can happen early if the factory
+ * has to read the tweets one element at a time, as they're only read once
+ * scrolling is over.
+ */
+class StreamingTweetHarvester implements IInfiniteScrollingListener {
+	private static final Logger logger = LogManager.getLogger( StreamingTweetHarvester.class );
+
+	private WebDriverFactory webDriverFactory;
+	private WebDriver driver;
+	private IWebDriverUtils driverutils;
+	private ITweetCollection collection;
+	private int maxTweets;
+	private long targetTweetID;
+	private int numberOfTweetsAfterTarget;
+	private ITweetHarvestConsumer consumer;
+	private Set<Long> seenTweetIDs;
+	private int numberOfTweetsSinceTarget;
+
+	StreamingTweetHarvester( WebDriverFactory webDriverFactory,
+								WebDriver driver,
+								IWebDriverUtils driverutils,
+								ITweetCollection collection,
+								int maxTweets,
+								long targetTweetID,
+								int numberOfTweetsAfterTarget,
+								ITweetHarvestConsumer consumer ) {
+		this.webDriverFactory = webDriverFactory;
+		this.driver = driver;
+		this.driverutils = driverutils;
+		this.collection = collection;
+		this.maxTweets = maxTweets;
+		this.targetTweetID = targetTweetID;
+		this.numberOfTweetsAfterTarget = numberOfTweetsAfterTarget;
+		this.consumer = consumer;
+		this.seenTweetIDs = new HashSet<Long>();
+		this.numberOfTweetsSinceTarget = -1;
+	}
+
+	@Override
+	public boolean pageScrolled( int pageNumber ) throws Exception {
+		harvest( false );
+
+		return !isDone();
+	}
+
+	/**
+	 * Reads the tweets that are new since the last call, once scrolling is over.
+	 */
+	void harvest() {
+		harvest( true );
+	}
+
+	/**
+	 * Reads the tweets that are new since the last call. If the factory can
+	 * only read the tweets one element at a time, that's left for the final pass.
+	 */
+	private void harvest( boolean finalPass ) {
+		if ( isDone() ) {
+			return;
+		}
+
+		List<ITweet> tweets = webDriverFactory.loadNewTweets( driver, driverutils, seenTweetIDs, finalPass );
+		int numAdded = 0;
+
+		for ( ITweet tweet : tweets ) {
+			if ( !seenTweetIDs.add( tweet.getID() ) ) {
+				continue;
+			}
+
+			collection.addTweet( tweet );
+			numAdded++;
+
+			if ( consumer != null ) {
+				consumer.tweetHarvested( tweet );
+			}
+
+			if ( numberOfTweetsSinceTarget >= 0 ) {
+				numberOfTweetsSinceTarget++;
+			}
+			else if ( targetTweetID != 0 && tweet.getID() == targetTweetID ) {
+				logger.info( "found target tweet " + targetTweetID );
+				numberOfTweetsSinceTarget = 0;
+			}
+
+			if ( isDone() ) {
+				break;
+			}
+		}
+
+		logger.info( "harvested " + numAdded + " new tweets, " + collection.getTweets().size() + " total" );
+	}
+
+	boolean getTargetFound() {
+		return numberOfTweetsSinceTarget >= 0;
+	}
+
+	/**
+	 * True if scrolling was stopped because the target tweet and the tweets
+	 * after it were read, rather than because of maxTweets.
+	 */
+	boolean getStoppedAtTarget() {
+		return targetTweetID != 0 && numberOfTweetsSinceTarget >= numberOfTweetsAfterTarget;
+	}
+
+	boolean isDone() {
+		if ( maxTweets != 0 && collection.getTweets().size() >= maxTweets ) {
+			return true;
+		}
+
+		return numberOfTweetsSinceTarget >= numberOfTweetsAfterTarget;
+	}
+}
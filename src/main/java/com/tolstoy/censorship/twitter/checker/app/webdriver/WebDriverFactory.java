@@ -39,10 +39,10 @@ public class WebDriverFactory implements IWebDriverFactory {
 	private static final int DELAY_POST_CLICK_LOWQUALITY_BUTTON = 5000;
 	private static final int DELAY_POST_CLICK_ABUSIVEQUALITY_BUTTON = 5000;
 	private static final int NUMBER_OF_SCROLL_CHECK_FOR_BUTTONS_CYCLES = 2;
-	private static final int IMPLICITWAIT_PRE_ERRORPAGE = 5;
 	private static final int IMPLICITWAIT_PRE_SCROLLING = 20;
-	private static final int IMPLICITWAIT_PRE_TWEETS = 20;
 	private static final int IMPLICITWAIT_POST_TWEETS = 0;
+	private static final String SCRIPT_TWEET_IDS = "var x = document.querySelectorAll( '.tweet' ); var ret = []; " +
+													"for ( var i = 0; i < x.length; i++ ) { ret.push( x[ i ].getAttribute( 'data-tweet-id' ) ); } return ret;";
 
 	private ITweetFactory tweetFactory;
 	private ISnapshotFactory snapshotFactory;
@@ -70,35 +70,7 @@ public class WebDriverFactory implements IWebDriverFactory {
 															url, numberOfPagesToCheck, maxTweets ) );
 		ret.setComplete( infiniteScroller.getComplete() );
 
-		WebElement tempElem;
-
-		Map<String,String> profileMap = new HashMap<String,String>();
-		WebElement profileElem = driver.findElement( By.xpath( driverutils.makeByXPathClassString( "ProfileNav" ) ) );
-		profileMap.put( "userid", profileElem.getAttribute( "data-user-id" ) );
-
-		List<WebElement> profileNavLinks = profileElem.findElements( By.tagName( "a" ) );
-		for ( WebElement profileNavLink : profileNavLinks ) {
-			tempElem = driverutils.safeFindByClass( profileNavLink, "ProfileNav-value" );
-			if ( tempElem != null ) {
-				profileMap.put( profileNavLink.getAttribute( "data-nav" ), tempElem.getAttribute( "data-count" ) );
-			}
-		}
-
-		WebElement profileCardMiniElem = driver.findElement( By.xpath( driverutils.makeByXPathClassString( "ProfileCardMini" ) ) );
-
-		tempElem = driverutils.safeFindByClass( profileCardMiniElem, "fullname" );
-		profileMap.put( "fullname", driverutils.getWebElementText( tempElem ) );
-
-		tempElem = driverutils.safeFindByClass( profileCardMiniElem, "UserBadges" );
-		profileMap.put( "verifiedText", driverutils.getWebElementText( tempElem ) );
-
-		tempElem = driverutils.safeFindByClass( profileCardMiniElem, "username", "b" );
-		profileMap.put( "handle", driverutils.getWebElementText( tempElem ) );
-
-		tempElem = driverutils.safeFindByClass( profileCardMiniElem, "profile-picture" );
-		if ( tempElem != null ) {
-			profileMap.put( "avatarURL", Utils.trimDefault( tempElem.getAttribute( "data-url" ) ) );
-		}
+		Map<String,String> profileMap = loadProfileAttributes( driver, driverutils );
 
 		ret.setUser( makeTweetUser( profileMap.get( "handle" ),
 									profileMap.get( "fullname" ),
@@ -122,11 +94,26 @@ public class WebDriverFactory implements IWebDriverFactory {
 																						String url,
 																						int numberOfPagesToCheck,
 																						int maxTweets ) throws Exception {
+		return makeSnapshotUserPageIndividualTweetFromURL( driver, driverutils, infiniteScroller, url,
+															numberOfPagesToCheck, maxTweets, 0, 0 );
+	}
+
+	@Override
+	public ISnapshotUserPageIndividualTweet makeSnapshotUserPageIndividualTweetFromURL( WebDriver driver,
+																						IWebDriverUtils driverutils,
+																						IInfiniteScrollingActivator infiniteScroller,
+																						String url,
+																						int numberOfPagesToCheck,
+																						int maxTweets,
+																						long targetTweetID,
+																						int numberOfTweetsAfterTarget ) throws Exception {
 		ISnapshotUserPageIndividualTweet ret = snapshotFactory.makeSnapshotUserPageIndividualTweet( url, Instant.now() );
 
-		ITweetCollection tweetCollection = makeTweetCollectionFromURL( driver, driverutils, infiniteScroller,
-																		url, numberOfPagesToCheck, maxTweets );
+		ITweetCollection tweetCollection = harvestTweetCollectionFromURL( driver, driverutils, infiniteScroller,
+																			url, numberOfPagesToCheck, maxTweets,
+																			targetTweetID, numberOfTweetsAfterTarget, null );
 		ret.setComplete( infiniteScroller.getComplete() );
+		ret.setStoppedAtTarget( "true".equals( tweetCollection.getAttribute( "stoppedAtTarget" ) ) );
 
 		List<ITweet> tweets = tweetCollection.getTweets();
 		if ( tweets == null || tweets.size() < 1 ) {
@@ -143,9 +130,9 @@ public class WebDriverFactory implements IWebDriverFactory {
 
 		ret.setTitle( driver.getTitle() );
 
-		ret.setNumRetweets( Utils.parseIntDefault( individualTweet.getAttribute( "retweetcount" ) ) );
-		ret.setNumLikes( Utils.parseIntDefault( individualTweet.getAttribute( "favoritecount" ) ) );
-		ret.setNumReplies( Utils.parseIntDefault( individualTweet.getAttribute( "replycount" ) ) );
+		ret.setNumRetweets( individualTweet.getRetweetCount() );
+		ret.setNumLikes( individualTweet.getFavoriteCount() );
+		ret.setNumReplies( individualTweet.getReplyCount() );
 
 		return ret;
 	}
@@ -157,12 +144,24 @@ public class WebDriverFactory implements IWebDriverFactory {
 														String url,
 														int numberOfPagesToCheck,
 														int maxTweets ) throws Exception {
-		Utils.delay( DELAY_PRE_TWEETS );
-
-		driver.manage().timeouts().implicitlyWait( IMPLICITWAIT_PRE_ERRORPAGE, TimeUnit.SECONDS );
+		return harvestTweetCollectionFromURL( driver, driverutils, infiniteScroller, url,
+												numberOfPagesToCheck, maxTweets, 0, 0, null );
+	}
 
-		List<WebElement> errorPageElems = driver.findElements( By.xpath( driverutils.makeByXPathClassString( "errorpage-body-content" ) ) );
-		if ( errorPageElems.size() > 0 ) {
+	@Override
+	public ITweetCollection harvestTweetCollectionFromURL( WebDriver driver,
+															IWebDriverUtils driverutils,
+															IInfiniteScrollingActivator infiniteScroller,
+															String url,
+															int numberOfPagesToCheck,
+															int maxTweets,
+															long targetTweetID,
+															int numberOfTweetsAfterTarget,
+															ITweetHarvestConsumer consumer ) throws Exception {
+		PageReadinessWaiter waiter = new PageReadinessWaiter( driver );
+
+			//	returns as soon as the tweets have loaded, or after DELAY_PRE_TWEETS
+		if ( waiter.waitForTweets( DELAY_PRE_TWEETS ) ) {
 			throw new RuntimeException( "page not found: " + url );
 		}
 
@@ -171,22 +170,31 @@ public class WebDriverFactory implements IWebDriverFactory {
 		collection.setAttribute( "numberOfPagesToCheck", "" + numberOfPagesToCheck );
 		collection.setAttribute( "maxTweets", "" + maxTweets );
 
-		driver.manage().timeouts().implicitlyWait( IMPLICITWAIT_PRE_SCROLLING, TimeUnit.SECONDS );
+		StreamingTweetHarvester harvester = new StreamingTweetHarvester( this, driver, driverutils, collection, maxTweets,
+																			targetTweetID, numberOfTweetsAfterTarget, consumer );
 
 		for ( int i = 0; i < NUMBER_OF_SCROLL_CHECK_FOR_BUTTONS_CYCLES; i++ ) {
+			driver.manage().timeouts().implicitlyWait( IMPLICITWAIT_PRE_SCROLLING, TimeUnit.SECONDS );
+
 			logger.info( "about to scroll" );
-			infiniteScroller.activate( numberOfPagesToCheck );
+			infiniteScroller.activate( numberOfPagesToCheck, harvester );
 			logger.info( "done scrolling phase #" + i );
 
+			if ( harvester.isDone() ) {
+				logger.info( "found enough tweets in phase #" + i );
+				break;
+			}
+
 			boolean bNoMoreButtons = true;
 
-			driver.manage().timeouts().implicitlyWait( IMPLICITWAIT_PRE_TWEETS, TimeUnit.SECONDS );
+				//	the page has settled, so the buttons are either there or not
+			driver.manage().timeouts().implicitlyWait( IMPLICITWAIT_POST_TWEETS, TimeUnit.SECONDS );
 
 			List<WebElement> lowQualityButtons = driver.findElements( By.xpath( driverutils.makeByXPathClassString( "ThreadedConversation-showMoreThreadsButton" ) ) );
 			if ( lowQualityButtons.size() > 0 ) {
 				logger.info( "found 'low quality' button" );
 				lowQualityButtons.get( 0 ).click();
-				Utils.delay( DELAY_POST_CLICK_LOWQUALITY_BUTTON );
+				waiter.waitForTweetsSettled( DELAY_POST_CLICK_LOWQUALITY_BUTTON );
 				bNoMoreButtons = false;
 			}
 
@@ -194,7 +202,7 @@ public class WebDriverFactory implements IWebDriverFactory {
 			if ( abusiveQualityButtons.size() > 0 ) {
 				logger.info( "found 'abusive quality' button" );
 				abusiveQualityButtons.get( 0 ).click();
-				Utils.delay( DELAY_POST_CLICK_ABUSIVEQUALITY_BUTTON );
+				waiter.waitForTweetsSettled( DELAY_POST_CLICK_ABUSIVEQUALITY_BUTTON );
 				bNoMoreButtons = false;
 			}
 
@@ -204,54 +212,23 @@ public class WebDriverFactory implements IWebDriverFactory {
 			}
 		}
 
-		logger.info( "looking for tweets..." );
-		List<WebElement> tweetElems = driver.findElements( By.xpath( driverutils.makeByXPathClassString( "tweet" ) ) );
-		logger.info( "found " + tweetElems.size() + " tweets" );
-
-		driver.manage().timeouts().implicitlyWait( IMPLICITWAIT_POST_TWEETS, TimeUnit.SECONDS );
-
-		int tweetCount = 0;
-		for ( WebElement tweetElem : tweetElems ) {
-			if ( Utils.isEmpty( tweetElem.getAttribute( "data-tweet-id" ) ) ||
-					Utils.isEmpty( tweetElem.getAttribute( "data-name" ) ) ) {
-				logger.info( "skipping empty tweet, classes:" + tweetElem.getAttribute( "class" ) );
-				continue;
-			}
-
-			ITweet tweet = tweetFactory.makeTweet();
-
-			loadTweetAttributes( driver, driverutils, tweet, tweetElem );
-
-			tweet.setClasses( new StringList( tweetElem.getAttribute( "class" ) ) );
-			tweet.setMentions( new StringList( tweetElem.getAttribute( "data-mentions" ) ) );
-
-			try {
-				tweet.setID( Long.parseLong( tweet.getAttribute( "tweetid" ) ) );
-			}
-			catch ( Exception e ) {
-				logger.info( "can't parse tweetid attribute, tweet is " + tweet );
-				throw e;
-			}
-
-			tweet.setUser( makeTweetUser( tweet.getAttribute( "screenname" ),
-											tweet.getAttribute( "name" ),
-											tweet.getAttribute( "userid" ),
-											tweet.getAttribute( "verifiedText" ),
-											tweet.getAttribute( "avatarURL" ) ) );
-
-			collection.addTweet( tweet );
+			//	pick up whatever the last wait brought in
+		harvester.harvest();
 
-			tweetCount++;
+			//	tweets were read in the order they appeared, which isn't always the page order
+		sortTweetsInPageOrder( driver, collection );
 
-			if ( tweetCount % 10 == 0 ) {
-				logger.info( "retrieving tweet #" + tweetCount );
-			}
-
-			if ( maxTweets != 0 && tweetCount >= maxTweets ) {
-				break;
-			}
+		if ( targetTweetID != 0 ) {
+			collection.setAttribute( "targetTweetID", "" + targetTweetID );
+			collection.setAttribute( "targetTweetFound", "" + harvester.getTargetFound() );
+			collection.setAttribute( "stoppedAtTarget", "" + harvester.getStoppedAtTarget() );
 		}
 
+		collection.setAttribute( "waitMillisPage", "" + waiter.getTotalWaitMillis() );
+		collection.setAttribute( "waitMillisScrolling", "" + infiniteScroller.getWaitMillis() );
+		logger.info( "waited " + waiter.getTotalWaitMillis() + "ms for the page and " +
+						infiniteScroller.getWaitMillis() + "ms while scrolling: " + url );
+
 		return collection;
 	}
 
@@ -310,6 +287,191 @@ public class WebDriverFactory implements IWebDriverFactory {
 		ffProfile.setPreference( "browser.shell.checkDefaultBrowser", false );
 	}
 
+	/**
+	 * Reads the user's profile from a timeline page. The map has the keys userid,
+	 * fullname, verifiedText, handle and avatarURL, plus the counts keyed by the
+	 * data-nav of each ProfileNav link (tweets, followers, following, etc.).
+	 */
+	protected Map<String,String> loadProfileAttributes( WebDriver driver, IWebDriverUtils driverutils ) {
+		WebElement tempElem;
+
+		Map<String,String> profileMap = new HashMap<String,String>();
+		WebElement profileElem = driver.findElement( By.xpath( driverutils.makeByXPathClassString( "ProfileNav" ) ) );
+		profileMap.put( "userid", profileElem.getAttribute( "data-user-id" ) );
+
+		List<WebElement> profileNavLinks = profileElem.findElements( By.tagName( "a" ) );
+		for ( WebElement profileNavLink : profileNavLinks ) {
+			tempElem = driverutils.safeFindByClass( profileNavLink, "ProfileNav-value" );
+			if ( tempElem != null ) {
+				profileMap.put( profileNavLink.getAttribute( "data-nav" ), tempElem.getAttribute( "data-count" ) );
+			}
+		}
+
+		WebElement profileCardMiniElem = driver.findElement( By.xpath( driverutils.makeByXPathClassString( "ProfileCardMini" ) ) );
+
+		tempElem = driverutils.safeFindByClass( profileCardMiniElem, "fullname" );
+		profileMap.put( "fullname", driverutils.getWebElementText( tempElem ) );
+
+		tempElem = driverutils.safeFindByClass( profileCardMiniElem, "UserBadges" );
+		profileMap.put( "verifiedText", driverutils.getWebElementText( tempElem ) );
+
+		tempElem = driverutils.safeFindByClass( profileCardMiniElem, "username", "b" );
+		profileMap.put( "handle", driverutils.getWebElementText( tempElem ) );
+
+		tempElem = driverutils.safeFindByClass( profileCardMiniElem, "profile-picture" );
+		if ( tempElem != null ) {
+			profileMap.put( "avatarURL", Utils.trimDefault( tempElem.getAttribute( "data-url" ) ) );
+		}
+
+		return profileMap;
+	}
+
+	/**
+	 * Subclasses can override this to read the attributes of every tweet on the page
+	 * at once. Each map must have the same keys that loadTweetAttributes would set,
+	 * plus "class" and "mentions".
+	 * @return the maps in page order, or null to read the tweets one element at a time
+	 */
+	protected List<Map<String,String>> loadAllTweetAttributes( WebDriver driver, IWebDriverUtils driverutils ) {
+		return null;
+	}
+
+	/**
+	 * Same as loadAllTweetAttributes, but without the tweets whose IDs are in seenTweetIDs.
+	 * Subclasses can override this if they can skip the seen tweets more cheaply.
+	 */
+	protected List<Map<String,String>> loadNewTweetAttributes( WebDriver driver, IWebDriverUtils driverutils, Set<Long> seenTweetIDs ) {
+		List<Map<String,String>> tweetMaps = loadAllTweetAttributes( driver, driverutils );
+
+		return tweetMaps == null ? null : removeSeenTweetAttributes( tweetMaps, seenTweetIDs );
+	}
+
+	protected List<Map<String,String>> removeSeenTweetAttributes( List<Map<String,String>> tweetMaps, Set<Long> seenTweetIDs ) {
+		if ( seenTweetIDs.isEmpty() ) {
+			return tweetMaps;
+		}
+
+		List<Map<String,String>> ret = new ArrayList<Map<String,String>>( tweetMaps.size() );
+
+		for ( Map<String,String> tweetMap : tweetMaps ) {
+			if ( !seenTweetIDs.contains( Utils.parseLongDefault( tweetMap.get( "tweetid" ) ) ) ) {
+				ret.add( tweetMap );
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Reads the tweets on the page whose IDs aren't in seenTweetIDs, in page order.
+	 * Uses loadNewTweetAttributes if the subclass supports it, otherwise reads
+	 * each tweet element with loadTweetAttributes. That takes several round
+	 * trips per tweet, so it's only done once scrolling is over: until then,
+	 * with finalPass false, nothing is returned.
+	 */
+	List<ITweet> loadNewTweets( WebDriver driver, IWebDriverUtils driverutils, Set<Long> seenTweetIDs, boolean finalPass ) {
+		List<ITweet> ret = new ArrayList<ITweet>();
+
+		List<Map<String,String>> tweetMaps = loadNewTweetAttributes( driver, driverutils, seenTweetIDs );
+		if ( tweetMaps != null ) {
+			for ( Map<String,String> tweetMap : tweetMaps ) {
+				if ( Utils.isEmpty( tweetMap.get( "tweetid" ) ) || Utils.isEmpty( tweetMap.get( "name" ) ) ) {
+					continue;
+				}
+
+				ITweet tweet = tweetFactory.makeTweet();
+
+				tweet.setAttributes( tweetMap );
+				tweet.setClasses( new StringList( tweetMap.get( "class" ) ) );
+				tweet.setMentions( new StringList( tweetMap.get( "mentions" ) ) );
+
+				setTweetIDAndUser( tweet );
+
+				ret.add( tweet );
+			}
+
+			return ret;
+		}
+
+		if ( !finalPass ) {
+			return ret;
+		}
+
+		List<WebElement> tweetElems = driver.findElements( By.xpath( driverutils.makeByXPathClassString( "tweet" ) ) );
+
+		for ( WebElement tweetElem : tweetElems ) {
+			String tweetID = tweetElem.getAttribute( "data-tweet-id" );
+
+			if ( Utils.isEmpty( tweetID ) || Utils.isEmpty( tweetElem.getAttribute( "data-name" ) ) ) {
+				continue;
+			}
+
+			if ( seenTweetIDs.contains( Utils.parseLongDefault( tweetID ) ) ) {
+				continue;
+			}
+
+			ITweet tweet = tweetFactory.makeTweet();
+
+			loadTweetAttributes( driver, driverutils, tweet, tweetElem );
+
+			tweet.setClasses( new StringList( tweetElem.getAttribute( "class" ) ) );
+			tweet.setMentions( new StringList( tweetElem.getAttribute( "data-mentions" ) ) );
+
+			setTweetIDAndUser( tweet );
+
+			ret.add( tweet );
+		}
+
+		return ret;
+	}
+
+	protected void sortTweetsInPageOrder( WebDriver driver, ITweetCollection collection ) {
+		Object x = ( (JavascriptExecutor) driver ).executeScript( SCRIPT_TWEET_IDS );
+		if ( !( x instanceof List ) ) {
+			logger.info( "cannot get tweet IDs in page order" );
+			return;
+		}
+
+		final Map<Long,Integer> pageOrder = new HashMap<Long,Integer>();
+		int index = 0;
+		for ( Object tweetID : (List<?>) x ) {
+			Long key = Utils.parseLongDefault( String.valueOf( tweetID ) );
+			if ( !pageOrder.containsKey( key ) ) {
+				pageOrder.put( key, index );
+			}
+			index++;
+		}
+
+		List<ITweet> tweets = new ArrayList<ITweet>( collection.getTweets() );
+
+		Collections.sort( tweets, new Comparator<ITweet>() {
+			@Override
+			public int compare( ITweet a, ITweet b ) {
+				Integer orderA = pageOrder.get( a.getID() ), orderB = pageOrder.get( b.getID() );
+				return Integer.compare( orderA != null ? orderA : Integer.MAX_VALUE,
+										orderB != null ? orderB : Integer.MAX_VALUE );
+			}
+		} );
+
+		collection.setTweets( tweets );
+	}
+
+	protected void setTweetIDAndUser( ITweet tweet ) {
+		try {
+			tweet.setID( Long.parseLong( tweet.getAttribute( "tweetid" ) ) );
+		}
+		catch ( RuntimeException e ) {
+			logger.info( "can't parse tweetid attribute, tweet is " + tweet );
+			throw e;
+		}
+
+		tweet.setUser( makeTweetUser( tweet.getAttribute( "screenname" ),
+										tweet.getAttribute( "name" ),
+										tweet.getAttribute( "userid" ),
+										tweet.getAttribute( "verifiedText" ),
+										tweet.getAttribute( "avatarURL" ) ) );
+	}
+
 	protected void loadTweetAttributes( WebDriver driver, IWebDriverUtils driverutils, ITweet tweet, WebElement tweetElem ) {
 		WebElement tempElem;
 
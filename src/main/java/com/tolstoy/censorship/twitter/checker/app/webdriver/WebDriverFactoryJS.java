@@ -36,7 +36,7 @@ import com.tolstoy.censorship.twitter.checker.api.snapshot.*;
 public class WebDriverFactoryJS extends WebDriverFactory implements IWebDriverFactory {
 	private static final Logger logger = LogManager.getLogger( WebDriverFactoryJS.class );
 
-	private String attributesScript, tweetScript;
+	private String attributesScript, tweetScript, tweetsScript;
 
 	public WebDriverFactoryJS( ISnapshotFactory snapshotFactory, ITweetFactory tweetFactory,
 									IPreferences prefs, IResourceBundleWithFormatting bundle ) throws Exception {
@@ -44,6 +44,11 @@ public class WebDriverFactoryJS extends WebDriverFactory implements IWebDriverFa
 
 		attributesScript = IOUtils.toString( getClass().getResource( "/attributes.js" ), StandardCharsets.UTF_8 );
 		tweetScript = IOUtils.toString( getClass().getResource( "/tweet.js" ), StandardCharsets.UTF_8 );
+
+			//	tweets.js calls the other two scripts as functions for each tweet element
+		tweetsScript = "var attributesFunction = function() {\n" + attributesScript + "\n};\n" +
+						"var tweetFunction = function() {\n" + tweetScript + "\n};\n" +
+						IOUtils.toString( getClass().getResource( "/tweets.js" ), StandardCharsets.UTF_8 );
 	}
 
 	@Override
@@ -58,27 +63,85 @@ public class WebDriverFactoryJS extends WebDriverFactory implements IWebDriverFa
 
 		tweetMap.putAll( attributesMap );
 
+		normalizeTweetMap( tweetMap );
+
 		tweet.setAttributes( tweetMap );
+	}
+
+	/**
+	 * Reads every tweet on the page with one executeScript call. If the script fails,
+	 * returns null so that the tweets are read one element at a time instead.
+	 */
+	@Override
+	protected List<Map<String,String>> loadAllTweetAttributes( WebDriver driver, IWebDriverUtils driverutils ) {
+		return runTweetsScript( driver, Collections.<Long>emptySet() );
+	}
+
+	/**
+	 * Same as loadAllTweetAttributes, but the script skips the tweets that have
+	 * already been seen, so only the new ones are sent back.
+	 */
+	@Override
+	protected List<Map<String,String>> loadNewTweetAttributes( WebDriver driver, IWebDriverUtils driverutils, Set<Long> seenTweetIDs ) {
+		return runTweetsScript( driver, seenTweetIDs );
+	}
+
+	/**
+	 * Not overridable, so that subclasses falling back to loadAllTweetAttributes
+	 * here can't be called back through their own overrides.
+	 */
+	private List<Map<String,String>> runTweetsScript( WebDriver driver, Set<Long> seenTweetIDs ) {
+		JavascriptExecutor javascriptExecutor = (JavascriptExecutor) driver;
+
+		List<String> skipList = new ArrayList<String>( seenTweetIDs.size() );
+		for ( Long tweetID : seenTweetIDs ) {
+			skipList.add( String.valueOf( tweetID ) );
+		}
+
+		try {
+			Object x = javascriptExecutor.executeScript( tweetsScript, skipList );
+			if ( !( x instanceof List ) ) {
+				throw new RuntimeException( "webdriver JS returned something other than a List: " + x );
+			}
+
+			List<?> temp = (List<?>) x;
+
+			List<Map<String,String>> ret = new ArrayList<Map<String,String>>( temp.size() );
+
+			for ( Object obj : temp ) {
+				Map<String,String> tweetMap = makeStringMap( obj );
+				normalizeTweetMap( tweetMap );
+				ret.add( tweetMap );
+			}
+
+			return ret;
+		}
+		catch ( Exception e ) {
+			logger.error( "cannot read all tweets at once, reading them one at a time", e );
+			return null;
+		}
+	}
 
-		if ( Utils.isEmpty( tweet.getAttribute( "tweethtml" ) ) ) {
-			tweet.setAttribute( "tweethtml", "" );
+	protected void normalizeTweetMap( Map<String,String> tweetMap ) {
+		if ( Utils.isEmpty( tweetMap.get( "tweethtml" ) ) ) {
+			tweetMap.put( "tweethtml", "" );
 		}
-		if ( Utils.isEmpty( tweet.getAttribute( "tweetlanguage" ) ) ) {
-			tweet.setAttribute( "tweetlanguage", "en" );
+		if ( Utils.isEmpty( tweetMap.get( "tweetlanguage" ) ) ) {
+			tweetMap.put( "tweetlanguage", "en" );
 		}
 
-		if ( Utils.isEmpty( tweet.getAttribute( "repliedtohandle" ) ) ) {
-			tweet.setAttribute( "repliedtohandle", "" );
+		if ( Utils.isEmpty( tweetMap.get( "repliedtohandle" ) ) ) {
+			tweetMap.put( "repliedtohandle", "" );
 		}
 		else {
-			tweet.setAttribute( "repliedtohandle", Utils.extractHandle( tweet.getAttribute( "repliedtohandle" ) ) );
+			tweetMap.put( "repliedtohandle", Utils.extractHandle( tweetMap.get( "repliedtohandle" ) ) );
 		}
 
-		if ( Utils.isEmpty( tweet.getAttribute( "videothumburl" ) ) ) {
-			tweet.setAttribute( "videothumburl", "" );
+		if ( Utils.isEmpty( tweetMap.get( "videothumburl" ) ) ) {
+			tweetMap.put( "videothumburl", "" );
 		}
 		else {
-			tweet.setAttribute( "videothumburl", Utils.extractFirstLink( tweet.getAttribute( "videothumburl" ) ) );
+			tweetMap.put( "videothumburl", Utils.extractFirstLink( tweetMap.get( "videothumburl" ) ) );
 		}
 	}
 
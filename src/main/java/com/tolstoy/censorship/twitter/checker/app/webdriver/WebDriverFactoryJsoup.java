@@ -0,0 +1,311 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.webdriver;
+
+import java.util.*;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.*;
+import org.openqa.selenium.NoSuchElementException;
+import com.tolstoy.basic.api.tweet.*;
+import com.tolstoy.basic.api.utils.*;
+import com.tolstoy.basic.app.utils.*;
+import com.tolstoy.censorship.twitter.checker.api.preferences.IPreferences;
+import com.tolstoy.censorship.twitter.checker.api.webdriver.*;
+import com.tolstoy.censorship.twitter.checker.api.snapshot.*;
+
+/**
+ * Reads tweets and the user profile by fetching the HTML of the elements they're
+ * in and parsing it with Jsoup, instead of querying the browser for each element.
+ * After a scroll only the tweets that haven't been seen are fetched and parsed.
+ *
+ * The maps built here have the same keys and values as the ones built by
+ * attributes.js and tweet.js, so the tweet collections are the same as with
+ * WebDriverFactoryJS. If the HTML can't be fetched or parsed, the
+ * WebDriverFactoryJS methods are used.
+ */
+public class WebDriverFactoryJsoup extends WebDriverFactoryJS implements IWebDriverFactory {
+	private static final Logger logger = LogManager.getLogger( WebDriverFactoryJsoup.class );
+
+	private static final String SCRIPT_PROFILE_HTML = "var ret = '';" +
+														"var elems = document.querySelectorAll( '.ProfileNav, .ProfileCardMini' );" +
+														"for ( var i = 0; i < elems.length; i++ ) { ret += elems[ i ].outerHTML; }" +
+														"return ret;";
+
+	private static final String[] TWEET_KEYS = { "avatarURL", "fullname", "verifiedText", "username", "time", "tweettext",
+													"tweethtml", "tweetlanguage", "repliedtohandle", "repliedtouserid", "photourl",
+													"videothumburl", "replycount", "retweetcount", "favoritecount", "innertweetid",
+													"innertweetrawhref", "suggestionjson" };
+
+	private String tweetsHTMLScript;
+
+	public WebDriverFactoryJsoup( ISnapshotFactory snapshotFactory, ITweetFactory tweetFactory,
+									IPreferences prefs, IResourceBundleWithFormatting bundle ) throws Exception {
+		super( snapshotFactory, tweetFactory, prefs, bundle );
+
+		tweetsHTMLScript = IOUtils.toString( getClass().getResource( "/tweetshtml.js" ), StandardCharsets.UTF_8 );
+	}
+
+	@Override
+	protected List<Map<String,String>> loadAllTweetAttributes( WebDriver driver, IWebDriverUtils driverutils ) {
+		return parseTweets( driver, driverutils, Collections.<Long>emptySet() );
+	}
+
+	/**
+	 * Only the HTML of the tweets that haven't been seen is fetched and parsed.
+	 */
+	@Override
+	protected List<Map<String,String>> loadNewTweetAttributes( WebDriver driver, IWebDriverUtils driverutils, Set<Long> seenTweetIDs ) {
+		return parseTweets( driver, driverutils, seenTweetIDs );
+	}
+
+	private List<Map<String,String>> parseTweets( WebDriver driver, IWebDriverUtils driverutils, Set<Long> seenTweetIDs ) {
+		try {
+			long startTime = System.currentTimeMillis();
+
+			List<String> skipList = new ArrayList<String>( seenTweetIDs.size() );
+			for ( Long tweetID : seenTweetIDs ) {
+				skipList.add( String.valueOf( tweetID ) );
+			}
+
+			Document doc = loadDocument( driver, tweetsHTMLScript, skipList );
+
+			List<Map<String,String>> ret = new ArrayList<Map<String,String>>();
+
+			for ( Element tweetElem : doc.select( ".tweet" ) ) {
+				Map<String,String> tweetMap = readTweet( tweetElem );
+				tweetMap.putAll( readAttributes( tweetElem ) );
+				normalizeTweetMap( tweetMap );
+				ret.add( tweetMap );
+			}
+
+			logger.info( "parsed " + ret.size() + " tweets in " + ( System.currentTimeMillis() - startTime ) + "ms" );
+
+			return ret;
+		}
+		catch ( Exception e ) {
+			logger.error( "cannot parse tweet HTML, using WebDriver instead", e );
+			return super.loadNewTweetAttributes( driver, driverutils, seenTweetIDs );
+		}
+	}
+
+	@Override
+	protected Map<String,String> loadProfileAttributes( WebDriver driver, IWebDriverUtils driverutils ) {
+		Document doc;
+
+		try {
+			doc = loadDocument( driver, SCRIPT_PROFILE_HTML );
+		}
+		catch ( Exception e ) {
+			logger.error( "cannot parse profile HTML, using WebDriver instead", e );
+			return super.loadProfileAttributes( driver, driverutils );
+		}
+
+		Element tempElem;
+
+		Map<String,String> profileMap = new HashMap<String,String>();
+
+		Element profileElem = doc.selectFirst( ".ProfileNav" );
+		if ( profileElem == null ) {
+			throw new NoSuchElementException( "ProfileNav" );
+		}
+
+		profileMap.put( "userid", profileElem.attr( "data-user-id" ) );
+
+		for ( Element profileNavLink : profileElem.getElementsByTag( "a" ) ) {
+			tempElem = profileNavLink.selectFirst( ".ProfileNav-value" );
+			if ( tempElem != null ) {
+				profileMap.put( profileNavLink.attr( "data-nav" ), tempElem.attr( "data-count" ) );
+			}
+		}
+
+		Element profileCardMiniElem = doc.selectFirst( ".ProfileCardMini" );
+		if ( profileCardMiniElem == null ) {
+			throw new NoSuchElementException( "ProfileCardMini" );
+		}
+
+		profileMap.put( "fullname", getElementText( profileCardMiniElem.selectFirst( ".fullname" ) ) );
+		profileMap.put( "verifiedText", getElementText( profileCardMiniElem.selectFirst( ".UserBadges" ) ) );
+		profileMap.put( "handle", getElementText( profileCardMiniElem.selectFirst( ".username > b" ) ) );
+
+		tempElem = profileCardMiniElem.selectFirst( ".profile-picture" );
+		if ( tempElem != null ) {
+			profileMap.put( "avatarURL", Utils.trimDefault( tempElem.attr( "data-url" ) ) );
+		}
+
+		return profileMap;
+	}
+
+	/**
+	 * Parses the HTML returned by the script as the body of an otherwise empty document.
+	 */
+	private Document loadDocument( WebDriver driver, String script, Object... args ) {
+		Object html = ( (JavascriptExecutor) driver ).executeScript( script, args );
+		if ( !( html instanceof String ) ) {
+			throw new RuntimeException( "webdriver JS returned something other than a String" );
+		}
+
+		Document doc = Jsoup.parseBodyFragment( (String) html );
+		doc.outputSettings().prettyPrint( false );
+
+		return doc;
+	}
+
+	/**
+	 * Same as attributes.js.
+	 */
+	private Map<String,String> readAttributes( Element tweetElem ) {
+		Map<String,String> ret = new HashMap<String,String>();
+
+		for ( Attribute attr : tweetElem.attributes() ) {
+			String key = attr.getKey();
+			if ( key.startsWith( "data-" ) ) {
+				key = key.substring( 5 );
+			}
+			key = key.replace( "-", "" );
+			if ( "conversationsectionquality".equals( key ) ) {
+				key = "quality";
+			}
+			ret.put( key, attr.getValue() );
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Same as tweet.js.
+	 */
+	private Map<String,String> readTweet( Element tweetElem ) {
+		Element tempElem;
+
+		Map<String,String> ret = new HashMap<String,String>();
+		for ( String key : TWEET_KEYS ) {
+			ret.put( key, "" );
+		}
+
+		tempElem = tweetElem.selectFirst( ".avatar" );
+		if ( tempElem != null ) {
+			ret.put( "avatarURL", tempElem.attr( "src" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".fullname" );
+		if ( tempElem != null ) {
+			ret.put( "fullname", tempElem.wholeText() );
+		}
+
+		tempElem = tweetElem.selectFirst( ".UserBadges" );
+		if ( tempElem != null ) {
+			ret.put( "verifiedText", tempElem.wholeText() );
+		}
+
+		tempElem = tweetElem.selectFirst( ".username" );
+		if ( tempElem != null ) {
+			ret.put( "username", tempElem.wholeText() );
+		}
+
+		tempElem = tweetElem.selectFirst( ".js-relative-timestamp" );
+		if ( tempElem == null ) {
+			tempElem = tweetElem.selectFirst( ".js-short-timestamp" );
+		}
+		if ( tempElem != null ) {
+			ret.put( "time", tempElem.attr( "data-time" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".tweet-text" );
+		if ( tempElem != null ) {
+			ret.put( "tweettext", tempElem.wholeText() );
+			ret.put( "tweethtml", tempElem.html() );
+			ret.put( "tweetlanguage", tempElem.attr( "lang" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".ReplyingToContextBelowAuthor a" );
+		if ( tempElem != null ) {
+			ret.put( "repliedtohandle", tempElem.attr( "href" ) );
+			ret.put( "repliedtouserid", tempElem.attr( "data-user-id" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".AdaptiveMedia-photoContainer img" );
+		if ( tempElem != null ) {
+			ret.put( "photourl", tempElem.attr( "src" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".PlayableMedia-player" );
+		if ( tempElem != null ) {
+			ret.put( "videothumburl", tempElem.attr( "style" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".ProfileTweet-action--reply span" );
+		if ( tempElem != null ) {
+			ret.put( "replycount", tempElem.attr( "data-tweet-stat-count" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".ProfileTweet-action--retweet span" );
+		if ( tempElem == null ) {
+			tempElem = tweetElem.selectFirst( ".request-retweeted-popup" );
+		}
+		if ( tempElem != null ) {
+			ret.put( "retweetcount", tempElem.attr( "data-tweet-stat-count" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".ProfileTweet-action--favorite span" );
+		if ( tempElem == null ) {
+			tempElem = tweetElem.selectFirst( ".request-favorited-popup" );
+		}
+		if ( tempElem != null ) {
+			ret.put( "favoritecount", tempElem.attr( "data-tweet-stat-count" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".QuoteTweet-link" );
+		if ( tempElem != null ) {
+			ret.put( "innertweetid", tempElem.attr( "data-conversation-id" ) );
+			ret.put( "innertweetrawhref", tempElem.attr( "href" ) );
+		}
+
+		tempElem = tweetElem.selectFirst( ".js-stream-item span" );
+		if ( tempElem != null ) {
+			ret.put( "suggestionjson", tempElem.attr( "data-suggestion-json" ) );
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Same as WebDriverUtils.getWebElementText, except that hidden text is included.
+	 */
+	private String getElementText( Element elem ) {
+		if ( elem == null ) {
+			return "";
+		}
+
+		String s;
+
+		s = Utils.trimDefault( elem.text() );
+		if ( s.length() > 0 ) {
+			return s;
+		}
+
+		s = Utils.trimDefault( elem.html() );
+		if ( s.length() > 0 ) {
+			return s;
+		}
+
+		return "";
+	}
+}
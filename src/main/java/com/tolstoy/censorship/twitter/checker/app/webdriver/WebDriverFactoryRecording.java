@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.webdriver;
+
+import java.io.File;
+import java.util.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.*;
+import com.tolstoy.basic.api.tweet.*;
+import com.tolstoy.basic.api.utils.*;
+import com.tolstoy.censorship.twitter.checker.api.preferences.IPreferences;
+import com.tolstoy.censorship.twitter.checker.api.webdriver.*;
+import com.tolstoy.censorship.twitter.checker.api.snapshot.*;
+
+/**
+ * Works like WebDriverFactoryJS, and also saves the DOM of every page it reads
+ * tweets from into a snapshot directory. WebDriverFactoryReplay can then run
+ * the same searches against those snapshots.
+ */
+public class WebDriverFactoryRecording extends WebDriverFactoryJS implements IWebDriverFactory {
+	private static final Logger logger = LogManager.getLogger( WebDriverFactoryRecording.class );
+
+	private static final String SCRIPT_OUTER_HTML = "return document.documentElement.outerHTML;";
+
+	private PageSnapshotArchive archive;
+
+	public WebDriverFactoryRecording( File snapshotDirectory, ISnapshotFactory snapshotFactory, ITweetFactory tweetFactory,
+										IPreferences prefs, IResourceBundleWithFormatting bundle ) throws Exception {
+		super( snapshotFactory, tweetFactory, prefs, bundle );
+
+		this.archive = new PageSnapshotArchive( snapshotDirectory );
+	}
+
+	@Override
+	public ITweetCollection harvestTweetCollectionFromURL( WebDriver driver,
+															IWebDriverUtils driverutils,
+															IInfiniteScrollingActivator infiniteScroller,
+															String url,
+															int numberOfPagesToCheck,
+															int maxTweets,
+															long targetTweetID,
+															int numberOfTweetsAfterTarget,
+															ITweetHarvestConsumer consumer ) throws Exception {
+		ITweetCollection ret = super.harvestTweetCollectionFromURL( driver, driverutils, infiniteScroller, url,
+																	numberOfPagesToCheck, maxTweets,
+																	targetTweetID, numberOfTweetsAfterTarget, consumer );
+
+		try {
+			String html = (String) ( (JavascriptExecutor) driver ).executeScript( SCRIPT_OUTER_HTML );
+			archive.save( url, "<!DOCTYPE html>\n" + html, infiniteScroller.getComplete() );
+		}
+		catch ( Exception e ) {
+			logger.error( "cannot save snapshot of " + url, e );
+		}
+
+		return ret;
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.webdriver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.*;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.*;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxProfile;
+import org.openqa.selenium.firefox.FirefoxBinary;
+import com.tolstoy.basic.api.tweet.*;
+import com.tolstoy.basic.api.utils.*;
+import com.tolstoy.censorship.twitter.checker.api.preferences.IPreferences;
+import com.tolstoy.censorship.twitter.checker.api.webdriver.*;
+import com.tolstoy.censorship.twitter.checker.api.snapshot.*;
+
+/**
+ * Replays snapshots recorded by WebDriverFactoryRecording, so that a search
+ * can be run without the network or the site.
+ *
+ * The snapshots are served from a local PageSnapshotServer to a headless
+ * Firefox. The WebDrivers returned by makeWebDriver send each get() for a
+ * site URL to the snapshot recorded for it. Pages aren't scrolled; they
+ * already contain what was scrolled into view when they were recorded.
+ *
+ * Call close once the WebDrivers are done with, to stop the server.
+ */
+public class WebDriverFactoryReplay extends WebDriverFactoryJS implements IWebDriverFactory, Closeable {
+	private static final Logger logger = LogManager.getLogger( WebDriverFactoryReplay.class );
+
+	private IPreferences prefs;
+	private PageSnapshotArchive archive;
+	private PageSnapshotServer server;
+
+	public WebDriverFactoryReplay( File snapshotDirectory, ISnapshotFactory snapshotFactory, ITweetFactory tweetFactory,
+									IPreferences prefs, IResourceBundleWithFormatting bundle ) throws Exception {
+		super( snapshotFactory, tweetFactory, prefs, bundle );
+
+		this.prefs = prefs;
+		this.archive = new PageSnapshotArchive( snapshotDirectory );
+		this.server = new PageSnapshotServer( archive, prefs.getValue( "targetsite.login_url" ) );
+		this.server.start();
+	}
+
+	@Override
+	public WebDriver makeWebDriver() throws Exception {
+		FirefoxBinary ffBin;
+		FirefoxProfile ffProfile;
+
+		if ( !prefs.isEmpty( "prefs.firefox_path_app" ) ) {
+			ffBin = new FirefoxBinary( new File( prefs.getValue( "prefs.firefox_path_app" ) ) );
+		}
+		else {
+			ffBin = new FirefoxBinary();
+		}
+
+		ffBin.setEnvironmentProperty( "MOZ_HEADLESS", "1" );
+
+		if ( !prefs.isEmpty( "prefs.firefox_path_profile" ) ) {
+			ffProfile = new FirefoxProfile( new File( prefs.getValue( "prefs.firefox_path_profile" ) ) );
+		}
+		else {
+			ffProfile = new FirefoxProfile();
+		}
+
+		setFirefoxProfilePreferences( ffProfile );
+
+		logger.info( "making headless WebDriver for replay" );
+
+		return makeRedirectingWebDriver( new FirefoxDriver( ffBin, ffProfile ) );
+	}
+
+	@Override
+	public IInfiniteScrollingActivator makeInfiniteScrollingActivator( WebDriver driver,
+																		IWebDriverUtils driverutils,
+																		InfiniteScrollingActivatorType type ) {
+		String key = server.getKeyFromLocalURL( driver.getCurrentUrl() );
+
+		return new InfiniteScrollingActivatorReplay( key != null && archive.getComplete( key ) );
+	}
+
+	/**
+	 * Stops the snapshot server. WebDrivers made by this factory can't load
+	 * snapshots afterwards.
+	 */
+	@Override
+	public void close() {
+		server.stop();
+
+		logger.info( "stopped snapshot server" );
+	}
+
+	/**
+	 * Wraps the driver in a proxy that has all of its interfaces (so casts to
+	 * JavascriptExecutor etc. still work) and rewrites the URL passed to get().
+	 */
+	private WebDriver makeRedirectingWebDriver( final WebDriver driver ) {
+		List<Class<?>> interfaces = ClassUtils.getAllInterfaces( driver.getClass() );
+
+		InvocationHandler handler = new InvocationHandler() {
+			@Override
+			public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
+				if ( "get".equals( method.getName() ) && args != null && args.length == 1 && args[ 0 ] instanceof String ) {
+					args = new Object[] { server.getLocalURL( (String) args[ 0 ] ) };
+				}
+
+				try {
+					return method.invoke( driver, args );
+				}
+				catch ( InvocationTargetException e ) {
+					throw e.getCause();
+				}
+			}
+		};
+
+		return (WebDriver) java.lang.reflect.Proxy.newProxyInstance( getClass().getClassLoader(),
+													interfaces.toArray( new Class<?>[ interfaces.size() ] ),
+													handler );
+	}
+}
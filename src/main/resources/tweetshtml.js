@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+	//	Returns the outerHTML of every tweet on the page, in page order, joined
+	//	into one string for WebDriverFactoryJsoup to parse.
+	//	arguments[ 0 ] is an optional list of tweet IDs to skip.
+var skipIDs = {};
+var skipList = arguments[ 0 ] || [];
+for ( var i = 0; i < skipList.length; i++ ) {
+	skipIDs[ skipList[ i ] ] = true;
+}
+
+var tweetElems = document.querySelectorAll( '.tweet' );
+var ret = [];
+
+for ( var i = 0; i < tweetElems.length; i++ ) {
+	if ( !skipIDs[ tweetElems[ i ].getAttribute( 'data-tweet-id' ) ] ) {
+		ret.push( tweetElems[ i ].outerHTML );
+	}
+}
+
+return ret.join( '' );
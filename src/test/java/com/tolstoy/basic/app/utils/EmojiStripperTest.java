@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.utils;
+
+import java.util.*;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class EmojiStripperTest extends TestCase {
+	public EmojiStripperTest( String testName ) {
+		super( testName );
+	}
+
+	public static Test suite() {
+		return new TestSuite( EmojiStripperTest.class );
+	}
+
+	/**
+	 * Utils.removeAllEmojis removes the same characters as emoji4j.
+	 */
+	public void testEmojiStripping() throws Exception {
+		List<String> corpus = new ArrayList<String>();
+		corpus.add( "" );
+		corpus.add( "no emojis here, just #hashtags and 1 2 3" );
+		corpus.add( "keycaps #\u20E3 1\u20E3 and 2\uFE0F\u20E3 next to 2 and #" );
+		corpus.add( "flags \uD83C\uDDFA\uD83C\uDDF8\uD83C\uDDEF\uD83C\uDDF5 and a lone \uD83C\uDDFA" );
+		corpus.add( "family \uD83D\uDC68\u200D\uD83D\uDC69\u200D\uD83D\uDC67 thumbs \uD83D\uDC4D\uD83C\uDFFD" );
+		corpus.add( "selectors \u2764\uFE0F \u2764 \u263A\uFE0F\uFE0F \u00A9 \u2122\uFE0E" );
+
+		List<String> emojis = new ArrayList<String>();
+		for ( emoji4j.Emoji emoji : emoji4j.EmojiManager.data() ) {
+			emojis.add( emoji.getEmoji() );
+			corpus.add( "before " + emoji.getEmoji() + " after" );
+		}
+
+		Random random = new Random( 1 );
+		String[] words = { "the", "censorship", "@user", "#tag", "1", "https://t.co/x", "\u00E9t\u00E9", "\n" };
+		for ( int i = 0; i < 3000; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			int numWords = 5 + random.nextInt( 30 );
+			for ( int j = 0; j < numWords; j++ ) {
+				sb.append( random.nextInt( 8 ) == 0 ? emojis.get( random.nextInt( emojis.size() ) ) : words[ random.nextInt( words.length ) ] );
+				sb.append( random.nextBoolean() ? " " : "" );
+			}
+			corpus.add( sb.toString() );
+		}
+
+		for ( String s : corpus ) {
+			assertEquals( s, emoji4j.EmojiUtils.removeAllEmojis( s ), Utils.removeAllEmojis( s ) );
+		}
+
+		String plain = corpus.get( 1 );
+		assertSame( plain, Utils.removeAllEmojis( plain ) );
+	}
+}
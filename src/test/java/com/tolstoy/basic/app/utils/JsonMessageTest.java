@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.basic.app.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tolstoy.basic.api.tweet.*;
+import com.tolstoy.basic.app.tweet.TweetFactory;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class JsonMessageTest extends TestCase {
+	private ITweetFactory tweetFactory;
+
+	public JsonMessageTest( String testName ) {
+		super( testName );
+	}
+
+	public static Test suite() {
+		return new TestSuite( JsonMessageTest.class );
+	}
+
+	protected void setUp() throws Exception {
+		tweetFactory = new TweetFactory();
+	}
+
+	protected void tearDown() throws Exception {
+		tweetFactory = null;
+	}
+
+	/**
+	 * Utils.writeJson and JsonMessage write the same JSON as the default mapper.
+	 */
+	public void testStreamingJson() throws Exception {
+		ITweetCollection tweetCollection = tweetFactory.makeTweetCollection();
+		for ( long id = 1; id <= 100; id++ ) {
+			ITweet tweet = tweetFactory.makeTweet( id, new HashMap<String,String>(), new StringList( "" ),
+													new StringList( "" ), tweetFactory.makeTweetUser( "user" + id ) );
+			tweet.setAttribute( "tweettext", "tweet " + id + " \u00E9t\u00E9 \uD83D\uDE00" );
+			tweetCollection.addTweet( tweet );
+		}
+
+		ObjectMapper mapper = Utils.getDefaultObjectMapper();
+		String json = mapper.writeValueAsString( tweetCollection );
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Utils.writeJson( tweetCollection, out );
+		assertEquals( mapper.readTree( json ), mapper.readTree( out.toByteArray() ) );
+
+		JsonMessage message = new JsonMessage( tweetCollection );
+
+		StringBuilder buffer = new StringBuilder( "prefix " );
+		message.formatTo( buffer );
+		assertEquals( "prefix " + json, buffer.toString() );
+		assertEquals( json, message.getFormattedMessage() );
+		assertEquals( "{}", message.getFormat() );
+
+		ITweetCollection copy = (ITweetCollection) mapper.readValue( out.toByteArray(), Object.class );
+		assertEquals( 100, copy.getTweets().size() );
+		assertEquals( tweetCollection.getTweetByID( 7 ).getAttribute( "tweettext" ), copy.getTweetByID( 7 ).getAttribute( "tweettext" ) );
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app;
+
+import java.util.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.tolstoy.basic.api.tweet.*;
+import com.tolstoy.basic.app.utils.*;
+import com.tolstoy.basic.app.tweet.TweetFactory;
+
+/**
+ * Times TweetCollection lookups against a linear scan. Not a unit test, so
+ * it isn't run by the build; run main directly.
+ */
+public class TweetCollectionBenchmark {
+	private static final Logger logger = LogManager.getLogger( TweetCollectionBenchmark.class );
+
+	private static final int NUM_TWEETS = 10000;
+
+	private ITweetFactory tweetFactory;
+
+	public TweetCollectionBenchmark() {
+		tweetFactory = new TweetFactory();
+	}
+
+	public static void main( String[] args ) throws Exception {
+		new TweetCollectionBenchmark().run();
+	}
+
+	public void run() throws Exception {
+		ITweetCollection tweetCollection = tweetFactory.makeTweetCollection();
+		List<ITweet> plain = new ArrayList<ITweet>( NUM_TWEETS );
+
+		for ( long id = 1; id <= NUM_TWEETS; id++ ) {
+			ITweet tweet = makeTweet( id );
+			tweetCollection.addTweet( tweet );
+			plain.add( tweet );
+		}
+
+		long start = System.nanoTime();
+		long sum = 0;
+		for ( long id = 1; id <= NUM_TWEETS; id++ ) {
+			for ( ITweet tweet : plain ) {
+				if ( tweet.getID() == id ) {
+					sum += tweet.getID();
+					break;
+				}
+			}
+		}
+		long linear = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for ( long id = 1; id <= NUM_TWEETS; id++ ) {
+			sum -= tweetCollection.getTweetOrderByID( id ) > 0 ? tweetCollection.getTweetByID( id ).getID() : 0;
+		}
+		long indexed = System.nanoTime() - start;
+
+		if ( sum != 0 ) {
+			throw new IllegalStateException( "indexed lookups found different tweets" );
+		}
+
+		List<Long> ids = new ArrayList<Long>( NUM_TWEETS / 2 );
+		for ( long id = 2; id <= NUM_TWEETS; id += 2 ) {
+			ids.add( id );
+		}
+
+		start = System.nanoTime();
+		tweetCollection.removeTweetsByID( ids );
+		long bulkRemove = System.nanoTime() - start;
+
+		logger.info( "lookups of " + NUM_TWEETS + " tweets: linear=" + ( linear / 1000000 ) + "ms, indexed=" +
+						( indexed / 1000000 ) + "ms; removing " + ids.size() + " took " + ( bulkRemove / 1000000 ) + "ms" );
+	}
+
+	private ITweet makeTweet( long id ) {
+		return tweetFactory.makeTweet( id, new HashMap<String,String>(), new StringList( "" ),
+										new StringList( "" ), tweetFactory.makeTweetUser( "user" + id ) );
+	}
+}
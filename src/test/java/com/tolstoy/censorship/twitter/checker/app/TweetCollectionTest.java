@@ -28,10 +28,13 @@ import com.tolstoy.basic.api.storage.*;
 import com.tolstoy.basic.api.tweet.*;
 import com.tolstoy.basic.app.utils.*;
 import com.tolstoy.basic.app.tweet.TweetFactory;
+import com.tolstoy.basic.app.tweet.TweetJacksonModule;
 import com.tolstoy.censorship.twitter.checker.api.preferences.*;
 import com.tolstoy.censorship.twitter.checker.app.preferences.PreferencesFactory;
 import com.tolstoy.basic.app.storage.StorageEmbeddedDerby;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -119,4 +122,221 @@ public class TweetCollectionTest extends TestCase {
 			}
 		}
 	}
+
+	/**
+	 */
+	public void testTweetIndex() throws Exception {
+		ITweetCollection tweetCollection = tweetFactory.makeTweetCollection();
+
+		for ( long id = 1; id <= 5; id++ ) {
+			tweetCollection.addTweet( makeTweet( id ) );
+		}
+		tweetCollection.addTweet( makeTweet( 3 ) );
+
+		assertEquals( 3, tweetCollection.getTweetOrderByID( 3 ) );
+		assertEquals( 0, tweetCollection.getTweetOrderByID( 99 ) );
+		assertNull( tweetCollection.getTweetByID( 99 ) );
+
+		tweetCollection.removeTweetByID( 3 );
+		assertEquals( 4, tweetCollection.getTweets().size() );
+		assertNull( tweetCollection.getTweetByID( 3 ) );
+		assertEquals( 3, tweetCollection.getTweetOrderByID( 4 ) );
+
+		tweetCollection.addTweet( makeTweet( 6 ) );
+		assertEquals( 5, tweetCollection.getTweetOrderByID( 6 ) );
+
+		tweetCollection.removeTweetsByID( Arrays.asList( 1L, 5L ) );
+		assertEquals( 1, tweetCollection.getTweetOrderByID( 2 ) );
+		assertEquals( 3, tweetCollection.getTweetOrderByID( 6 ) );
+
+				//	changed directly, as WebDriverFactory does
+		List<ITweet> tweets = tweetCollection.getTweets();
+		tweets.remove( 0 );
+		assertEquals( 1, tweetCollection.getTweetOrderByID( 4 ) );
+		tweets.set( 0, makeTweet( 7 ) );
+		tweetCollection.setTweets( tweets );
+		assertEquals( 1, tweetCollection.getTweetOrderByID( 7 ) );
+
+		List<ITweet> replacement = new ArrayList<ITweet>();
+		replacement.add( makeTweet( 8 ) );
+		tweetCollection.setTweets( replacement );
+		assertEquals( 0, tweetCollection.getTweetOrderByID( 6 ) );
+		assertEquals( 1, tweetCollection.getTweetOrderByID( 8 ) );
+
+		String json = Utils.getDefaultObjectMapper().writeValueAsString( tweetCollection );
+		tweetCollection = (ITweetCollection) Utils.getDefaultObjectMapper().readValue( json, Object.class );
+		assertEquals( 8, tweetCollection.getTweetByID( 8 ).getID() );
+	}
+
+	/**
+	 */
+	public void testTweetIndexSeesListChanges() throws Exception {
+		ITweetCollection tweetCollection = tweetFactory.makeTweetCollection();
+
+		for ( long id = 1; id <= 3; id++ ) {
+			tweetCollection.addTweet( makeTweet( id ) );
+		}
+		assertEquals( 2, tweetCollection.getTweetOrderByID( 2 ) );
+
+				//	the indexed position of 2 still holds a tweet with that ID, but it's no longer the first
+		List<ITweet> tweets = tweetCollection.getTweets();
+		tweets.set( 0, makeTweet( 2 ) );
+		assertEquals( 1, tweetCollection.getTweetOrderByID( 2 ) );
+		assertEquals( 0, tweetCollection.getTweetOrderByID( 1 ) );
+
+		Collections.reverse( tweets );
+		assertEquals( 1, tweetCollection.getTweetOrderByID( 3 ) );
+		assertEquals( 2, tweetCollection.getTweetOrderByID( 2 ) );
+
+		tweets.add( 0, makeTweet( 4 ) );
+		assertEquals( 1, tweetCollection.getTweetOrderByID( 4 ) );
+		assertEquals( 2, tweetCollection.getTweetOrderByID( 3 ) );
+
+				//	another collection given this one's list shares the tweets, not the view
+		ITweetCollection other = tweetFactory.makeTweetCollection();
+		other.setTweets( tweets );
+		assertEquals( 4, other.getTweets().size() );
+		String json = Utils.getDefaultObjectMapper().writeValueAsString( other );
+		assertTrue( json.contains( "\"java.util.ArrayList\"" ) );
+	}
+
+	/**
+	 */
+	public void testTweetUserSharing() throws Exception {
+		ITweetCollection tweetCollection = tweetFactory.makeTweetCollection();
+
+		for ( long id = 1; id <= 3; id++ ) {
+			ITweetUser user = tweetFactory.makeTweetUser( "shareduser", 77, "Shared User", TweetUserVerifiedStatus.VERIFIED, "" );
+			tweetCollection.addTweet( tweetFactory.makeTweet( id, new HashMap<String,String>(), new StringList( "" ),
+																new StringList( "" ), user ) );
+		}
+
+				//	same profile, but with counts: not shared, and the shared user isn't changed
+		ITweetUser counted = tweetFactory.makeTweetUser( "shareduser", 77, "Shared User", TweetUserVerifiedStatus.VERIFIED, "", 10, 20, 30 );
+		tweetCollection.addTweet( tweetFactory.makeTweet( 4, new HashMap<String,String>(), new StringList( "" ),
+															new StringList( "" ), counted ) );
+		tweetCollection.addTweet( tweetFactory.makeTweet( 5, new HashMap<String,String>(), new StringList( "" ),
+															new StringList( "" ),
+															tweetFactory.makeTweetUser( "shareduser", 77, "Shared User", TweetUserVerifiedStatus.VERIFIED, "" ) ) );
+
+		List<ITweet> tweets = tweetCollection.getTweets();
+		assertSame( tweets.get( 0 ).getUser(), tweets.get( 2 ).getUser() );
+		assertNotSame( tweets.get( 0 ).getUser(), tweets.get( 3 ).getUser() );
+		assertSame( tweets.get( 0 ).getUser(), tweets.get( 4 ).getUser() );
+		assertEquals( 0, tweets.get( 0 ).getUser().getNumFollowers() );
+		assertEquals( 0, tweets.get( 4 ).getUser().getNumFollowers() );
+		assertEquals( 20, tweets.get( 3 ).getUser().getNumFollowers() );
+
+				//	other mappers write every user in full
+		String json = Utils.getDefaultObjectMapper().writeValueAsString( tweetCollection );
+		assertEquals( 5, StringUtils.countMatches( json, "Shared User" ) );
+		assertFalse( json.contains( "@ref" ) );
+
+		ObjectMapper storageMapper = new ObjectMapper();
+		storageMapper.registerModule( new JavaTimeModule() );
+		storageMapper.enableDefaultTyping( ObjectMapper.DefaultTyping.NON_FINAL );
+		storageMapper.registerModule( new TweetJacksonModule( true ) );
+
+		json = storageMapper.writeValueAsString( tweetCollection );
+		assertEquals( 2, StringUtils.countMatches( json, "Shared User" ) );
+
+		tweetCollection = (ITweetCollection) storageMapper.readValue( json, Object.class );
+		tweets = tweetCollection.getTweets();
+		assertEquals( 5, tweets.size() );
+		assertSame( tweets.get( 0 ).getUser(), tweets.get( 2 ).getUser() );
+		assertSame( tweets.get( 0 ).getUser(), tweets.get( 4 ).getUser() );
+		assertEquals( "Shared User", tweets.get( 2 ).getUser().getDisplayName() );
+		assertEquals( 0, tweets.get( 4 ).getUser().getNumFollowers() );
+		assertEquals( 20, tweets.get( 3 ).getUser().getNumFollowers() );
+
+				//	stored before users were written once per document
+		String tweetJson = Utils.getDefaultObjectMapper().writeValueAsString( tweets.get( 0 ) );
+		String legacy = "[\"java.util.ArrayList\",[" + tweetJson + "," + tweetJson + "]]";
+
+		@SuppressWarnings("unchecked")
+		List<ITweet> legacyTweets = (List<ITweet>) storageMapper.readValue( legacy, Object.class );
+		assertEquals( 2, legacyTweets.size() );
+		assertSame( legacyTweets.get( 0 ).getUser(), legacyTweets.get( 1 ).getUser() );
+
+				//	users read by Jackson are checked like those made by the constructor
+		String noHandle = tweetJson.replace( "\"handle\":\"shareduser\"", "\"handle\":\" @\"" );
+		assertFalse( noHandle.equals( tweetJson ) );
+		try {
+			storageMapper.readValue( noHandle, Object.class );
+			fail( "read a user with an empty handle" );
+		}
+		catch ( JsonMappingException e ) {
+		}
+
+		String untidyHandle = tweetJson.replace( "\"handle\":\"shareduser\"", "\"handle\":\"@SharedUser\"" );
+		ITweet untidyTweet = (ITweet) storageMapper.readValue( untidyHandle, Object.class );
+		assertEquals( "shareduser", untidyTweet.getUser().getHandle() );
+	}
+
+	/**
+	 */
+	public void testTweetColumns() throws Exception {
+		ITweetCollection tweetCollection = tweetFactory.makeTweetCollection();
+		Random random = new Random( 1 );
+		String[] qualities = { "high", "low", "abusive", "" };
+
+		for ( long id = 1; id <= 2000; id++ ) {
+			ITweet tweet = makeTweet( id );
+			tweet.setAttribute( "time", "" + ( 1500000000 + random.nextInt( 500 ) ) );
+			tweet.setAttribute( "replycount", "" + random.nextInt( 5 ) );
+			tweet.setAttribute( "retweetcount", "" + random.nextInt( 5 ) );
+			tweet.setAttribute( "favoritecount", "" + random.nextInt( 5 ) );
+			tweet.setAttribute( "quality", qualities[ random.nextInt( qualities.length ) ] );
+			tweet.setUser( tweetFactory.makeTweetUser( "user" + random.nextInt( 50 ) ) );
+			tweetCollection.addTweet( tweet );
+		}
+
+		List<ITweet> tweets = tweetCollection.getTweets();
+		ITweetColumns columns = tweetCollection.getColumns();
+		assertSame( columns, tweetCollection.getColumns() );
+
+		List<ITweet> byDate = new ArrayList<ITweet>( tweets );
+		Collections.sort( byDate, new TweetDateComparator( TweetComparatorDirection.ASC ) );
+		assertPositions( tweets, byDate, columns.getPositionsByDate() );
+
+		List<ITweet> byInteraction = new ArrayList<ITweet>( tweets );
+		Collections.sort( byInteraction, new TweetInteractionComparator( 5, 3, 2, TweetComparatorDirection.DESC ) );
+		assertPositions( tweets, byInteraction, columns.getPositionsByInteraction( 5, 3, 2 ) );
+
+		ITweet middle = tweets.get( 1000 );
+		int newer = 0;
+		for ( ITweet tweet : tweets ) {
+			if ( tweet.getTime() > middle.getTime() ) {
+				newer++;
+			}
+		}
+		assertEquals( newer, columns.countNewerThan( middle.getTime() ) );
+
+		for ( int i = 0; i < tweets.size(); i++ ) {
+			assertEquals( tweets.get( i ).getSupposedQuality(), columns.getSupposedQuality( i ) );
+			assertEquals( tweets.get( i ).getUser().getHandle(), columns.getHandles()[ columns.getHandleCodes()[ i ] ] );
+		}
+
+		tweetCollection.addTweet( makeTweet( 2001 ) );
+		assertEquals( 2001, tweetCollection.getColumns().size() );
+
+				//	reordered in place, as sortTweetsInPageOrder might; the size doesn't change
+		Collections.reverse( tweets );
+		columns = tweetCollection.getColumns();
+		assertEquals( 2001L, columns.getIDs()[ 0 ] );
+		assertEquals( 1L, columns.getIDs()[ 2000 ] );
+		assertEquals( tweets.get( 1000 ).getSupposedQuality(), columns.getSupposedQuality( 1000 ) );
+	}
+
+	private void assertPositions( List<ITweet> tweets, List<ITweet> expected, int[] positions ) {
+		assertEquals( expected.size(), positions.length );
+		for ( int i = 0; i < positions.length; i++ ) {
+			assertSame( expected.get( i ), tweets.get( positions[ i ] ) );
+		}
+	}
+
+	private ITweet makeTweet( long id ) {
+		return tweetFactory.makeTweet( id, new HashMap<String,String>(), new StringList( "" ),
+										new StringList( "" ), tweetFactory.makeTweetUser( "user" + id ) );
+	}
 }
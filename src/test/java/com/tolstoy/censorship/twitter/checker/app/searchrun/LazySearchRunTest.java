@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.searchrun;
+
+import java.util.*;
+import java.time.Instant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tolstoy.basic.api.storage.*;
+import com.tolstoy.basic.api.tweet.*;
+import com.tolstoy.basic.app.storage.PayloadCodecLazy;
+import com.tolstoy.basic.app.storage.PayloadCodecSmile;
+import com.tolstoy.basic.app.tweet.TweetFactory;
+import com.tolstoy.basic.app.utils.*;
+import com.tolstoy.censorship.twitter.checker.api.searchrun.*;
+import com.tolstoy.censorship.twitter.checker.api.snapshot.*;
+import com.tolstoy.censorship.twitter.checker.app.snapshot.SnapshotFactory;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class LazySearchRunTest extends TestCase {
+	private ITweetFactory tweetFactory;
+
+	public LazySearchRunTest( String testName ) {
+		super( testName );
+	}
+
+	public static Test suite() {
+		return new TestSuite( LazySearchRunTest.class );
+	}
+
+	protected void setUp() throws Exception {
+		tweetFactory = new TweetFactory();
+	}
+
+	protected void tearDown() throws Exception {
+		tweetFactory = null;
+	}
+
+	/**
+	 * A replies run read back through PayloadCodecLazy, as it is by default.
+	 */
+	public void testRepliesRoundTrip() throws Exception {
+		ISearchRunReplies searchRun = makeRepliesRun();
+		IPayloadCodec payloadCodec = new PayloadCodecLazy( new PayloadCodecSmile( true ), new LazySearchRunFactory() );
+
+		Object decoded = payloadCodec.decode( payloadCodec.encode( searchRun ) );
+		assertTrue( decoded instanceof LazySearchRunReplies );
+
+		LazySearchRunReplies lazy = (LazySearchRunReplies) decoded;
+		lazy.setID( 12 );
+		assertFalse( lazy.isDecoded() );
+		assertEquals( "user0", lazy.getSearchKey() );
+		assertEquals( "1", lazy.getAttribute( "version" ) );
+		assertEquals( searchRun.getStartTime(), lazy.getStartTime() );
+		assertReadOnly( lazy.getAttributes() );
+		assertFalse( lazy.isDecoded() );
+
+		assertEquals( 3, lazy.getReplies().size() );
+		assertTrue( lazy.isDecoded() );
+		assertEquals( 12, lazy.getID() );
+		assertReadOnly( lazy.getAttributes() );
+
+		IReplyThread replyThread = lazy.getReplyThreadBySourceTweetID( 101 );
+		assertEquals( 1001, replyThread.getRepliedToTweet().getID() );
+		assertEquals( 4, replyThread.getReplyPage().getTweetCollection().getTweets().size() );
+		assertEquals( 2, lazy.getTimeline().getTweetCollection().getTweetOrderByID( 101 ) );
+
+		searchRun.setID( 12 );
+		ObjectMapper mapper = Utils.getDefaultObjectMapper();
+		assertEquals( mapper.readTree( mapper.writeValueAsString( searchRun ) ), mapper.readTree( mapper.writeValueAsString( lazy.getDecodedStorable() ) ) );
+
+				//	encoding the lazy run writes it in full
+		Object again = payloadCodec.decode( payloadCodec.encode( lazy ) );
+		assertEquals( 3, ( (ISearchRunReplies) again ).getReplies().size() );
+
+		lazy.setAttribute( "version", "2" );
+		assertEquals( "2", lazy.getAttributes().get( "version" ) );
+	}
+
+	private void assertReadOnly( Map<String,String> attributes ) {
+		try {
+			attributes.put( "x", "y" );
+			fail( "attributes can be changed" );
+		}
+		catch ( UnsupportedOperationException e ) {
+		}
+	}
+
+	private ISearchRunReplies makeRepliesRun() {
+		SnapshotFactory snapshotFactory = new SnapshotFactory();
+		ITweetUser user = tweetFactory.makeTweetUser( "user0", 1 );
+
+		List<ITweet> timelineTweets = new ArrayList<ITweet>();
+		Map<Long,IReplyThread> replies = new HashMap<Long,IReplyThread>();
+
+		for ( long i = 0; i < 3; i++ ) {
+			ITweet sourceTweet = makeTweet( 100 + i, user );
+			ITweet repliedToTweet = makeTweet( 1000 + i, tweetFactory.makeTweetUser( "other" + i, 10 + i ) );
+			timelineTweets.add( sourceTweet );
+
+			List<ITweet> pageTweets = new ArrayList<ITweet>();
+			for ( long j = 0; j < 3; j++ ) {
+				pageTweets.add( makeTweet( 2000 + i * 10 + j, tweetFactory.makeTweetUser( "replier" + j, 20 + j ) ) );
+			}
+			pageTweets.add( sourceTweet );
+
+			ISnapshotUserPageIndividualTweet replyPage = snapshotFactory.makeSnapshotUserPageIndividualTweet( "https://twitter.com/other" + i + "/status/" + repliedToTweet.getID(),
+																											Instant.now() );
+			replyPage.setIndividualTweet( repliedToTweet );
+			replyPage.setTweetID( repliedToTweet.getID() );
+			replyPage.setUser( repliedToTweet.getUser() );
+			replyPage.setTweetCollection( tweetFactory.makeTweetCollection( pageTweets, Instant.now(), new HashMap<String,String>() ) );
+
+			replies.put( sourceTweet.getID(), snapshotFactory.makeReplyThread( ReplyThreadType.DIRECT, sourceTweet, repliedToTweet, replyPage, null ) );
+		}
+
+		ISnapshotUserPageTimeline timeline = snapshotFactory.makeSnapshotUserPageTimeline( "https://twitter.com/user0", Instant.now() );
+		timeline.setUser( user );
+		timeline.setTweetCollection( tweetFactory.makeTweetCollection( timelineTweets, Instant.now(), new HashMap<String,String>() ) );
+
+		Map<String,String> attributes = new HashMap<String,String>();
+		attributes.put( "version", "1" );
+
+		return new SearchRunFactory( tweetFactory ).makeSearchRunReplies( 0, user, Instant.now(), Instant.now(), timeline, replies, attributes );
+	}
+
+	private ITweet makeTweet( long id, ITweetUser user ) {
+		Map<String,String> attributes = new HashMap<String,String>();
+		attributes.put( "tweettext", "tweet " + id );
+		attributes.put( "time", "" + ( 1500000000 + id ) );
+
+		return tweetFactory.makeTweet( id, attributes, new StringList( "tweet" ), new StringList( "" ), user );
+	}
+}
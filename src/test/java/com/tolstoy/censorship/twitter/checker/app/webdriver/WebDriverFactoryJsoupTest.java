@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 Chris Kelly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.tolstoy.censorship.twitter.checker.app.webdriver;
+
+import java.util.*;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import com.tolstoy.basic.app.tweet.TweetFactory;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class WebDriverFactoryJsoupTest extends TestCase {
+	public WebDriverFactoryJsoupTest( String testName ) {
+		super( testName );
+	}
+
+	public static Test suite() {
+		return new TestSuite( WebDriverFactoryJsoupTest.class );
+	}
+
+	/**
+	 * When the page HTML can't be parsed, the tweets are read with tweets.js instead.
+	 */
+	public void testFallbackWhenParseFails() throws Exception {
+		final List<String> scripts = new ArrayList<String>();
+
+		WebDriver driver = (WebDriver) Proxy.newProxyInstance( getClass().getClassLoader(),
+																new Class<?>[] { WebDriver.class, JavascriptExecutor.class },
+																new InvocationHandler() {
+			@Override
+			public Object invoke( Object proxy, Method method, Object[] args ) {
+				if ( !"executeScript".equals( method.getName() ) ) {
+					throw new UnsupportedOperationException( method.getName() );
+				}
+
+				String script = (String) args[ 0 ];
+				scripts.add( script );
+
+					//	the outerHTML request gets something Jsoup can't be given
+				if ( script.contains( "outerHTML" ) ) {
+					return Integer.valueOf( 0 );
+				}
+
+					//	tweets.js skips the IDs it's given
+				List<?> skipList = (List<?>) ( (Object[]) args[ 1 ] )[ 0 ];
+
+				List<Map<String,Object>> ret = new ArrayList<Map<String,Object>>();
+				for ( long id = 1; id <= 3; id++ ) {
+					if ( skipList.contains( "" + id ) ) {
+						continue;
+					}
+
+					Map<String,Object> tweetMap = new HashMap<String,Object>();
+					tweetMap.put( "tweetid", "" + id );
+					tweetMap.put( "tweettext", "tweet " + id );
+					ret.add( tweetMap );
+				}
+
+				return ret;
+			}
+		});
+
+		WebDriverFactoryJsoup factory = new WebDriverFactoryJsoup( null, new TweetFactory(), null, null );
+
+		List<Map<String,String>> all = factory.loadAllTweetAttributes( driver, null );
+		assertEquals( 3, all.size() );
+		assertEquals( "tweet 1", all.get( 0 ).get( "tweettext" ) );
+		assertEquals( 2, scripts.size() );
+
+		List<Map<String,String>> unseen = factory.loadNewTweetAttributes( driver, null, new HashSet<Long>( Arrays.asList( 1L, 3L ) ) );
+		assertEquals( 1, unseen.size() );
+		assertEquals( "2", unseen.get( 0 ).get( "tweetid" ) );
+	}
+
+	/**
+	 * After a scroll only the HTML of the unseen tweets is asked for and parsed.
+	 */
+	public void testParsesOnlyUnseenTweets() throws Exception {
+		final List<Object> skipLists = new ArrayList<Object>();
+
+		WebDriver driver = (WebDriver) Proxy.newProxyInstance( getClass().getClassLoader(),
+																new Class<?>[] { WebDriver.class, JavascriptExecutor.class },
+																new InvocationHandler() {
+			@Override
+			public Object invoke( Object proxy, Method method, Object[] args ) {
+				if ( !"executeScript".equals( method.getName() ) ) {
+					throw new UnsupportedOperationException( method.getName() );
+				}
+
+				Object[] scriptArgs = (Object[]) args[ 1 ];
+				List<?> skipList = (List<?>) scriptArgs[ 0 ];
+				skipLists.add( skipList );
+
+				StringBuilder sb = new StringBuilder();
+				for ( long id = 1; id <= 3; id++ ) {
+					if ( !skipList.contains( "" + id ) ) {
+						sb.append( "<div class=\"tweet\" data-tweet-id=\"" + id + "\" data-name=\"User " + id + "\">" );
+						sb.append( "<p class=\"tweet-text\" lang=\"fr\">tweet " + id + "</p></div>" );
+					}
+				}
+
+				return sb.toString();
+			}
+		});
+
+		WebDriverFactoryJsoup factory = new WebDriverFactoryJsoup( null, new TweetFactory(), null, null );
+
+		List<Map<String,String>> all = factory.loadAllTweetAttributes( driver, null );
+		assertEquals( 3, all.size() );
+		assertEquals( "tweet 2", all.get( 1 ).get( "tweettext" ) );
+		assertEquals( "fr", all.get( 1 ).get( "tweetlanguage" ) );
+		assertEquals( "2", all.get( 1 ).get( "tweetid" ) );
+		assertEquals( "User 2", all.get( 1 ).get( "name" ) );
+
+		List<Map<String,String>> unseen = factory.loadNewTweetAttributes( driver, null, new HashSet<Long>( Arrays.asList( 1L, 3L ) ) );
+		assertEquals( 1, unseen.size() );
+		assertEquals( "2", unseen.get( 0 ).get( "tweetid" ) );
+
+		assertEquals( 2, skipLists.size() );
+		assertTrue( ( (List<?>) skipLists.get( 0 ) ).isEmpty() );
+		assertEquals( new HashSet<String>( Arrays.asList( "1", "3" ) ), new HashSet<Object>( (List<?>) skipLists.get( 1 ) ) );
+	}
+}